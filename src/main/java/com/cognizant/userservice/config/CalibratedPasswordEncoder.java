@@ -0,0 +1,94 @@
+package com.cognizant.userservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * BCrypt {@link PasswordEncoder} whose work factor is calibrated at startup against the host CPU.
+ * <p>
+ * The encoder measures how long a hash takes at increasing cost factors and keeps the highest one
+ * that stays within the configured target latency, bounded by a minimum and maximum strength.
+ * Hashes of any cost still verify. {@link #upgradeEncoding(String)} reports hashes made with a
+ * lower cost, so Spring Security rehashes them on the user's next successful login. Stronger hashes, e.g.
+ * from an instance calibrated on a faster host, are kept, so a fleet of mixed hosts never weakens them.
+ * </p>
+ */
+@Slf4j
+public class CalibratedPasswordEncoder implements PasswordEncoder {
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private final int strength;
+
+    private final BCryptPasswordEncoder delegate;
+
+    public CalibratedPasswordEncoder(Duration targetLatency, int minStrength, int maxStrength) {
+        this.strength = calibrate(targetLatency, minStrength, maxStrength);
+        this.delegate = new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * Returns the BCrypt cost factor chosen at startup.
+     *
+     * @return the calibrated log2 number of rounds
+     */
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        // BCrypt reads the cost and salt from the stored hash, so older hashes keep verifying.
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int storedStrength = parseStrength(encodedPassword);
+        return storedStrength > 0 && storedStrength < strength;
+    }
+
+    // Finds the highest cost whose hash time stays within the target, never going below minStrength
+    private static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+        // Warm up the JIT so the first measurement is not dominated by interpretation.
+        new BCryptPasswordEncoder(minStrength).encode(CALIBRATION_PASSWORD);
+
+        int chosen = minStrength;
+        for (int candidate = minStrength; candidate <= maxStrength; candidate++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(candidate).encode(CALIBRATION_PASSWORD);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            log.debug("BCrypt cost {} took {} ms", candidate, elapsed.toMillis());
+            if (elapsed.compareTo(targetLatency) > 0) {
+                break;
+            }
+            chosen = candidate;
+        }
+        log.info("Calibrated BCrypt cost factor to {} for a target hash latency of {} ms", chosen, targetLatency.toMillis());
+        return chosen;
+    }
+
+    // Reads the cost from a hash of the form $2a$12$..., returning -1 if it is not a BCrypt hash
+    private static int parseStrength(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return -1;
+        }
+        String[] parts = encodedPassword.split("\\$", 4);
+        if (parts.length < 4) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(parts[2]);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+}
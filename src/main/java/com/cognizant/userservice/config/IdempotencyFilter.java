@@ -0,0 +1,242 @@
+package com.cognizant.userservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Replays the stored response when a client retries a punch or leave submission with the same
+ * {@code Idempotency-Key} header.
+ * <p>
+ * The first request with a key runs normally and its response (status, content type and body) is kept
+ * in a bounded in-memory store for {@code application.idempotency.ttl}. Retries with the same key from the
+ * same user, method and path get that response back without reaching the service layer, marked with an
+ * {@code Idempotent-Replayed: true} header. A retry that arrives while the first request is still running
+ * gets 409 CONFLICT. The SHA-256 of the request body is kept with the response, and a request that reuses a key
+ * with a different body gets 422 UNPROCESSABLE_ENTITY instead of a response meant for another request. Server errors (5xx) are not stored, so those requests can be retried for real.
+ * Requests without the header, and requests to other endpoints, are not affected.
+ * </p>
+ */
+@Component
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // Endpoints whose responses are stored, as "METHOD path"
+    private static final Set<String> IDEMPOTENT_ENDPOINTS = Set.of(
+            "POST /api/v1/attendance/checkin",
+            "PUT /api/v1/attendance/checkout",
+            "POST /api/v1/leaves/apply");
+
+    private final Cache<String, StoredResponse> responses;
+
+    private final Counter replayed;
+
+    /**
+     * A response kept for replay.
+     *
+     * @param requestHash the SHA-256 of the body of the request that produced the response
+     * @param status      the HTTP status code, or 0 while the first request has not completed yet
+     * @param contentType the response content type, or {@code null}
+     * @param body        the response body
+     */
+    record StoredResponse(byte[] requestHash, int status, String contentType, byte[] body) {
+
+        static StoredResponse inProgress(byte[] requestHash) {
+            return new StoredResponse(requestHash, 0, null, new byte[0]);
+        }
+
+        boolean isInProgress() {
+            return status == 0;
+        }
+    }
+
+    public IdempotencyFilter(
+            @Value("${application.idempotency.ttl}") Duration ttl,
+            @Value("${application.idempotency.max-entries}") long maxEntries,
+            MeterRegistry meterRegistry) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        this.replayed = Counter.builder("http.idempotency.replayed")
+                .description("Retried requests answered from the idempotency store")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !IDEMPOTENT_ENDPOINTS.contains(request.getMethod() + " " + request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH
+                || authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            // Unusable key or unauthenticated request: let the chain answer as usual.
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // The body is read up front to hash it, and handed on to the chain from memory.
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        byte[] requestHash = sha256(cachedRequest.body);
+
+        // Keys are scoped per user and endpoint so one client cannot replay another's response.
+        String storeKey = authentication.getName() + "|" + request.getMethod() + "|" + request.getRequestURI() + "|" + idempotencyKey;
+        StoredResponse existing = responses.asMap().putIfAbsent(storeKey, StoredResponse.inProgress(requestHash));
+        if (existing != null && !MessageDigest.isEqual(existing.requestHash(), requestHash)) {
+            log.debug("Idempotency key '{}' reused with a different request body", idempotencyKey);
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "This Idempotency-Key was already used with a different request body");
+            return;
+        }
+        if (existing != null && existing.isInProgress()) {
+            log.debug("Request with idempotency key '{}' is still in progress", idempotencyKey);
+            writeError(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed");
+            return;
+        }
+        if (existing != null) {
+            log.debug("Replaying stored response for idempotency key '{}'", idempotencyKey);
+            replayed.increment();
+            replay(existing, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(cachedRequest, responseWrapper);
+            if (responseWrapper.getStatus() < 500) {
+                responses.put(storeKey, new StoredResponse(requestHash, responseWrapper.getStatus(),
+                        responseWrapper.getContentType(), responseWrapper.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                // Failed requests release the key so the client's retry runs again.
+                responses.invalidate(storeKey);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("{\"message\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Holds a request body that has already been read, and serves it again to the rest of the chain.
+     * The idempotent endpoints take small JSON bodies, so keeping one in memory is cheap.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("The request body has already been read");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
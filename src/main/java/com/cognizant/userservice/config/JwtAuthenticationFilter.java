@@ -1,6 +1,13 @@
 package com.cognizant.userservice.config;
 
+import com.cognizant.userservice.model.TokenPrincipal;
+import com.cognizant.userservice.model.UserPrincipal;
+import com.cognizant.userservice.model.VerifiedToken;
 import com.cognizant.userservice.service.JwtService;
+import com.cognizant.userservice.service.TokenRevocationService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,15 +15,19 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
 
 /**
  * Custom Spring Security filter for JWT authentication.
@@ -33,6 +44,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     // Injected dependency: Service to load user-specific data (e.g., from a database).
     private final UserDetailsService userDetailsService;
+    // Injected dependency: In-memory view of revoked subjects, checked without a database query.
+    private final TokenRevocationService tokenRevocationService;
+
+    // How long a claims-based principal is trusted before the user is re-checked against the store.
+    // A zero interval re-checks on every request, which restores fully stateful authentication.
+    @Value("${application.security.jwt.store-recheck-interval}")
+    private Duration storeRecheckInterval;
+
+    // Upper bound on the usernames remembered as re-checked; beyond it the least used are re-checked early.
+    @Value("${application.security.jwt.store-recheck-cache.max-size}")
+    private long storeRecheckCacheMaxSize;
+
+    // Usernames whose claims were confirmed against the store within the re-check interval.
+    private Cache<String, Boolean> recentlyRechecked;
+
+    /**
+     * Builds the re-check cache once its interval and size have been injected.
+     */
+    @PostConstruct
+    void initRecheckCache() {
+        this.recentlyRechecked = Caffeine.newBuilder()
+                .maximumSize(storeRecheckCacheMaxSize)
+                .expireAfterWrite(storeRecheckInterval)
+                .build();
+    }
 
     /**
      * This core method is executed for every incoming HTTP request that passes through the filter chain.
@@ -75,9 +111,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         log.trace("Extracted JWT: {}", jwt);
 
-        // 3. Extract the username (subject) from the JWT using the JwtService.
+        // 3. Parse the JWT and verify its signature and expiry exactly once.
+        // Every later decision uses the returned VerifiedToken instead of re-parsing the raw string.
+        Optional<VerifiedToken> verifiedToken = jwtService.verifyToken(jwt);
+        if (verifiedToken.isEmpty()) {
+            // Log a warning if the token is invalid (e.g., expired, tampered) and continue unauthenticated.
+            log.warn("JWT token is invalid for request '{}'", request.getRequestURI());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Reject tokens of users whose tokens were revoked (e.g. deleted accounts).
+        // For the common, non-revoked case this is a single Bloom filter probe.
+        if (tokenRevocationService.isRevoked(verifiedToken.get())) {
+            log.warn("JWT token has been revoked for user '{}'", verifiedToken.get().getUsername());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         // The username (often an email) is the principal identifier within the token.
-        userEmail = jwtService.extractUsername(jwt);
+        userEmail = verifiedToken.get().getUsername();
         log.debug("Extracted username '{}' from JWT", userEmail);
 
         // 4. Validate authentication conditions:
@@ -88,14 +141,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             log.trace("User '{}' is not authenticated, proceeding with token validation.", userEmail);
 
-            // Load user details from the UserDetailsService based on the extracted userEmail.
-            // This retrieves user information (e.g., roles, enabled status) from your data store.
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            log.trace("Loaded UserDetails for '{}'", userEmail);
+            // Build the principal from the token claims; this only reaches the data store for
+            // tokens issued without identity claims or when the periodic re-check is due.
+            UserDetails userDetails = resolvePrincipal(verifiedToken.get());
+            log.trace("Resolved UserDetails for '{}'", userEmail);
 
-            // 5. Validate the JWT token against the loaded UserDetails.
-            // The JwtService checks for token validity (signature, expiration) and if it matches the user.
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            // 5. Match the verified token against the loaded UserDetails.
+            // Signature and expiration were already checked when the token was verified above.
+            if (userDetails != null && userEmail.equals(userDetails.getUsername())) {
                 log.info("JWT token is valid for user '{}'. Authenticating.", userEmail);
 
                 // If the token is valid, create an authentication token for Spring Security.
@@ -118,7 +171,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authToken);
                 log.debug("User '{}' successfully authenticated and security context updated.", userEmail);
             } else {
-                // Log a warning if the token is found to be invalid (e.g., expired, tampered).
+                // Log a warning if the token no longer matches the stored user (deleted or role changed).
                 log.warn("JWT token is invalid for user '{}'", userEmail);
             }
         } else {
@@ -131,4 +184,44 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Without this, the request would be blocked after this filter.
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Resolves the principal for a verified token.
+     * Tokens carrying user ID and role claims become a {@link TokenPrincipal} without a database lookup,
+     * apart from a re-check against the store once per {@code storeRecheckInterval}: the stored user must still have
+     * the token's user ID and role.
+     * Tokens issued before those claims existed fall back to a full {@link UserDetailsService} lookup.
+     *
+     * @param token the verified token of the current request
+     * @return the principal to authenticate, or {@code null} if the token no longer matches the stored user
+     */
+    private UserDetails resolvePrincipal(VerifiedToken token) {
+        if (!token.hasIdentityClaims()) {
+            return loadFromStore(token.getUsername());
+        }
+        if (recentlyRechecked.getIfPresent(token.getUsername()) == null) {
+            UserDetails stored = loadFromStore(token.getUsername());
+            // A username freed by a deleted account and taken by a new one must not let the old token through
+            boolean idMatches = stored instanceof UserPrincipal principal
+                    && token.getUserId().equals(principal.getUserId());
+            boolean roleMatches = idMatches && stored.getAuthorities().stream()
+                    .anyMatch(authority -> token.getRole().equals(authority.getAuthority()));
+            if (!roleMatches) {
+                log.warn("Claims in JWT for user '{}' no longer match the stored user", token.getUsername());
+                return null;
+            }
+            recentlyRechecked.put(token.getUsername(), Boolean.TRUE);
+        }
+        return new TokenPrincipal(token.getUserId(), token.getUsername(), token.getRole());
+    }
+
+    // Loads the user from the UserDetailsService, treating an unknown user as an unauthenticated request
+    private UserDetails loadFromStore(String username) {
+        try {
+            return userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException ex) {
+            log.warn("User '{}' from JWT no longer exists", username);
+            return null;
+        }
+    }
 }
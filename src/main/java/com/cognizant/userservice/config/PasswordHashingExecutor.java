@@ -0,0 +1,142 @@
+package com.cognizant.userservice.config;
+
+import com.cognizant.userservice.exception.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated, size-limited pool that runs all password hashing (BCrypt) work.
+ * <p>
+ * Hashing is CPU-bound and deliberately slow, so running it on Tomcat worker threads lets a login storm
+ * starve every other endpoint. This pool caps how many hashes run at once and how many may wait;
+ * once both are full, new work is rejected immediately with a {@link ServiceBusyException}
+ * (HTTP 503 with {@code Retry-After}) instead of piling up. Work that waited in the queue longer than the
+ * queue timeout is rejected the same way when it reaches a thread, since its client has likely given up by then.
+ * </p>
+ * Queue depth, active threads and rejections are published as {@code executor.*} metrics named
+ * {@value #METRIC_NAME}, and hash latency as the {@code auth.password.hash} timer.
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor {
+
+    static final String METRIC_NAME = "auth.password-hashing";
+
+    private final ThreadPoolExecutor executor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final long retryAfterSeconds;
+
+    private final long queueTimeoutNanos;
+
+    public PasswordHashingExecutor(
+            @Value("${application.security.password.hashing.pool-size}") int poolSize,
+            @Value("${application.security.password.hashing.queue-capacity}") int queueCapacity,
+            @Value("${application.security.password.hashing.queue-timeout}") Duration queueTimeout,
+            @Value("${application.security.password.hashing.retry-after}") Duration retryAfter,
+            MeterRegistry meterRegistry) {
+        // 0 means "half the cores", leaving the other half for cheap endpoints during a login storm.
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.meterRegistry = meterRegistry;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        new ExecutorServiceMetrics(executor, METRIC_NAME, Tags.empty()).bindTo(meterRegistry);
+        log.info("Password hashing pool started with {} threads and a queue of {}", threads, queueCapacity);
+    }
+
+    /**
+     * Runs a hashing task on the pool and waits for its result.
+     *
+     * @param operation short name of the operation, used as the {@code operation} metric tag
+     * @param task      the hashing work to run
+     * @param <T>       the result type
+     * @return the task's result
+     * @throws ServiceBusyException if the pool and its queue are full, or the task waited longer than the queue timeout
+     */
+    public <T> T execute(String operation, Callable<T> task) {
+        Timer hashTimer = Timer.builder("auth.password.hash")
+                .description("Time spent computing a password hash")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (System.nanoTime() - queuedAt > queueTimeoutNanos) {
+                    meterRegistry.counter("auth.password.hash.expired", "operation", operation).increment();
+                    log.warn("'{}' request waited too long for the password hashing pool, rejecting it", operation);
+                    throw new ServiceBusyException("Authentication service is busy, please retry shortly.", retryAfterSeconds);
+                }
+                return hashTimer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException ex) {
+            meterRegistry.counter("auth.password.hash.rejected", "operation", operation).increment();
+            log.warn("Password hashing pool saturated, rejecting '{}' request", operation);
+            throw new ServiceBusyException("Authentication service is busy, please retry shortly.", retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceBusyException("Authentication was interrupted, please retry.", retryAfterSeconds);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    /**
+     * Stops accepting hashing work when the application shuts down.
+     */
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Names the pool's threads so they are recognisable in thread dumps.
+     */
+    private static final class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -2,13 +2,13 @@ package com.cognizant.userservice.config;
 
 import com.cognizant.userservice.service.MyUserDetailsService; // Ensure this import is correct
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
@@ -17,6 +17,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import java.time.Duration;
 import java.util.Arrays;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -28,6 +29,18 @@ public class SecurityConfig {
 
     private final MyUserDetailsService userDetailsService; // Use MyUserDetailsService
     private final JwtAuthenticationFilter jwtAuthFilter; // Inject our custom JWT filter
+    private final PasswordHashingExecutor passwordHashingExecutor; // Bounded pool that runs BCrypt off the request threads
+    private final IdempotencyFilter idempotencyFilter; // Replays responses for retried punches and leave submissions
+
+    // Target time for one password hash; the BCrypt cost factor is calibrated to it at startup
+    @Value("${application.security.password.target-hash-latency}")
+    private Duration targetHashLatency;
+
+    @Value("${application.security.password.min-strength}")
+    private int minHashStrength;
+
+    @Value("${application.security.password.max-strength}")
+    private int maxHashStrength;
 
     // No need to inject JwtService directly here, as it's used within JwtAuthenticationFilter
     @Bean
@@ -35,12 +48,17 @@ public class SecurityConfig {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder());
+        // Rehashes the stored password on successful login when its cost is below the calibrated one
+        provider.setUserDetailsPasswordService(userDetailsService);
         return provider;
     }
 
+    // Single encoder shared by login verification and UserService registration
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+        CalibratedPasswordEncoder calibrated = new CalibratedPasswordEncoder(targetHashLatency, minHashStrength, maxHashStrength);
+        // BCrypt work is moved to a size-limited pool so login storms cannot starve other endpoints
+        return new BoundedPasswordEncoder(calibrated, passwordHashingExecutor);
     }
 
     @Bean
@@ -53,10 +71,15 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() // Allow OPTIONS requests
                         .requestMatchers(HttpMethod.POST, "/api/v1/users/register").permitAll() // Allow new user registration
                         .requestMatchers(HttpMethod.POST, "/api/v1/auth/authenticate").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/v1/auth/refresh").permitAll() // Refresh token is the credential
                         .requestMatchers(HttpMethod.GET, "/api/v1/auth/login").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll() // Public verification keys
                         .requestMatchers(HttpMethod.POST, "/api/v1/attendance/checkin").hasAnyAuthority("EMPLOYEE", "ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/v1/attendance/checkout").hasAnyAuthority("EMPLOYEE", "ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/v1/attendance/my-all").hasAnyAuthority("EMPLOYEE", "ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/v1/attendance/punches/batch").hasAuthority("ADMIN") // Kiosk service accounts
+                        .requestMatchers(HttpMethod.POST, "/api/v1/attendance/punches/sync").hasAuthority("ADMIN") // Offline device uploads
+                        .requestMatchers(HttpMethod.POST, "/api/v1/attendance/projection/rebuild").hasAuthority("ADMIN") // Recovery from the punch log
                         .requestMatchers(HttpMethod.POST,"/api/v1/leaves/apply").hasAnyAuthority("EMPLOYEE", "ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/v1/leaves/my-leaves").hasAnyAuthority("EMPLOYEE", "ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/v1/leaves/pending").hasAuthority("ADMIN")
@@ -68,6 +91,8 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/v1/attendance/user/{userId}/stats/weekly").hasAuthority("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/v1/attendance/user/{userId}/stats/monthly").hasAuthority("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/v1/attendance/user/{userId}/all").hasAuthority("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/v1/attendance/org/stats/weekly").hasAuthority("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/v1/attendance/org/stats/monthly").hasAuthority("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/v1/users/me").hasAnyAuthority("EMPLOYEE", "ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/v1/attendance/my-stats/weekly").hasAnyAuthority("EMPLOYEE", "ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/v1/attendance/my-stats/monthly").hasAnyAuthority("EMPLOYEE", "ADMIN")
@@ -80,7 +105,9 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 // Add our custom JWT authentication filter before Spring Security's UsernamePasswordAuthenticationFilter
                 .authenticationProvider(authenticationProvider()) // Set our custom authentication provider
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // Runs once the user is known, so stored responses are scoped per user
+                .addFilterAfter(idempotencyFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 
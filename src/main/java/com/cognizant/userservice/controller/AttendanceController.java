@@ -1,16 +1,35 @@
 package com.cognizant.userservice.controller;
 
+import com.cognizant.userservice.dto.PunchRequest;
+import com.cognizant.userservice.dto.PunchResult;
+import com.cognizant.userservice.dto.SyncResult;
 import com.cognizant.userservice.model.Attendance;
 import com.cognizant.userservice.service.AttendanceService;
+import com.cognizant.userservice.service.KioskPunchService;
+import com.cognizant.userservice.service.OfflinePunchSyncService;
+import com.cognizant.userservice.service.OrgAttendanceStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.Principal;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.Map;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/v1/attendance")
@@ -20,6 +39,19 @@ public class AttendanceController {
     @Autowired
     private AttendanceService attendanceService;
 
+    @Autowired
+    private KioskPunchService kioskPunchService;
+
+    @Autowired
+    private OfflinePunchSyncService offlinePunchSyncService;
+
+    @Autowired
+    private OrgAttendanceStatsService orgAttendanceStatsService;
+
+    // How long clients may reuse stats of a week or month that is already over without revalidating
+    @Value("${application.attendance.http-cache.past-period-max-age}")
+    private Duration pastPeriodMaxAge;
+
     /**
      * Endpoint for an authenticated user to check in.
      *
@@ -46,35 +78,83 @@ public class AttendanceController {
         return ResponseEntity.ok(attendance);
     }
 
+    /**
+     * Endpoint for an ADMIN (kiosk) account to submit a batch of badge punches for many users at once.
+     *
+     * @param punches The punches read by the kiosk.
+     * @return A ResponseEntity containing one result per punch, in submission order.
+     */
+    @PostMapping("/punches/batch")
+    public ResponseEntity<List<PunchResult>> applyPunches(@RequestBody List<PunchRequest> punches) {
+        log.info("Received kiosk batch of {} punches", punches.size());
+        List<PunchResult> results = kioskPunchService.applyPunches(punches);
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Endpoint for an ADMIN (device) account to upload punches recorded while offline.
+     * The body is a JSON array of any length; it is streamed rather than read into memory.
+     * Punches that were uploaded before are skipped, so an upload can safely be repeated.
+     *
+     * @param upload The request body.
+     * @return A ResponseEntity containing counts of received, duplicate, applied and rejected punches.
+     * @throws IOException If the upload cannot be read.
+     */
+    @PostMapping(value = "/punches/sync", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SyncResult> syncPunches(InputStream upload) throws IOException {
+        log.info("Received offline punch upload");
+        SyncResult result = offlinePunchSyncService.sync(upload);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Endpoint for an ADMIN to rebuild every attendance record from the punch event log, e.g. after a bug
+     * stored wrong sessions. Punches should be paused while it runs. Answers 409 until the punch log has been
+     * backfilled from the sessions recorded before it existed.
+     *
+     * @return A ResponseEntity containing the number of sessions written.
+     */
+    @PostMapping("/projection/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildProjection() {
+        log.warn("Admin request to rebuild attendance from the punch event log");
+        int sessions = attendanceService.rebuildProjection();
+        return ResponseEntity.ok(Map.of("sessions", sessions));
+    }
+
     /**
      * Endpoint for an ADMIN to retrieve all attendance records for a specific user.
+     * Answers 304 when the client's ETag is still current.
      *
      * @param userId The unique identifier of the user.
+     * @param request The web request, used to evaluate {@code If-None-Match}.
      * @return A ResponseEntity containing a map of attendance data.
      */
     @GetMapping("/user/{userId}/all")
-    public ResponseEntity<List<Attendance>> getAllAttendancesForUser(@PathVariable Long userId) {
+    public ResponseEntity<List<Attendance>> getAllAttendancesForUser(@PathVariable Long userId, WebRequest request) {
         log.info("Admin request to get all attendances for user ID: {}", userId);
         // attendanceService.getAttendanceDataForUser handles UserNotFoundException
-        List<Attendance> response = attendanceService.getAttendanceDataForUser(userId);
-        return ResponseEntity.ok(response);
+        return respond(attendanceService.getAttendanceETag(userId), revalidate(), request,
+                () -> attendanceService.getAttendanceDataForUser(userId));
     }
 
     /**
      * NEW: Endpoint for an authenticated user to retrieve all their own attendance records.
      *
+     * Answers 304 when the client's ETag is still current.
+     *
      * @param principal The security principal representing the currently authenticated user.
+     * @param request The web request, used to evaluate {@code If-None-Match}.
      * @return A ResponseEntity containing a list of the user's attendance records.
      */
     @GetMapping("/my-all")
-    public ResponseEntity<List<Attendance>> getMyAllAttendances(Principal principal) {
+    public ResponseEntity<List<Attendance>> getMyAllAttendances(Principal principal, WebRequest request) {
         log.info("Request to get all attendances for user: {}", principal.getName());
         if (principal == null) {
             log.warn("Unauthorized request to get all attendances: principal is null.");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        List<Attendance> attendances = attendanceService.getAllAttendancesForLoggedInUser(principal);
-        return ResponseEntity.ok(attendances);
+        return respond(attendanceService.getAttendanceETag(principal), revalidate(), request,
+                () -> attendanceService.getAllAttendancesForLoggedInUser(principal));
     }
 
 
@@ -84,17 +164,19 @@ public class AttendanceController {
      * @param userId      the unique identifier of the user.
      * @param year        the year for which stats are requested.
      * @param weekOfYear the week number within the year.
-     * @return a {@link ResponseEntity} containing the weekly statistics.
+     * @param request     the web request, used to evaluate {@code If-None-Match}.
+     * @return a {@link ResponseEntity} containing the weekly statistics, or 304 if the client's ETag is current.
      */
     @GetMapping("/user/{userId}/stats/weekly")
     public ResponseEntity<Map<String, Object>> getWeeklyStatsForUser(
             @PathVariable Long userId,
             @RequestParam int year,
-            @RequestParam int weekOfYear) {
+            @RequestParam int weekOfYear,
+            WebRequest request) {
         log.info("Admin request for weekly stats for user ID: {}, Year: {}, Week: {}", userId, year, weekOfYear);
         // attendanceService.getWeeklyStats handles UserNotFoundException
-        Map<String, Object> stats = attendanceService.getWeeklyStats(userId, year, weekOfYear);
-        return ResponseEntity.ok(stats);
+        return respond(attendanceService.getAttendanceETag(userId), cacheControlForPeriodEnding(endOfWeek(year, weekOfYear)),
+                request, () -> attendanceService.getWeeklyStats(userId, year, weekOfYear));
     }
 
     /**
@@ -103,17 +185,59 @@ public class AttendanceController {
      * @param userId the unique identifier of the user.
      * @param year   the year for which stats are requested.
      * @param month  the month number (1-12).
-     * @return a {@link ResponseEntity} containing the monthly statistics.
+     * @param request the web request, used to evaluate {@code If-None-Match}.
+     * @return a {@link ResponseEntity} containing the monthly statistics, or 304 if the client's ETag is current.
      */
     @GetMapping("/user/{userId}/stats/monthly")
     public ResponseEntity<Map<String, Object>> getMonthlyStatsForUser(
             @PathVariable Long userId,
             @RequestParam int year,
-            @RequestParam int month) {
+            @RequestParam int month,
+            WebRequest request) {
         log.info("Admin request for monthly stats for user ID: {}, Year: {}, Month: {}", userId, year, month);
         // attendanceService.getMonthlyStats handles UserNotFoundException
-        Map<String, Object> stats = attendanceService.getMonthlyStats(userId, year, month);
-        return ResponseEntity.ok(stats);
+        return respond(attendanceService.getAttendanceETag(userId), cacheControlForPeriodEnding(endOfMonth(year, month)),
+                request, () -> attendanceService.getMonthlyStats(userId, year, month));
+    }
+
+    /**
+     * Endpoint for an ADMIN to retrieve weekly attendance statistics for all users, or the given users, at once.
+     * Each user's entry has the shape of {@code /user/{userId}/stats/weekly}; the totals cover all of them.
+     *
+     * @param year       the year for which stats are requested.
+     * @param weekOfYear the week number within the year.
+     * @param userIds    the users to include; all users if omitted. Unknown IDs are ignored.
+     * @return a {@link ResponseEntity} streaming the per-user statistics and the totals as JSON.
+     */
+    @GetMapping("/org/stats/weekly")
+    public ResponseEntity<StreamingResponseBody> getOrgWeeklyStats(
+            @RequestParam int year,
+            @RequestParam int weekOfYear,
+            @RequestParam(required = false) List<Long> userIds) {
+        log.info("Admin request for org-wide weekly stats, Year: {}, Week: {}, Users: {}", year, weekOfYear,
+                userIds == null ? "all" : userIds.size());
+        return stream(orgAttendanceStatsService.getWeeklyStats(year, weekOfYear, userIds),
+                cacheControlForPeriodEnding(endOfWeek(year, weekOfYear)));
+    }
+
+    /**
+     * Endpoint for an ADMIN to retrieve monthly attendance statistics for all users, or the given users, at once.
+     * Each user's entry has the shape of {@code /user/{userId}/stats/monthly}; the totals cover all of them.
+     *
+     * @param year    the year for which stats are requested.
+     * @param month   the month number (1-12).
+     * @param userIds the users to include; all users if omitted. Unknown IDs are ignored.
+     * @return a {@link ResponseEntity} streaming the per-user statistics and the totals as JSON.
+     */
+    @GetMapping("/org/stats/monthly")
+    public ResponseEntity<StreamingResponseBody> getOrgMonthlyStats(
+            @RequestParam int year,
+            @RequestParam int month,
+            @RequestParam(required = false) List<Long> userIds) {
+        log.info("Admin request for org-wide monthly stats, Year: {}, Month: {}, Users: {}", year, month,
+                userIds == null ? "all" : userIds.size());
+        return stream(orgAttendanceStatsService.getMonthlyStats(year, month, userIds),
+                cacheControlForPeriodEnding(endOfMonth(year, month)));
     }
 
     /**
@@ -122,21 +246,24 @@ public class AttendanceController {
      * @param principal  the security principal representing the currently authenticated user.
      * @param year       the year for which stats are requested.
      * @param weekOfYear the week number within the year.
-     * @return a {@link ResponseEntity} containing the weekly statistics for the logged-in user.
+     * @param request    the web request, used to evaluate {@code If-None-Match}.
+     * @return a {@link ResponseEntity} containing the weekly statistics for the logged-in user,
+     *         or 304 if the client's ETag is current.
      */
     @GetMapping("/my-stats/weekly")
     public ResponseEntity<Map<String, Object>> getMyWeeklyStats(
             Principal principal,
             @RequestParam int year,
-            @RequestParam int weekOfYear) {
+            @RequestParam int weekOfYear,
+            WebRequest request) {
         log.info("Request for weekly stats for user: {}, Year: {}, Week: {}", principal.getName(), year, weekOfYear);
         if (principal == null) {
             log.warn("Unauthorized request for weekly stats: principal is null.");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         // attendanceService.getMyWeeklyStats handles UserNotFoundException based on principal
-        Map<String, Object> stats = attendanceService.getMyWeeklyStats(principal, year, weekOfYear);
-        return ResponseEntity.ok(stats);
+        return respond(attendanceService.getAttendanceETag(principal), cacheControlForPeriodEnding(endOfWeek(year, weekOfYear)),
+                request, () -> attendanceService.getMyWeeklyStats(principal, year, weekOfYear));
     }
 
     /**
@@ -145,20 +272,65 @@ public class AttendanceController {
      * @param principal the security principal representing the currently authenticated user.
      * @param year      the year for which stats are requested.calculateMonthlyStats
      * @param month     the month number (1-12).
-     * @return a {@link ResponseEntity} containing the monthly statistics for the logged-in user.
+     * @param request   the web request, used to evaluate {@code If-None-Match}.
+     * @return a {@link ResponseEntity} containing the monthly statistics for the logged-in user,
+     *         or 304 if the client's ETag is current.
      */
     @GetMapping("/my-stats/monthly")
     public ResponseEntity<Map<String, Object>> getMyMonthlyStats(
             Principal principal,
             @RequestParam int year,
-            @RequestParam int month) {
+            @RequestParam int month,
+            WebRequest request) {
         log.info("Request for monthly stats for user: {}, Year: {}, Month: {}", principal.getName(), year, month);
         if (principal == null) {
             log.warn("Unauthorized request for monthly stats: principal is null.");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         // attendanceService.getMyMonthlyStats handles UserNotFoundException based on principal
-        Map<String, Object> stats = attendanceService.getMyMonthlyStats(principal, year, month);
-        return ResponseEntity.ok(stats);
+        return respond(attendanceService.getAttendanceETag(principal), cacheControlForPeriodEnding(endOfMonth(year, month)),
+                request, () -> attendanceService.getMyMonthlyStats(principal, year, month));
+    }
+
+    /**
+     * Answers 304 if the request's {@code If-None-Match} matches the ETag, without computing the body;
+     * otherwise computes the body and sends it with the ETag. The ETag is read before the body, so a write in
+     * between can only make the tag older than the body, which the next request corrects. Stats may come from this
+     * instance's stats cache, which only learns of writes made through other instances when its entries expire.
+     */
+    private <T> ResponseEntity<T> respond(Optional<String> eTag, CacheControl cacheControl, WebRequest request, Supplier<T> body) {
+        if (eTag.isPresent() && request.checkNotModified(eTag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag.get()).cacheControl(cacheControl).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(cacheControl);
+        eTag.ifPresent(response::eTag);
+        return response.body(body.get());
+    }
+
+    // The stats are computed before the response starts, so a failure still produces a proper error response
+    private ResponseEntity<StreamingResponseBody> stream(OrgAttendanceStatsService.OrgStats stats, CacheControl cacheControl) {
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> orgAttendanceStatsService.write(stats, out));
+    }
+
+    // Responses that may change at any time: clients keep them but check the ETag on every use
+    private static CacheControl revalidate() {
+        return CacheControl.noCache().cachePrivate();
+    }
+
+    // Periods that are over only change through late adjustments, so clients may reuse them for a while
+    private CacheControl cacheControlForPeriodEnding(LocalDate end) {
+        return end.isAfter(LocalDate.now()) ? revalidate() : CacheControl.maxAge(pastPeriodMaxAge).cachePrivate();
+    }
+
+    // The day after the ISO week, numbered the way AttendanceService numbers weeks
+    private static LocalDate endOfWeek(int year, int weekOfYear) {
+        return LocalDate.of(year, 1, 4).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).plusWeeks(weekOfYear);
+    }
+
+    private static LocalDate endOfMonth(int year, int month) {
+        return LocalDate.of(year, month, 1).plusMonths(1);
     }
 }
\ No newline at end of file
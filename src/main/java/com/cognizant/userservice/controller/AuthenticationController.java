@@ -2,8 +2,13 @@ package com.cognizant.userservice.controller;
 
 import com.cognizant.userservice.dto.AuthenticationRequest;
 import com.cognizant.userservice.dto.AuthenticationResponse;
+import com.cognizant.userservice.dto.RefreshTokenRequest;
+import com.cognizant.userservice.model.UserPrincipal;
 import com.cognizant.userservice.service.JwtService;
+import com.cognizant.userservice.service.LoginRateLimiter;
 import com.cognizant.userservice.service.MyUserDetailsService; // Use MyUserDetailsService
+import com.cognizant.userservice.service.RefreshTokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -24,14 +29,20 @@ public class AuthenticationController {
     private final AuthenticationManager authenticationManager;
     private final MyUserDetailsService userDetailsService; // Use MyUserDetailsService
     private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginRateLimiter loginRateLimiter;
 
 
     // Handles user authentication (login) and generates a JWT.
     @PostMapping("/authenticate")
     public ResponseEntity<AuthenticationResponse> authenticate(
-            @RequestBody AuthenticationRequest request
+            @RequestBody AuthenticationRequest request,
+            HttpServletRequest httpRequest
     ) {
         log.info("Authentication request for user: {}", request.getUsername());
+        // 0. Reject throttled usernames and client addresses before any password hashing happens.
+        loginRateLimiter.checkAttempt(request.getUsername(), httpRequest.getRemoteAddr());
+
         // 1. Authenticate the user using Spring Security's AuthenticationManager.
         // This will trigger the DaoAuthenticationProvider (configured in SecurityConfig)
         authenticationManager.authenticate(
@@ -48,10 +59,29 @@ public class AuthenticationController {
         // 3. Generate the JWT using our JwtService.
         String jwtToken = jwtService.generateToken(userDetails);
 
-        // 4. Return the JWT in the response.
+        // 4. Issue a refresh token so the client can renew the short-lived JWT without the password.
+        String refreshToken = refreshTokenService.issue(userDetails.getUsername());
+
+        // 5. Return both tokens in the response.
         log.info("Authentication successful for user: {}", request.getUsername());
         return ResponseEntity.ok(AuthenticationResponse.builder()
                 .token(jwtToken)
+                .refreshToken(refreshToken)
+                .build());
+    }
+
+    // Exchanges a refresh token for a new JWT and a new refresh token; no password check is involved.
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthenticationResponse> refresh(
+            @RequestBody RefreshTokenRequest request
+    ) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        String jwtToken = jwtService.generateToken(new UserPrincipal(rotation.user()));
+
+        log.debug("Refreshed tokens for user: {}", rotation.user().getUsername());
+        return ResponseEntity.ok(AuthenticationResponse.builder()
+                .token(jwtToken)
+                .refreshToken(rotation.refreshToken())
                 .build());
     }
 }
@@ -13,4 +13,7 @@ public class AuthenticationResponse {
 
     private String token;
 
+    // Single-use token for POST /api/v1/auth/refresh; replaced by a new one on every refresh
+    private String refreshToken;
+
 }
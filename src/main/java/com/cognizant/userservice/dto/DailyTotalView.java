@@ -0,0 +1,17 @@
+package com.cognizant.userservice.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of one user's closed sessions on one day, aggregated in the database.
+ */
+public interface DailyTotalView {
+
+    Long getUserId();
+
+    LocalDate getWorkDay();
+
+    Long getTotalSeconds();
+
+    Long getSessionCount();
+}
@@ -0,0 +1,15 @@
+package com.cognizant.userservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of an open attendance session (checked in, not yet checked out).
+ */
+public interface OpenSessionView {
+
+    Long getUserId();
+
+    Long getAttendanceId();
+
+    LocalDateTime getCheckInTime();
+}
@@ -0,0 +1,9 @@
+package com.cognizant.userservice.dto;
+
+/**
+ * Whether a badge punch checks the user in or out.
+ */
+public enum PunchDirection {
+    IN,
+    OUT
+}
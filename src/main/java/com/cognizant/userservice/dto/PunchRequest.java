@@ -0,0 +1,25 @@
+package com.cognizant.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single badge punch recorded by a kiosk, submitted as part of a batch.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PunchRequest {
+
+    private Long userId;
+
+    // When the badge was read; used as the check-in or check-out time
+    private LocalDateTime timestamp;
+
+    private PunchDirection direction;
+}
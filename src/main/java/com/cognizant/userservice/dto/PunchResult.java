@@ -0,0 +1,37 @@
+package com.cognizant.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of one punch in a kiosk batch. Results are returned in the order the punches were submitted.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PunchResult {
+
+    /**
+     * Whether a punch was stored.
+     */
+    public enum Status {
+        APPLIED,
+        REJECTED
+    }
+
+    // Position of the punch in the submitted batch
+    private int index;
+
+    private Long userId;
+
+    private PunchDirection direction;
+
+    private Status status;
+
+    // Why the punch was rejected; null when it was applied
+    private String message;
+
+    // The attendance record the punch opened or closed; null when it was rejected
+    private Long attendanceId;
+}
@@ -0,0 +1,17 @@
+package com.cognizant.userservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of an attendance session, open or closed, without its user entity.
+ */
+public interface SessionHistoryView {
+
+    Long getId();
+
+    Long getUserId();
+
+    LocalDateTime getCheckInTime();
+
+    LocalDateTime getCheckOutTime();
+}
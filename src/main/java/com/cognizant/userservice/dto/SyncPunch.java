@@ -0,0 +1,28 @@
+package com.cognizant.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A punch recorded by a device while offline and uploaded later through the sync endpoint.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncPunch {
+
+    // Generated by the device (e.g. a UUID); identifies the punch across repeated uploads
+    private String clientId;
+
+    private Long userId;
+
+    // When the badge was read; used as the check-in or check-out time
+    private LocalDateTime timestamp;
+
+    private PunchDirection direction;
+}
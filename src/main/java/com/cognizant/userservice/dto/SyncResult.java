@@ -0,0 +1,26 @@
+package com.cognizant.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of an offline punch upload.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncResult {
+
+    // Punches read from the upload
+    private long received;
+
+    // Punches skipped because they were applied by an earlier upload or appear twice in this one
+    private long duplicates;
+
+    // Punches merged into attendance records
+    private long applied;
+
+    // Punches that were invalid or did not fit the user's sessions; they can be uploaded again later
+    private long rejected;
+}
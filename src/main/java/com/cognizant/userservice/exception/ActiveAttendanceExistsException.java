@@ -3,10 +3,20 @@ package com.cognizant.userservice.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * Custom exception thrown when a user attempts to check-in while a previous check-in is still open.
+ * It is annotated with {@code @ResponseStatus} to automatically set the HTTP status code to 400 (BAD_REQUEST).
+ */
 @ResponseStatus(HttpStatus.BAD_REQUEST)
-public class ActiveAttendanceExistsException extends RuntimeException {
+public class ActiveAttendanceExistsException extends BusinessException {
+
+    /**
+     * Shared instance for the usual rejection; it carries no stack trace, so it can be thrown from any thread.
+     */
+    public static final ActiveAttendanceExistsException ALREADY_CHECKED_IN =
+            new ActiveAttendanceExistsException("Check-in failed: You are already checked in for today.");
 
     public ActiveAttendanceExistsException(String message) {
         super(message);
     }
-}
\ No newline at end of file
+}
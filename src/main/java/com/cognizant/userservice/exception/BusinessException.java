@@ -0,0 +1,19 @@
+package com.cognizant.userservice.exception;
+
+/**
+ * Base class for exceptions that report an expected outcome to the client, such as a rejected check-in,
+ * an unknown user or a saturated hashing pool, rather than a fault in the application.
+ * <p>
+ * {@link GlobalExceptionHandler} turns each of these into the status declared by its {@code @ResponseStatus},
+ * mostly 4xx but 503 for {@link ServiceBusyException}, and the stack trace is never logged or returned, so
+ * capturing one would only cost time and memory on every rejection. Stack trace capture and suppression are
+ * therefore disabled, which also makes instances immutable and safe to preallocate and share between threads
+ * when their message is fixed.
+ * </p>
+ */
+public abstract class BusinessException extends RuntimeException {
+
+    protected BusinessException(String message) {
+        super(message, null, false, false);
+    }
+}
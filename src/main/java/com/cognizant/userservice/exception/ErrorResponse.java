@@ -0,0 +1,16 @@
+package com.cognizant.userservice.exception;
+
+import java.time.LocalDateTime;
+
+/**
+ * Body of every error response written by {@link GlobalExceptionHandler}.
+ *
+ * @param timestamp when the error was handled
+ * @param message   the error message shown to the client
+ */
+public record ErrorResponse(LocalDateTime timestamp, String message) {
+
+    static ErrorResponse of(String message) {
+        return new ErrorResponse(LocalDateTime.now(), message);
+    }
+}
@@ -3,6 +3,7 @@ package com.cognizant.userservice.exception;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -10,13 +11,14 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Global exception handler that provides a centralized mechanism to handle exceptions across the application.
  * It extends {@link ResponseEntityExceptionHandler} to leverage Spring's built-in exception handling capabilities.
+ * <p>
+ * Every error body is an {@link ErrorResponse}: a two-field record whose message comes straight from the
+ * exception, so a rejected request costs one small allocation rather than a map.
+ * {@link BusinessException}s carry no stack trace and are never logged with one.
+ * </p>
  */
 @ControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
@@ -32,9 +34,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<Object> handleUserNotFoundException(UserNotFoundException ex, WebRequest request) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("message", ex.getMessage());
+        ErrorResponse body = ErrorResponse.of(ex.getMessage());
         logger.warn("UserNotFoundException: {}", ex.getMessage());
         return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
     }
@@ -48,13 +48,25 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     @ExceptionHandler(UsernameAlreadyExistsException.class)
     public ResponseEntity<Object> handleUsernameAlreadyExistsException(UsernameAlreadyExistsException ex, WebRequest request) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("message", ex.getMessage());
+        ErrorResponse body = ErrorResponse.of(ex.getMessage());
         logger.warn("UsernameAlreadyExistsException: {}", ex.getMessage());
         return new ResponseEntity<>(body, HttpStatus.CONFLICT);
     }
 
+    /**
+     * Handles {@link PunchLogNotReadyException} and returns a 409 CONFLICT response with an error message.
+     *
+     * @param ex      the exception that was thrown
+     * @param request the current web request
+     * @return a {@link ResponseEntity} with an error message and HTTP status 409
+     */
+    @ExceptionHandler(PunchLogNotReadyException.class)
+    public ResponseEntity<Object> handlePunchLogNotReadyException(PunchLogNotReadyException ex, WebRequest request) {
+        ErrorResponse body = ErrorResponse.of(ex.getMessage());
+        logger.warn("PunchLogNotReadyException: {}", ex.getMessage());
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handles {@link DataAccessException} and returns a 500 INTERNAL_SERVER_ERROR response with an error message.
      *
@@ -64,9 +76,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     @ExceptionHandler(DataAccessException.class)
     public ResponseEntity<Object> handleDataAccessException(DataAccessException ex, WebRequest request) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("message", "Failed to access data: " + ex.getMessage());
+        ErrorResponse body = ErrorResponse.of("Failed to access data: " + ex.getMessage());
         logger.error("DataAccessException: {}", ex.getMessage(), ex);
         return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -80,10 +90,9 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     @ExceptionHandler(ActiveAttendanceExistsException.class)
     public ResponseEntity<Object> handleActiveAttendanceExistsException(ActiveAttendanceExistsException ex, WebRequest request) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("message", ex.getMessage());
-        logger.warn("ActiveAttendanceExistsException: {}", ex.getMessage());
+        ErrorResponse body = ErrorResponse.of(ex.getMessage());
+        // Expected during punch storms; kept at debug so rejections do not flood the log
+        logger.debug("ActiveAttendanceExistsException: {}", ex.getMessage());
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
@@ -96,10 +105,9 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     @ExceptionHandler(NoActiveAttendanceException.class)
     public ResponseEntity<Object> handleNoActiveAttendanceException(NoActiveAttendanceException ex, WebRequest request) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("message", ex.getMessage());
-        logger.warn("NoActiveAttendanceException: {}", ex.getMessage());
+        ErrorResponse body = ErrorResponse.of(ex.getMessage());
+        // Expected during punch storms; kept at debug so rejections do not flood the log
+        logger.debug("NoActiveAttendanceException: {}", ex.getMessage());
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
@@ -112,13 +120,25 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     @ExceptionHandler(InvalidLeaveRequestException.class)
     public ResponseEntity<Object> handleInvalidLeaveRequestException(InvalidLeaveRequestException ex, WebRequest request) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("message", ex.getMessage());
+        ErrorResponse body = ErrorResponse.of(ex.getMessage());
         logger.warn("InvalidLeaveRequestException: {}", ex.getMessage());
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles {@link InvalidPunchBatchException} and returns a 400 BAD_REQUEST response.
+     *
+     * @param ex      the exception that was thrown
+     * @param request the current web request
+     * @return a {@link ResponseEntity} with an error message and HTTP status 400
+     */
+    @ExceptionHandler(InvalidPunchBatchException.class)
+    public ResponseEntity<Object> handleInvalidPunchBatchException(InvalidPunchBatchException ex, WebRequest request) {
+        ErrorResponse body = ErrorResponse.of(ex.getMessage());
+        logger.warn("InvalidPunchBatchException: {}", ex.getMessage());
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+
 
     /**
      * Handles {@link UnauthorizedActionException} and returns a 403 FORBIDDEN response.
@@ -129,13 +149,60 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     @ExceptionHandler(UnauthorizedActionException.class)
     public ResponseEntity<Object> handleUnauthorizedActionException(UnauthorizedActionException ex, WebRequest request) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("message", ex.getMessage());
+        ErrorResponse body = ErrorResponse.of(ex.getMessage());
         logger.error("UnauthorizedActionException: {}", ex.getMessage());
         return new ResponseEntity<>(body, HttpStatus.FORBIDDEN);
     }
 
+    /**
+     * Handles {@link InvalidRefreshTokenException} and returns a 401 UNAUTHORIZED response.
+     * The client has to log in with its password again.
+     *
+     * @param ex      the exception that was thrown
+     * @param request the current web request
+     * @return a {@link ResponseEntity} with an error message and HTTP status 401
+     */
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<Object> handleInvalidRefreshTokenException(InvalidRefreshTokenException ex, WebRequest request) {
+        ErrorResponse body = ErrorResponse.of(ex.getMessage());
+        logger.warn("InvalidRefreshTokenException: {}", ex.getMessage());
+        return new ResponseEntity<>(body, HttpStatus.UNAUTHORIZED);
+    }
+
+    /**
+     * Handles {@link ServiceBusyException} and returns a 503 SERVICE_UNAVAILABLE response
+     * with a {@code Retry-After} header telling the client when to try again.
+     *
+     * @param ex      the exception that was thrown
+     * @param request the current web request
+     * @return a {@link ResponseEntity} with an error message and HTTP status 503
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Object> handleServiceBusyException(ServiceBusyException ex, WebRequest request) {
+        ErrorResponse body = ErrorResponse.of(ex.getMessage());
+        logger.warn("ServiceBusyException: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
+    /**
+     * Handles {@link LoginThrottledException} and returns a 429 TOO_MANY_REQUESTS response
+     * with a {@code Retry-After} header telling the client when to try again.
+     *
+     * @param ex      the exception that was thrown
+     * @param request the current web request
+     * @return a {@link ResponseEntity} with an error message and HTTP status 429
+     */
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<Object> handleLoginThrottledException(LoginThrottledException ex, WebRequest request) {
+        ErrorResponse body = ErrorResponse.of(ex.getMessage());
+        logger.warn("LoginThrottledException: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
     /**
      * Handles generic {@link Exception} not handled by more specific handlers.
      * Returns a 500 INTERNAL_SERVER_ERROR response with a generic error message.
@@ -146,9 +213,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGlobalException(Exception ex, WebRequest request) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("message", "An unexpected error occurred");
+        ErrorResponse body = ErrorResponse.of("An unexpected error occurred");
         logger.error("An unexpected error occurred: {}", ex.getMessage(), ex);
 
         return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
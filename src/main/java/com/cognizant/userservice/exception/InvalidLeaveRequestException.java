@@ -10,7 +10,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  * HTTP status code to 400 (BAD_REQUEST).
  */
 @ResponseStatus(HttpStatus.BAD_REQUEST)
-public class InvalidLeaveRequestException extends RuntimeException {
+public class InvalidLeaveRequestException extends BusinessException {
     public InvalidLeaveRequestException(String message) {
         super(message);
     }
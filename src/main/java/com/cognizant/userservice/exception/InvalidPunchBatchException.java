@@ -0,0 +1,17 @@
+package com.cognizant.userservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception thrown when a kiosk punch batch cannot be processed as a whole
+ * (e.g., it is empty or larger than the configured maximum).
+ * It is annotated with {@code @ResponseStatus} to automatically set the
+ * HTTP status code to 400 (BAD_REQUEST).
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPunchBatchException extends BusinessException {
+    public InvalidPunchBatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.cognizant.userservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception thrown when a refresh token is unknown, expired, or has already been used.
+ * It is annotated with {@code @ResponseStatus} to automatically set the
+ * HTTP status code to 401 (UNAUTHORIZED).
+ */
+@ResponseStatus(HttpStatus.UNAUTHORIZED)
+public class InvalidRefreshTokenException extends BusinessException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package com.cognizant.userservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception thrown when a username or client address has made too many login attempts.
+ * It is annotated with {@code @ResponseStatus} to automatically set the HTTP status code to 429 (TOO_MANY_REQUESTS);
+ * {@link GlobalExceptionHandler} also adds a {@code Retry-After} header.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class LoginThrottledException extends BusinessException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Returns how long the client should wait before trying to log in again.
+     *
+     * @return the suggested delay in seconds
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -8,9 +8,15 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  * It is annotated with {@code @ResponseStatus} to automatically set the HTTP status code to 400 (BAD_REQUEST).
  */
 @ResponseStatus(HttpStatus.BAD_REQUEST)
-public class NoActiveAttendanceException extends RuntimeException {
+public class NoActiveAttendanceException extends BusinessException {
+
+    /**
+     * Shared instance for the usual rejection; it carries no stack trace, so it can be thrown from any thread.
+     */
+    public static final NoActiveAttendanceException NOT_CHECKED_IN =
+            new NoActiveAttendanceException("Check-out failed: No active check-in found for today.");
 
     public NoActiveAttendanceException(String message) {
         super(message);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package com.cognizant.userservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception thrown when the attendance projection is to be rebuilt from the punch log before the log has been
+ * seeded with the sessions recorded before it existed; a rebuild then would drop that history.
+ * It is annotated with {@code @ResponseStatus} to automatically set the HTTP status code to 409 (CONFLICT).
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class PunchLogNotReadyException extends BusinessException {
+
+    public PunchLogNotReadyException() {
+        super("The punch log has not been backfilled yet; try the rebuild again once it has.");
+    }
+}
@@ -0,0 +1,30 @@
+package com.cognizant.userservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception thrown when a bounded resource (such as the password hashing pool) is saturated
+ * and the request is rejected instead of queued.
+ * It is annotated with {@code @ResponseStatus} to automatically set the HTTP status code to 503 (SERVICE_UNAVAILABLE);
+ * {@link GlobalExceptionHandler} also adds a {@code Retry-After} header.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceBusyException extends BusinessException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Returns how long the client should wait before retrying.
+     *
+     * @return the suggested delay in seconds
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -10,7 +10,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  * HTTP status code to 403 (FORBIDDEN).
  */
 @ResponseStatus(HttpStatus.FORBIDDEN)
-public class UnauthorizedActionException extends RuntimeException {
+public class UnauthorizedActionException extends BusinessException {
     public UnauthorizedActionException(String message) {
         super(message);
     }
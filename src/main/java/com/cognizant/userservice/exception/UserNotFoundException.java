@@ -8,7 +8,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  * It is annotated with {@code @ResponseStatus} to automatically set the HTTP status code to 404 (NOT_FOUND).
  */
 @ResponseStatus(HttpStatus.NOT_FOUND)
-public class UserNotFoundException extends RuntimeException {
+public class UserNotFoundException extends BusinessException {
 
     public UserNotFoundException(String message) {
         super(message);
@@ -8,7 +8,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  * It is annotated with {@code @ResponseStatus} to automatically set the HTTP status code to 409 (CONFLICT).
  */
 @ResponseStatus(HttpStatus.CONFLICT)
-public class UsernameAlreadyExistsException extends RuntimeException {
+public class UsernameAlreadyExistsException extends BusinessException {
 
     public UsernameAlreadyExistsException(String username) {
         super(String.format("Username '%s' already exists", username));
@@ -1,5 +1,6 @@
 package com.cognizant.userservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,14 +10,23 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "attendance_tbl")
+@Table(name = "attendance_tbl", uniqueConstraints = {
+        // At most one open session per user; see openUserId
+        @UniqueConstraint(name = Attendance.OPEN_SESSION_CONSTRAINT, columnNames = "open_user_id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Attendance {
 
+    /**
+     * Name of the unique constraint that allows only one open session per user.
+     */
+    public static final String OPEN_SESSION_CONSTRAINT = "uk_attendance_open_session";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendance_seq")
+    @SequenceGenerator(name = "attendance_seq", sequenceName = "attendance_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -32,4 +42,14 @@ public class Attendance {
 
     @Transient
     private String totalDurationFormatted;
+
+    /**
+     * Generated "open marker": the user ID while the session is open, NULL once it is checked out.
+     * The unique constraint on this column lets the database reject a second open session per user;
+     * closed rows are all NULL, which unique indexes on both H2 and MySQL allow any number of.
+     */
+    @JsonIgnore
+    @Column(name = "open_user_id", insertable = false, updatable = false,
+            columnDefinition = "BIGINT GENERATED ALWAYS AS (CASE WHEN check_out_time IS NULL THEN user_id END)")
+    private Long openUserId;
 }
\ No newline at end of file
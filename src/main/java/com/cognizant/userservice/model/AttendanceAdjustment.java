@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class AttendanceAdjustment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendance_adjustment_seq")
+    @SequenceGenerator(name = "attendance_adjustment_seq", sequenceName = "attendance_adjustment_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -0,0 +1,95 @@
+package com.cognizant.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Worked time of one user on one day: the sum of the durations of the closed sessions that started that day.
+ * <p>
+ * Maintained on write by {@code AttendanceProjector} whenever a session is closed or recorded, so weekly and monthly
+ * stats read one small row per day instead of every session. Open sessions do not count until they are closed.
+ * {@code DailyRollupMaintenance} backfills the table from {@code attendance_tbl} and repairs any drift.
+ * Like {@link PunchReceipt}, the key is assigned, so the entity reports itself as new until it is stored.
+ * </p>
+ */
+@Entity
+@Table(name = "daily_attendance_rollup_tbl", indexes = {
+        @Index(name = "idx_daily_rollup_day", columnList = "attendance_day")
+})
+@IdClass(DailyAttendanceRollup.Key.class)
+@Data
+@NoArgsConstructor
+public class DailyAttendanceRollup implements Persistable<DailyAttendanceRollup.Key> {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /**
+     * The day the sessions started on.
+     */
+    @Id
+    @Column(name = "attendance_day")
+    private LocalDate day;
+
+    /**
+     * Total duration of the day's closed sessions.
+     */
+    @Column(nullable = false)
+    private long seconds;
+
+    /**
+     * Number of closed sessions that started on the day.
+     */
+    @Column(nullable = false)
+    private int sessions;
+
+    // Set once the row exists in the database; see isNew()
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean stored;
+
+    public DailyAttendanceRollup(Long userId, LocalDate day, long seconds, int sessions) {
+        this.userId = userId;
+        this.day = day;
+        this.seconds = seconds;
+        this.sessions = sessions;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(userId, day);
+    }
+
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        stored = true;
+    }
+
+    /**
+     * Composite primary key: one row per user and day.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate day;
+    }
+}
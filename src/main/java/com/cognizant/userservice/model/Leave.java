@@ -21,7 +21,8 @@ public class Leave {
      * The unique identifier for the leave request.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leave_seq")
+    @SequenceGenerator(name = "leave_seq", sequenceName = "leave_seq", allocationSize = 50)
     private Long id;
 
     /**
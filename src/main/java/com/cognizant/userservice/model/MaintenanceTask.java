@@ -0,0 +1,33 @@
+package com.cognizant.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records that a one-off data maintenance task, such as a backfill, has completed, so that no instance
+ * runs it again and features that depend on its result can be switched on.
+ */
+@Entity
+@Table(name = "maintenance_task_tbl")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MaintenanceTask {
+
+    /**
+     * The name of the task.
+     */
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    /**
+     * When the task completed.
+     */
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,103 @@
+package com.cognizant.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry in the append-only punch log, the system of record for attendance.
+ * <p>
+ * Events are only ever inserted: nothing updates or reads a row before writing one, so recording a punch never
+ * waits on a row lock. {@code attendance_tbl} is a projection of this log maintained by
+ * {@code AttendanceProjector}, and can be rebuilt from it at any time.
+ * </p>
+ */
+@Entity
+@Immutable
+@Table(name = "punch_event_tbl", indexes = {
+        @Index(name = "idx_punch_event_user_recorded", columnList = "user_id, recorded_at")
+})
+@Data
+@NoArgsConstructor
+public class PunchEvent {
+
+    /**
+     * What the event records.
+     */
+    public enum Type {
+        /** The user started a session at {@code occurredAt}. */
+        CHECK_IN,
+        /** The user ended their open session at {@code occurredAt}. */
+        CHECK_OUT,
+        /** A complete session from {@code occurredAt} to {@code endsAt}, e.g. an approved adjustment. */
+        SESSION
+    }
+
+    /**
+     * Where the event came from.
+     */
+    public enum Source {
+        WEB, KIOSK, OFFLINE_SYNC, ADJUSTMENT, AUTO_CLOSE, MIGRATION
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "punch_event_seq")
+    @SequenceGenerator(name = "punch_event_seq", sequenceName = "punch_event_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * The user the event belongs to; stored as a plain ID so appending never loads the user.
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    /**
+     * When the punch happened, or when the session started for {@link Type#SESSION} events.
+     */
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    /**
+     * When the session ended; only set for {@link Type#SESSION} events.
+     */
+    @Column(name = "ends_at")
+    private LocalDateTime endsAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Source source;
+
+    /**
+     * When the event was appended to the log.
+     */
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    public PunchEvent(Long userId, Type type, LocalDateTime occurredAt, LocalDateTime endsAt, Source source) {
+        this.userId = userId;
+        this.type = type;
+        this.occurredAt = occurredAt;
+        this.endsAt = endsAt;
+        this.source = source;
+        this.recordedAt = LocalDateTime.now();
+    }
+
+    public static PunchEvent checkIn(Long userId, LocalDateTime at, Source source) {
+        return new PunchEvent(userId, Type.CHECK_IN, at, null, source);
+    }
+
+    public static PunchEvent checkOut(Long userId, LocalDateTime at, Source source) {
+        return new PunchEvent(userId, Type.CHECK_OUT, at, null, source);
+    }
+
+    public static PunchEvent session(Long userId, LocalDateTime from, LocalDateTime to, Source source) {
+        return new PunchEvent(userId, Type.SESSION, from, to, source);
+    }
+}
@@ -0,0 +1,83 @@
+package com.cognizant.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records that an offline punch, identified by the ID its device generated, has been applied.
+ * <p>
+ * Devices may upload the same punches more than once; a punch whose client ID already has a receipt is skipped.
+ * Receipts are purged after the configured retention, which is therefore how long duplicates are recognised.
+ * The ID is assigned by the device, so the entity reports itself as new until it is stored; otherwise every
+ * save would first SELECT the row to decide between insert and update, and inserts could not be batched.
+ * </p>
+ */
+@Entity
+@Table(name = "punch_receipt_tbl", indexes = {
+        @Index(name = "idx_punch_receipt_received_at", columnList = "received_at")
+})
+@Data
+@NoArgsConstructor
+public class PunchReceipt implements Persistable<String> {
+
+    /**
+     * The ID the device generated for the punch; unique across all devices.
+     */
+    @Id
+    @Column(name = "client_id", length = 64)
+    private String clientId;
+
+    /**
+     * The user the punch belongs to.
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * The attendance record the punch opened or closed.
+     */
+    @Column(name = "attendance_id", nullable = false)
+    private Long attendanceId;
+
+    /**
+     * When the punch was applied.
+     */
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    // Set once the row exists in the database; see isNew()
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean stored;
+
+    public PunchReceipt(String clientId, Long userId, Long attendanceId, LocalDateTime receivedAt) {
+        this.clientId = clientId;
+        this.userId = userId;
+        this.attendanceId = attendanceId;
+        this.receivedAt = receivedAt;
+    }
+
+    @Override
+    public String getId() {
+        return clientId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        stored = true;
+    }
+}
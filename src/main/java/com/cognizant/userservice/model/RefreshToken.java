@@ -0,0 +1,70 @@
+package com.cognizant.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A long-lived refresh token that can be exchanged for a new access token without re-entering the password.
+ * <p>
+ * Only a SHA-256 digest of the token is stored. Tokens are single use: every refresh revokes the presented
+ * token and issues a successor in the same family, so presenting a revoked token reveals reuse of a stolen
+ * token and revokes the whole family.
+ * </p>
+ */
+@Entity
+@Table(name = "refresh_token_tbl", indexes = {
+        @Index(name = "idx_refresh_token_family", columnList = "family_id")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshToken {
+
+    /**
+     * The unique identifier for the refresh token.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_token_seq")
+    @SequenceGenerator(name = "refresh_token_seq", sequenceName = "refresh_token_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * The user the token was issued to. EAGERly fetched so a refresh can mint an access token without another query.
+     */
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /**
+     * Base64url-encoded SHA-256 digest of the token handed to the client.
+     */
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    /**
+     * Identifier shared by a login's original token and all of its rotated successors.
+     */
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    /**
+     * When the token was issued.
+     */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * When the token stops being accepted.
+     */
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * When the token was used or revoked, or {@code null} while it can still be exchanged.
+     */
+    private LocalDateTime revokedAt;
+}
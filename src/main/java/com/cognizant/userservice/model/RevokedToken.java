@@ -0,0 +1,50 @@
+package com.cognizant.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records that every access token issued to a subject up to a point in time must be rejected.
+ * <p>
+ * An entry is only needed until the last token it covers has expired, after which it is purged.
+ * </p>
+ */
+@Entity
+@Table(name = "revoked_token_tbl", indexes = {
+        @Index(name = "idx_revoked_token_expires_at", columnList = "expires_at")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevokedToken {
+
+    /**
+     * The unique identifier for the revocation entry.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "revoked_token_seq")
+    @SequenceGenerator(name = "revoked_token_seq", sequenceName = "revoked_token_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * The token subject (username) whose tokens are revoked.
+     */
+    @Column(nullable = false)
+    private String subject;
+
+    /**
+     * Tokens for the subject issued at or before this time are rejected.
+     */
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    /**
+     * When the last token covered by this entry expires; the entry can be purged afterwards.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,82 @@
+package com.cognizant.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A named lease that lets exactly one application instance run a scheduled job at a time.
+ * <p>
+ * An instance holds the lock while {@code lockedUntil} is in the future; the lease runs out on its own
+ * if the holder dies, so a crashed node never blocks the job for longer than one lease.
+ * Like {@link PunchReceipt}, the key is assigned, so the entity reports itself as new until it is stored: saving a
+ * new lock is a plain INSERT, which the primary key rejects if another instance created the lock first, rather than
+ * a merge that would read the other instance's row and overwrite it.
+ * </p>
+ */
+@Entity
+@Table(name = "scheduler_lock_tbl")
+@Data
+@NoArgsConstructor
+public class SchedulerLock implements Persistable<String> {
+
+    /**
+     * The name of the job the lock guards.
+     */
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    /**
+     * When the current lease ends; the lock is free from this time on.
+     */
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+
+    /**
+     * When the current lease was taken.
+     */
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+
+    /**
+     * The instance that took the current lease.
+     */
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+
+    // Set once the row exists in the database; see isNew()
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean stored;
+
+    public SchedulerLock(String name, LocalDateTime lockedUntil, LocalDateTime lockedAt, String lockedBy) {
+        this.name = name;
+        this.lockedUntil = lockedUntil;
+        this.lockedAt = lockedAt;
+        this.lockedBy = lockedBy;
+    }
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        stored = true;
+    }
+}
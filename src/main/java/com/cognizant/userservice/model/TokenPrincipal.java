@@ -0,0 +1,90 @@
+package com.cognizant.userservice.model;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * A lightweight {@link UserDetails} built straight from the claims of a verified JWT.
+ * Unlike {@link UserPrincipal} it does not wrap a {@link User} entity, so authenticating
+ * a request with it requires no database access. It carries no password.
+ */
+public class TokenPrincipal implements UserDetails {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long userId;
+
+    private final String username;
+
+    private final String role;
+
+    /**
+     * Constructs a TokenPrincipal from the identity claims of a token.
+     *
+     * @param userId   the user's database identifier
+     * @param username the user's username (the token subject)
+     * @param role     the user's role name, used as the single granted authority
+     */
+    public TokenPrincipal(Long userId, String username, String role) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+    }
+
+    /**
+     * Returns the database identifier of the authenticated user.
+     *
+     * @return the user's ID
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Returns the role name carried by the token.
+     *
+     * @return the user's role
+     */
+    public String getRole() {
+        return role;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singleton(new SimpleGrantedAuthority(role));
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
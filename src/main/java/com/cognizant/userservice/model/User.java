@@ -1,5 +1,7 @@
 package com.cognizant.userservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,13 +13,15 @@ import java.util.Date;
 
 @Entity
 @Table(name = "user_tbl")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // Allows serializing a lazy reference proxy
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -48,6 +52,15 @@ public class User {
     @UpdateTimestamp
     private Date updatedAt;
 
+    /**
+     * Incremented whenever the user's attendance changes, and used as the ETag of their attendance responses.
+     * Only ever written by bulk updates in {@code UserRepository}, so saving a loaded user cannot move it back.
+     */
+    @JsonIgnore
+    @Column(name = "attendance_version", insertable = false, updatable = false,
+            columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private long attendanceVersion;
+
     public enum Role {
         ADMIN, EMPLOYEE
     }
@@ -27,6 +27,24 @@ public class UserPrincipal implements UserDetails {
         this.user = user;
     }
 
+    /**
+     * Returns the database identifier of the wrapped user.
+     *
+     * @return the user's ID
+     */
+    public Long getUserId() {
+        return user.getId();
+    }
+
+    /**
+     * Returns the role of the wrapped user.
+     *
+     * @return the user's role
+     */
+    public User.Role getRole() {
+        return user.getRole();
+    }
+
     /**
      * Returns the authorities granted to the user.
      * In this implementation, a single authority is granted based on the user's role.
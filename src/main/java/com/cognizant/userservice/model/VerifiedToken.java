@@ -0,0 +1,102 @@
+package com.cognizant.userservice.model;
+
+import io.jsonwebtoken.Claims;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of a JWT whose signature and expiry have already been checked.
+ * Produced once per request by {@code JwtService#verifyToken} so that callers never
+ * need to parse the same token a second time.
+ */
+@Value
+public class VerifiedToken {
+
+    /**
+     * Claim holding the database ID of the user the token was issued to.
+     */
+    public static final String CLAIM_USER_ID = "uid";
+
+    /**
+     * Claim holding the role name of the user the token was issued to.
+     */
+    public static final String CLAIM_ROLE = "role";
+
+    /**
+     * The subject (username) the token was issued for.
+     */
+    String username;
+
+    /**
+     * When the token was issued, or {@code null} if the token carries no {@code iat} claim.
+     */
+    Instant issuedAt;
+
+    /**
+     * When the token stops being valid, or {@code null} if the token never expires.
+     */
+    Instant expiresAt;
+
+    /**
+     * Read-only copy of every claim in the token body.
+     */
+    Map<String, Object> claims;
+
+    /**
+     * Builds a verified token from the claims returned by a successful signature check.
+     *
+     * @param claims the parsed claims of a token that passed verification
+     * @return an immutable snapshot of those claims
+     */
+    public static VerifiedToken from(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                Collections.unmodifiableMap(new LinkedHashMap<>(claims))
+        );
+    }
+
+    /**
+     * Returns the user ID embedded in the token.
+     *
+     * @return the {@value #CLAIM_USER_ID} claim, or {@code null} for tokens issued without it
+     */
+    public Long getUserId() {
+        Object userId = claims.get(CLAIM_USER_ID);
+        return userId instanceof Number number ? number.longValue() : null;
+    }
+
+    /**
+     * Returns the role name embedded in the token.
+     *
+     * @return the {@value #CLAIM_ROLE} claim, or {@code null} for tokens issued without it
+     */
+    public String getRole() {
+        Object role = claims.get(CLAIM_ROLE);
+        return role instanceof String name ? name : null;
+    }
+
+    /**
+     * Indicates whether the token carries enough identity claims to authenticate without a database lookup.
+     *
+     * @return {@code true} if both the user ID and role claims are present
+     */
+    public boolean hasIdentityClaims() {
+        return getUserId() != null && getRole() != null;
+    }
+
+    /**
+     * Checks whether the token has expired at the given instant.
+     *
+     * @param now the instant to compare against
+     * @return {@code true} if the token carries an expiry that is not after {@code now}
+     */
+    public boolean isExpiredAt(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
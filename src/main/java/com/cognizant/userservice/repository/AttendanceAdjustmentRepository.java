@@ -4,11 +4,14 @@ import com.cognizant.userservice.model.AttendanceAdjustment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface AttendanceAdjustmentRepository extends JpaRepository<AttendanceAdjustment, Long> {
     List<AttendanceAdjustment> findByStatus(AttendanceAdjustment.AdjustmentStatus status);
     List<AttendanceAdjustment> findByUser_Id(Long userId);
+    boolean existsByUser_IdAndStatusAndRequestedCheckInBetween(Long userId, AttendanceAdjustment.AdjustmentStatus status,
+                                                               LocalDateTime from, LocalDateTime to);
     void deleteByUserId(Long userId);
 }
\ No newline at end of file
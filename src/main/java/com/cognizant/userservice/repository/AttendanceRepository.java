@@ -1,11 +1,22 @@
 package com.cognizant.userservice.repository;
 
+import com.cognizant.userservice.dto.DailyTotalView;
+import com.cognizant.userservice.dto.OpenSessionView;
+import com.cognizant.userservice.dto.SessionHistoryView;
 import com.cognizant.userservice.model.Attendance;
 import com.cognizant.userservice.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +30,178 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     List<Attendance> findByUserAndCheckInTimeBetween(User user, LocalDateTime startTime, LocalDateTime endTime);
 
     void deleteByUserId(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Lists every open session (checked in, not checked out) without loading the entities.
+     * @return One row per open attendance record.
+     */
+    @Query("select a.user.id as userId, a.id as attendanceId, a.checkInTime as checkInTime "
+            + "from Attendance a where a.checkOutTime is null")
+    List<OpenSessionView> findOpenSessions();
+
+    /**
+     * Loads and write-locks the open sessions of several users in a single query, with their users.
+     * The rows stay locked until the transaction ends, so a batch can close them by updating the entities without
+     * racing a web check-out or another batch: those wait, then find the session already closed.
+     * Rows are locked in ID order, so two batches over overlapping users do not deadlock.
+     * @param userIds The users whose open sessions are needed.
+     * @return The open attendance records; at most one per user.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Attendance a join fetch a.user where a.user.id in :userIds and a.checkOutTime is null "
+            + "order by a.id")
+    List<Attendance> findOpenSessionsForUsers(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Loads the closed sessions of several users that overlap a time range, in a single query.
+     * @param userIds The users whose sessions are needed.
+     * @param from The start of the range.
+     * @param to The end of the range.
+     * @return The closed attendance records that end after {@code from} and start before {@code to}.
+     */
+    @Query("select a from Attendance a join fetch a.user where a.user.id in :userIds "
+            + "and a.checkOutTime is not null and a.checkOutTime >= :from and a.checkInTime <= :to")
+    List<Attendance> findClosedSessionsOverlapping(@Param("userIds") Collection<Long> userIds,
+                                                   @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Looks up a user's open session without loading the entity.
+     * @param userId The user.
+     * @return The open session, if the user is checked in.
+     */
+    @Query("select a.user.id as userId, a.id as attendanceId, a.checkInTime as checkInTime "
+            + "from Attendance a where a.user.id = :userId and a.checkOutTime is null")
+    Optional<OpenSessionView> findOpenSession(@Param("userId") Long userId);
+
+    /**
+     * Closes an open session in a single statement, letting the database compute the duration.
+     * The session must still be open and match the given user and check-in time, so a stale ID changes nothing.
+     * @param id The ID of the open session.
+     * @param userId The ID of the user checking out.
+     * @param checkInTime The check-in time of the open session.
+     * @param checkOutTime The check-out time to store.
+     * @return 1 if the session was closed, 0 if no such open session exists.
+     */
+    @Modifying
+    @Query(value = "UPDATE attendance_tbl SET check_out_time = :checkOutTime, "
+            + "total_duration_seconds = TIMESTAMPDIFF(SECOND, check_in_time, :checkOutTime) "
+            + "WHERE id = :id AND user_id = :userId AND check_in_time = :checkInTime AND check_out_time IS NULL",
+            nativeQuery = true)
+    int closeSession(@Param("id") Long id, @Param("userId") Long userId,
+                     @Param("checkInTime") LocalDateTime checkInTime, @Param("checkOutTime") LocalDateTime checkOutTime);
+
+    /**
+     * Lists the sessions that are still open and were checked in before the cutoff, oldest first.
+     * @param cutoff Sessions checked in before this time are stale.
+     * @param pageable The maximum number of sessions to return (always the first page; closed rows drop out of the result).
+     * @return Up to one chunk of stale open sessions.
+     */
+    @Query("select a.user.id as userId, a.id as attendanceId, a.checkInTime as checkInTime "
+            + "from Attendance a where a.checkOutTime is null and a.checkInTime < :cutoff order by a.id")
+    List<OpenSessionView> findStaleOpenSessions(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * Closes the given open sessions in one statement, as if each user had checked out exactly
+     * {@code maxSessionSeconds} after checking in. Runs in its own transaction, so every chunk is committed on its own.
+     * @param ids The sessions to close.
+     * @param maxSessionSeconds The session length to record.
+     * @return The number of sessions closed; sessions checked out in the meantime are left alone.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE attendance_tbl SET check_out_time = TIMESTAMPADD(SECOND, :maxSessionSeconds, check_in_time), "
+            + "total_duration_seconds = :maxSessionSeconds "
+            + "WHERE id IN (:ids) AND check_out_time IS NULL", nativeQuery = true)
+    int closeSessionsAtCap(@Param("ids") Collection<Long> ids, @Param("maxSessionSeconds") long maxSessionSeconds);
+
+    /**
+     * Returns the largest session ID.
+     * @return The ID of the newest session, or 0 if there are none.
+     */
+    @Query("select coalesce(max(a.id), 0) from Attendance a")
+    long findMaxId();
+
+    /**
+     * Lists sessions in ID order, starting after a given ID, without loading the entities.
+     * @param afterId Only sessions with a larger ID are returned.
+     * @param upToId Only sessions with this ID or a smaller one are returned.
+     * @param pageable The maximum number of sessions to return (always the first page).
+     * @return Up to one page of sessions.
+     */
+    @Query("select a.id as id, a.user.id as userId, a.checkInTime as checkInTime, a.checkOutTime as checkOutTime "
+            + "from Attendance a where a.id > :afterId and a.id <= :upToId order by a.id")
+    List<SessionHistoryView> findSessionsAfter(@Param("afterId") Long afterId, @Param("upToId") Long upToId,
+                                               Pageable pageable);
+
+    /**
+     * Lists the IDs of the given sessions that are still open, and locks their rows until the current transaction
+     * ends, so no check-out can close them in the meantime. Rows are locked in ID order, as
+     * {@link #findOpenSessionsForUsers} does.
+     * @param ids The sessions to check.
+     * @return The IDs of the sessions that are still open.
+     */
+    @Query(value = "SELECT id FROM attendance_tbl WHERE id IN (:ids) AND check_out_time IS NULL ORDER BY id FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockOpenSessionIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lists every user with at least one attendance record.
+     * @return The user IDs.
+     */
+    @Query("select distinct a.user.id from Attendance a")
+    List<Long> findUserIdsWithSessions();
+
+    /**
+     * Sums the closed sessions of several users per user and check-in day, over their whole history.
+     * @param userIds The users to aggregate.
+     * @return One row per user and day that has at least one closed session.
+     */
+    @Query("select a.user.id as userId, cast(a.checkInTime as LocalDate) as workDay, "
+            + "sum(a.totalDuration) as totalSeconds, count(a) as sessionCount "
+            + "from Attendance a where a.user.id in :userIds and a.totalDuration is not null "
+            + "group by a.user.id, cast(a.checkInTime as LocalDate)")
+    List<DailyTotalView> sumDailyDurationsForUsers(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Sums one user's closed sessions that started in a time range, per check-in day, so stats read at most one
+     * row per day instead of every session.
+     * @param userId The user to aggregate.
+     * @param from The start of the range, inclusive.
+     * @param to The end of the range, exclusive.
+     * @return One row per day that has at least one closed session, in date order.
+     */
+    @Query("select a.user.id as userId, cast(a.checkInTime as LocalDate) as workDay, "
+            + "sum(a.totalDuration) as totalSeconds, count(a) as sessionCount "
+            + "from Attendance a where a.user.id = :userId and a.checkInTime >= :from and a.checkInTime < :to "
+            + "and a.totalDuration is not null "
+            + "group by a.user.id, cast(a.checkInTime as LocalDate) order by cast(a.checkInTime as LocalDate)")
+    List<DailyTotalView> sumDailyDurationsForUser(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+
+    /**
+     * Sums the closed sessions that started in a time range, per user and check-in day.
+     * @param from The start of the range, inclusive.
+     * @param to The end of the range, exclusive.
+     * @return One row per user and day that has at least one closed session.
+     */
+    @Query("select a.user.id as userId, cast(a.checkInTime as LocalDate) as workDay, "
+            + "sum(a.totalDuration) as totalSeconds, count(a) as sessionCount "
+            + "from Attendance a where a.checkInTime >= :from and a.checkInTime < :to and a.totalDuration is not null "
+            + "group by a.user.id, cast(a.checkInTime as LocalDate)")
+    List<DailyTotalView> sumDailyDurations(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Sums the closed sessions of several users that started in a time range, per user and check-in day.
+     * @param userIds The users to aggregate.
+     * @param from The start of the range, inclusive.
+     * @param to The end of the range, exclusive.
+     * @return One row per user and day that has at least one closed session.
+     */
+    @Query("select a.user.id as userId, cast(a.checkInTime as LocalDate) as workDay, "
+            + "sum(a.totalDuration) as totalSeconds, count(a) as sessionCount "
+            + "from Attendance a where a.user.id in :userIds and a.checkInTime >= :from and a.checkInTime < :to "
+            + "and a.totalDuration is not null "
+            + "group by a.user.id, cast(a.checkInTime as LocalDate)")
+    List<DailyTotalView> sumDailyDurationsForUsers(@Param("userIds") Collection<Long> userIds,
+                                                   @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,77 @@
+package com.cognizant.userservice.repository;
+
+import com.cognizant.userservice.model.DailyAttendanceRollup;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailyAttendanceRollupRepository extends JpaRepository<DailyAttendanceRollup, DailyAttendanceRollup.Key> {
+
+    /**
+     * Adds closed sessions to an existing day row in a single statement, without reading it first.
+     * @param userId The user the sessions belong to.
+     * @param day The day the sessions started on.
+     * @param seconds The total duration of the sessions.
+     * @param sessions The number of sessions.
+     * @return 1 if the row was updated, 0 if the user has no row for that day yet.
+     */
+    @Modifying
+    @Query("update DailyAttendanceRollup r set r.seconds = r.seconds + :seconds, r.sessions = r.sessions + :sessions "
+            + "where r.userId = :userId and r.day = :day")
+    int addToDay(@Param("userId") Long userId, @Param("day") LocalDate day,
+                 @Param("seconds") long seconds, @Param("sessions") int sessions);
+
+    /**
+     * Loads a user's day rows in a date range.
+     * @param userId The user.
+     * @param from The first day, inclusive.
+     * @param to The last day, inclusive.
+     * @return The rows in day order; days without closed sessions have no row.
+     */
+    List<DailyAttendanceRollup> findByUserIdAndDayBetweenOrderByDay(Long userId, LocalDate from, LocalDate to);
+
+    /**
+     * Loads every user's day rows in a date range, in one scan of the day index.
+     * @param from The first day, inclusive.
+     * @param to The last day, inclusive.
+     * @return The rows; days without closed sessions have no row.
+     */
+    List<DailyAttendanceRollup> findByDayBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Loads several users' day rows in a date range.
+     * @param userIds The users.
+     * @param from The first day, inclusive.
+     * @param to The last day, inclusive.
+     * @return The rows; days without closed sessions have no row.
+     */
+    List<DailyAttendanceRollup> findByUserIdInAndDayBetween(Collection<Long> userIds, LocalDate from, LocalDate to);
+
+    /**
+     * Loads and write-locks the given users' day rows until the transaction ends, so that check-outs adding to them
+     * wait for a reconciliation instead of being overwritten by it.
+     * @param userIds The users.
+     * @return The rows; days without closed sessions have no row.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<DailyAttendanceRollup> findByUserIdIn(Collection<Long> userIds);
+
+    /**
+     * Loads and write-locks every user's row for one day until the transaction ends.
+     * @param day The day.
+     * @return The rows; users without closed sessions that day have no row.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<DailyAttendanceRollup> findByDay(LocalDate day);
+
+    void deleteByUserId(Long userId);
+}
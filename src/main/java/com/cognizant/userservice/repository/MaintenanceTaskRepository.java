@@ -0,0 +1,9 @@
+package com.cognizant.userservice.repository;
+
+import com.cognizant.userservice.model.MaintenanceTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MaintenanceTaskRepository extends JpaRepository<MaintenanceTask, String> {
+}
@@ -0,0 +1,46 @@
+package com.cognizant.userservice.repository;
+
+import com.cognizant.userservice.model.PunchEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PunchEventRepository extends JpaRepository<PunchEvent, Long> {
+
+    /**
+     * Lists every user with at least one event, in ascending order.
+     * @return The IDs of the users that appear in the log.
+     */
+    @Query("select distinct e.userId from PunchEvent e order by e.userId")
+    List<Long> findUserIds();
+
+    /**
+     * Loads the events of several users in the order they were applied.
+     * @param userIds The users whose events are needed.
+     * @return The events, grouped by user and in append order within each user.
+     */
+    @Query("select e from PunchEvent e where e.userId in :userIds order by e.userId, e.recordedAt, e.id")
+    List<PunchEvent> findInReplayOrder(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Loads the events of the given types for several users within a time range.
+     * @param userIds The users whose events are needed.
+     * @param types The event types to include.
+     * @param from The earliest {@code occurredAt}, inclusive.
+     * @param to The latest {@code occurredAt}, inclusive.
+     * @return The matching events, in no particular order.
+     */
+    @Query("select e from PunchEvent e where e.userId in :userIds and e.type in :types "
+            + "and e.occurredAt between :from and :to")
+    List<PunchEvent> findByTypeOccurredBetween(@Param("userIds") Collection<Long> userIds,
+                                               @Param("types") Collection<PunchEvent.Type> types,
+                                               @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    void deleteByUserId(Long userId);
+}
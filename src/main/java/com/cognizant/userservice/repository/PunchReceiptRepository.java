@@ -0,0 +1,43 @@
+package com.cognizant.userservice.repository;
+
+import com.cognizant.userservice.model.PunchReceipt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PunchReceiptRepository extends JpaRepository<PunchReceipt, String> {
+
+    /**
+     * Returns which of the given client IDs already have a receipt, in a single query.
+     * @param clientIds The client IDs to check.
+     * @return The client IDs of punches that were already applied.
+     */
+    @Query("select r.clientId from PunchReceipt r where r.clientId in :clientIds")
+    List<String> findExistingClientIds(@Param("clientIds") Collection<String> clientIds);
+
+    /**
+     * Lists the client IDs of every receipt still within the retention period.
+     * @param cutoff Receipts received before this time are ignored.
+     * @return The client IDs of all retained receipts.
+     */
+    @Query("select r.clientId from PunchReceipt r where r.receivedAt >= :cutoff")
+    List<String> findClientIdsReceivedSince(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Deletes receipts older than the retention period.
+     * @param cutoff Receipts received before this time are deleted.
+     * @return The number of receipts deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from PunchReceipt r where r.receivedAt < :cutoff")
+    int deleteReceivedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
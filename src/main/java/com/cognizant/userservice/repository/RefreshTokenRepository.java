@@ -0,0 +1,56 @@
+package com.cognizant.userservice.repository;
+
+import com.cognizant.userservice.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Finds a refresh token by the digest of its value.
+     * @param tokenHash The digest of the token presented by the client.
+     * @return The matching refresh token, if any.
+     */
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Marks a single token as used, but only if it has not been used already.
+     * The conditional update lets exactly one of two concurrent refreshes with the same token succeed.
+     * @param id The ID of the token to consume.
+     * @param revokedAt The time of consumption.
+     * @return 1 if the token was consumed by this call, 0 if it had already been used or revoked.
+     */
+    @Modifying
+    @Query("update RefreshToken r set r.revokedAt = :revokedAt where r.id = :id and r.revokedAt is null")
+    int consume(@Param("id") Long id, @Param("revokedAt") LocalDateTime revokedAt);
+
+    /**
+     * Revokes every still-active token of a token family.
+     * @param familyId The family to revoke.
+     * @param revokedAt The time of revocation.
+     * @return The number of tokens revoked.
+     */
+    @Modifying
+    @Query("update RefreshToken r set r.revokedAt = :revokedAt where r.familyId = :familyId and r.revokedAt is null")
+    int revokeFamily(@Param("familyId") String familyId, @Param("revokedAt") LocalDateTime revokedAt);
+
+    /**
+     * Deletes tokens that expired before the given time, whether they were used, revoked or never exchanged.
+     * @param cutoff Tokens expiring before this time are deleted.
+     * @return The number of tokens deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken r where r.expiresAt < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    void deleteByUserId(Long userId);
+}
@@ -0,0 +1,31 @@
+package com.cognizant.userservice.repository;
+
+import com.cognizant.userservice.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    /**
+     * Finds all revocation entries that still cover unexpired tokens.
+     * @param now The current time.
+     * @return The revocation entries whose expiry is after {@code now}.
+     */
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    /**
+     * Deletes revocation entries whose covered tokens have all expired.
+     * @param now The current time.
+     * @return The number of entries deleted.
+     */
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,43 @@
+package com.cognizant.userservice.repository;
+
+import com.cognizant.userservice.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    /**
+     * Takes an existing lock whose lease has run out.
+     * The conditional update lets exactly one of several instances racing for the lock succeed.
+     * @param name The name of the lock.
+     * @param owner The instance taking the lock.
+     * @param now The current time.
+     * @param lockedUntil When the new lease ends.
+     * @return 1 if the lock was taken by this call, 0 if it is held by someone else or does not exist yet.
+     */
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedUntil = :lockedUntil, l.lockedAt = :now, l.lockedBy = :owner "
+            + "where l.name = :name and l.lockedUntil <= :now")
+    int acquire(@Param("name") String name, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    /**
+     * Ends a lease early, but only if the given instance still holds it.
+     * @param name The name of the lock.
+     * @param owner The instance releasing the lock.
+     * @param now The current time, which becomes the end of the lease.
+     * @return 1 if the lock was released, 0 if the instance no longer held it.
+     */
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedUntil = :now where l.name = :name and l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
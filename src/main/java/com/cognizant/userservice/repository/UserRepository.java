@@ -2,8 +2,13 @@ package com.cognizant.userservice.repository;
 
 import com.cognizant.userservice.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +21,54 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByUsername(String username);
 
+    /**
+     * Replaces the stored password hash of a user without loading the entity.
+     * @param username The username whose password is replaced.
+     * @param password The new, already encoded password.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Query("update User u set u.password = :password where u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
+
+    /**
+     * Returns which of the given user IDs exist, in a single query and without loading the users.
+     * @param ids The user IDs to check.
+     * @return The IDs that belong to existing users.
+     */
+    @Query("select u.id from User u where u.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Returns the IDs of all users without loading the users.
+     * @return The IDs in ascending order.
+     */
+    @Query("select u.id from User u order by u.id")
+    List<Long> findAllIds();
+
+    /**
+     * Reads the attendance version of a user without loading the entity.
+     * @param id The user ID.
+     * @return The version, or empty if the user does not exist.
+     */
+    @Query("select u.attendanceVersion from User u where u.id = :id")
+    Optional<Long> findAttendanceVersion(@Param("id") Long id);
+
+    /**
+     * Marks the attendance of several users as changed.
+     * @param ids The users whose attendance changed.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Query("update User u set u.attendanceVersion = u.attendanceVersion + 1 where u.id in :ids")
+    int incrementAttendanceVersions(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Marks the attendance of every user as changed, e.g. after a projection rebuild.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Query("update User u set u.attendanceVersion = u.attendanceVersion + 1")
+    int incrementAllAttendanceVersions();
+
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.OpenSessionView;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of open attendance sessions, keyed by user ID.
+ * <p>
+ * The index is rebuilt from {@code attendance_tbl} at startup, before the web server accepts requests, and every
+ * change is applied only after the transaction that wrote it commits, so a rolled-back punch never shows up.
+ * It is local to one instance and only a hint: punches applied through other instances never reach it, so it may
+ * miss open sessions or hold sessions that are already closed. Whether a user is checked in is always decided by
+ * the database, through the open-session constraint and the conditional check-out UPDATE; a current entry only
+ * spares check-out the lookup of the open session's ID.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ActiveSessionIndex implements SmartInitializingSingleton {
+
+    private final AttendanceRepository attendanceRepository;
+
+    private final Map<Long, OpenSession> openSessions = new ConcurrentHashMap<>();
+
+    /**
+     * An open attendance session.
+     *
+     * @param attendanceId the ID of the attendance row that is still open
+     * @param checkInTime  when the user checked in
+     */
+    public record OpenSession(Long attendanceId, LocalDateTime checkInTime) {
+    }
+
+    public ActiveSessionIndex(AttendanceRepository attendanceRepository, MeterRegistry meterRegistry) {
+        this.attendanceRepository = attendanceRepository;
+        Gauge.builder("attendance.sessions.open", openSessions, Map::size)
+                .description("Users currently checked in")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Reloads every open session from the database.
+     */
+    public void rebuild() {
+        List<OpenSessionView> sessions = attendanceRepository.findOpenSessions();
+        openSessions.clear();
+        sessions.forEach(session -> openSessions.put(session.getUserId(),
+                new OpenSession(session.getAttendanceId(), session.getCheckInTime())));
+        log.info("Active session index loaded with {} open session(s)", openSessions.size());
+    }
+
+    /**
+     * Looks up the open session of a user.
+     *
+     * @param userId the user's ID
+     * @return the open session, or empty if the user is not checked in
+     */
+    public Optional<OpenSession> find(Long userId) {
+        return Optional.ofNullable(openSessions.get(userId));
+    }
+
+    /**
+     * Records a check-in once the current transaction commits.
+     *
+     * @param userId       the user who checked in
+     * @param attendanceId the new attendance row
+     * @param checkInTime  the check-in time
+     */
+    public void recordCheckIn(Long userId, Long attendanceId, LocalDateTime checkInTime) {
+        afterCommit(() -> openSessions.put(userId, new OpenSession(attendanceId, checkInTime)));
+    }
+
+    /**
+     * Removes a user's open session once the current transaction commits, after a check-out
+     * or when the user and their attendance records are deleted.
+     *
+     * @param userId the user whose session is closed
+     */
+    public void recordCheckOut(Long userId) {
+        afterCommit(() -> openSessions.remove(userId));
+    }
+
+    /**
+     * Immediately drops an entry the database has shown to be stale.
+     * Unlike {@link #recordCheckOut(Long)} this does not wait for a commit, because the failing
+     * request's transaction is about to roll back.
+     *
+     * @param userId the user whose indexed session no longer exists
+     */
+    public void evict(Long userId) {
+        openSessions.remove(userId);
+    }
+
+    /**
+     * Immediately drops every session checked in before the cutoff, once the stale-session job has closed them.
+     * A user who checked in again in the meantime keeps the new session.
+     *
+     * @param cutoff sessions checked in before this time are dropped
+     * @return the number of sessions dropped
+     */
+    public int evictCheckedInBefore(LocalDateTime cutoff) {
+        int dropped = 0;
+        for (Map.Entry<Long, OpenSession> entry : openSessions.entrySet()) {
+            // Conditional remove, so a session replaced by a new check-in is kept
+            if (entry.getValue().checkInTime().isBefore(cutoff) && openSessions.remove(entry.getKey(), entry.getValue())) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    // Applies the change after commit, or right away when no transaction is active
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
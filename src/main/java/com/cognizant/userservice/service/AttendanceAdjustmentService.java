@@ -3,11 +3,10 @@ package com.cognizant.userservice.service;
 import com.cognizant.userservice.exception.DataAccessException;
 import com.cognizant.userservice.exception.UnauthorizedActionException;
 import com.cognizant.userservice.exception.UserNotFoundException;
-import com.cognizant.userservice.model.Attendance;
 import com.cognizant.userservice.model.AttendanceAdjustment;
+import com.cognizant.userservice.model.PunchEvent;
 import com.cognizant.userservice.model.User;
 import com.cognizant.userservice.repository.AttendanceAdjustmentRepository;
-import com.cognizant.userservice.repository.AttendanceRepository;
 import com.cognizant.userservice.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -15,7 +14,6 @@ import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
 
 import java.security.Principal;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -30,8 +28,9 @@ public class AttendanceAdjustmentService {
     @Autowired
     private UserRepository userRepository;
 
+    // Records approved adjustments in the punch log and attendance_tbl
     @Autowired
-    private AttendanceRepository attendanceRepository;
+    private AttendanceProjector attendanceProjector;
 
     /**
      * Creates a new attendance adjustment request for a user.
@@ -156,21 +155,15 @@ public class AttendanceAdjustmentService {
 
         if (newStatus == AttendanceAdjustment.AdjustmentStatus.APPROVED) {
             log.info("Attendance adjustment ID {} approved. Creating new attendance record.", adjustmentId);
-            Attendance newAttendance = new Attendance();
-            newAttendance.setUser(adjustment.getUser());
-            newAttendance.setCheckInTime(adjustment.getRequestedCheckIn());
-            newAttendance.setCheckOutTime(adjustment.getRequestedCheckOut());
-
-            // Calculate duration for the new attendance record.
-            if (newAttendance.getCheckInTime() != null && newAttendance.getCheckOutTime() != null) {
-                Duration duration = Duration.between(newAttendance.getCheckInTime(), newAttendance.getCheckOutTime());
-                newAttendance.setTotalDuration(duration.getSeconds());
-            } else {
-                newAttendance.setTotalDuration(0L); // Default to 0 if times are not set
+            if (adjustment.getRequestedCheckIn() == null || adjustment.getRequestedCheckOut() == null) {
+                log.warn("Cannot approve attendance adjustment ID {}: requested times are missing.", adjustmentId);
+                throw new DataAccessException("Attendance adjustment request has no requested check-in or check-out time.");
             }
 
-            // Save the new attendance record. Any persistence exceptions will propagate.
-            attendanceRepository.save(newAttendance);
+            // Record the adjusted session in the punch log and attendance_tbl; the duration is derived from the times.
+            // Any persistence exceptions will propagate.
+            attendanceProjector.recordSession(adjustment.getUser(), adjustment.getRequestedCheckIn(),
+                    adjustment.getRequestedCheckOut(), PunchEvent.Source.ADJUSTMENT);
             log.info("New attendance record created for adjustment ID {}", adjustmentId);
 
         } else if (newStatus == AttendanceAdjustment.AdjustmentStatus.REJECTED) {
@@ -0,0 +1,492 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.OpenSessionView;
+import com.cognizant.userservice.dto.SessionHistoryView;
+import com.cognizant.userservice.exception.PunchLogNotReadyException;
+import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.DailyAttendanceRollup;
+import com.cognizant.userservice.model.PunchEvent;
+import com.cognizant.userservice.model.User;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.MaintenanceTaskRepository;
+import com.cognizant.userservice.repository.PunchEventRepository;
+import com.cognizant.userservice.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The only writer of attendance data: appends {@link PunchEvent}s to {@code punch_event_tbl}, the system of record,
+ * and applies each one to the {@code attendance_tbl} projection in the same transaction.
+ * <p>
+ * Appending is a plain insert. Applying is incremental: a check-in inserts a session, a check-out closes the open
+ * one, a complete session (an approved adjustment) inserts a closed row. Every session that ends up closed is also
+ * added to its day in {@code daily_attendance_rollup_tbl}, which the stats read. Callers decide whether a punch is valid;
+ * the projector records it and keeps the projection in step, so API responses and the one-open-session constraint
+ * behave exactly as before. If the projection is ever wrong, {@link #rebuild()} replays the whole log into it.
+ * </p>
+ */
+@Service
+@Slf4j
+public class AttendanceProjector {
+
+    // Users whose events are replayed, and whose sessions are written, per step of a rebuild or backfill
+    static final int REPLAY_CHUNK_SIZE = 500;
+
+    @Autowired
+    private PunchEventRepository punchEventRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private AttendanceStatsCache attendanceStatsCache;
+
+    @Autowired
+    private MaintenanceTaskRepository maintenanceTaskRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public AttendanceProjector() {
+    }
+
+    // Wires the collaborators Spring injects into the fields, for tests that run a real projector over mocks
+    AttendanceProjector(PunchEventRepository punchEventRepository, AttendanceRepository attendanceRepository,
+                        UserRepository userRepository, DailyAttendanceRollupRepository dailyRollupRepository,
+                        AttendanceStatsCache attendanceStatsCache, MaintenanceTaskRepository maintenanceTaskRepository) {
+        this.punchEventRepository = punchEventRepository;
+        this.attendanceRepository = attendanceRepository;
+        this.userRepository = userRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.attendanceStatsCache = attendanceStatsCache;
+        this.maintenanceTaskRepository = maintenanceTaskRepository;
+    }
+
+    /**
+     * Records a check-in and opens the session for it.
+     *
+     * @param userId the user checking in
+     * @param at     the check-in time
+     * @param source where the punch came from
+     * @return the new session
+     * @throws org.springframework.dao.DataIntegrityViolationException if the user already has an open session;
+     *                                                                 nothing is recorded
+     */
+    @Transactional
+    public Attendance checkIn(Long userId, LocalDateTime at, PunchEvent.Source source) {
+        Attendance saved = attendanceRepository.saveAndFlush(newSession(userId, at));
+        punchEventRepository.save(PunchEvent.checkIn(userId, at, source));
+        markChanged(List.of(userId));
+        return saved;
+    }
+
+    /**
+     * Records a check-out and closes the user's open session with one conditional UPDATE of that row.
+     * <p>
+     * With a hint from the {@link ActiveSessionIndex} that is the only statement needed, and the closed session is
+     * built from the hint without reading it back. The UPDATE matches the hinted ID, user and check-in time, so a stale
+     * hint changes nothing; then, as without a hint, the open session is looked up in the database first.
+     * </p>
+     *
+     * @param userId the user checking out
+     * @param hint   the user's open session according to the local index, or {@code null} if it has none
+     * @param at     the check-out time, with at most second precision so the stored value can be read back
+     * @param source where the punch came from
+     * @return the closed session, without its user, or empty if the user had none open; nothing is recorded then
+     */
+    @Transactional
+    public Optional<Attendance> checkOut(Long userId, ActiveSessionIndex.OpenSession hint, LocalDateTime at,
+                                         PunchEvent.Source source) {
+        ActiveSessionIndex.OpenSession open = hint;
+        if (open == null || !closeSession(userId, open, at)) {
+            open = attendanceRepository.findOpenSession(userId)
+                    .map(view -> new ActiveSessionIndex.OpenSession(view.getAttendanceId(), view.getCheckInTime()))
+                    .orElse(null);
+            // A concurrent check-out may close it between the lookup and the UPDATE.
+            if (open == null || !closeSession(userId, open, at)) {
+                return Optional.empty();
+            }
+        }
+        punchEventRepository.save(PunchEvent.checkOut(userId, at, source));
+        Attendance closed = new Attendance();
+        closed.setId(open.attendanceId());
+        closed.setCheckInTime(open.checkInTime());
+        // Same truncation to whole seconds as the TIMESTAMPDIFF the UPDATE stored
+        close(closed, at);
+        addToRollup(userId, closed.getCheckInTime().toLocalDate(), closed.getTotalDuration(), 1);
+        markChanged(List.of(userId));
+        return Optional.of(closed);
+    }
+
+    /**
+     * Records a complete session, such as an approved adjustment, and inserts it as a closed row.
+     *
+     * @param user   the user the session belongs to
+     * @param from   when the session started
+     * @param to     when the session ended
+     * @param source where the session came from
+     * @return the new session
+     */
+    @Transactional
+    public Attendance recordSession(User user, LocalDateTime from, LocalDateTime to, PunchEvent.Source source) {
+        Attendance attendance = new Attendance();
+        attendance.setUser(user);
+        attendance.setCheckInTime(from);
+        close(attendance, to);
+        Attendance saved = attendanceRepository.save(attendance);
+        punchEventRepository.save(PunchEvent.session(user.getId(), from, to, source));
+        addToRollup(user.getId(), from.toLocalDate(), attendance.getTotalDuration(), 1);
+        markChanged(List.of(user.getId()));
+        return saved;
+    }
+
+    /**
+     * Records an automatic check-out for each stale session, exactly {@code maxSessionSeconds} after its check-in,
+     * and closes them all with one UPDATE. Runs in its own transaction.
+     *
+     * @param sessions          the open sessions to close
+     * @param maxSessionSeconds the session length to record
+     * @return the number of sessions closed
+     */
+    @Transactional
+    public int closeAtCap(List<OpenSessionView> sessions, long maxSessionSeconds) {
+        List<Long> ids = sessions.stream().map(OpenSessionView::getAttendanceId).toList();
+        // Some users may have checked out in the meantime; the rows still open stay locked until the UPDATE commits,
+        // so the UPDATE closes exactly these and only they are recorded.
+        List<Long> openIds = attendanceRepository.lockOpenSessionIds(ids);
+        if (openIds.isEmpty()) {
+            return 0;
+        }
+        int closed = attendanceRepository.closeSessionsAtCap(openIds, maxSessionSeconds);
+        if (openIds.size() < sessions.size()) {
+            Set<Long> closedIds = new HashSet<>(openIds);
+            sessions = sessions.stream().filter(session -> closedIds.contains(session.getAttendanceId())).toList();
+        }
+        List<PunchEvent> events = new ArrayList<>(sessions.size());
+        for (OpenSessionView session : sessions) {
+            events.add(PunchEvent.checkOut(session.getUserId(), session.getCheckInTime().plusSeconds(maxSessionSeconds),
+                    PunchEvent.Source.AUTO_CLOSE));
+            addToRollup(session.getUserId(), session.getCheckInTime().toLocalDate(), maxSessionSeconds, 1);
+        }
+        punchEventRepository.saveAll(events);
+        if (!events.isEmpty()) {
+            markChanged(events.stream().map(PunchEvent::getUserId).collect(Collectors.toSet()));
+        }
+        return closed;
+    }
+
+    /**
+     * Starts a batch of punches for users whose open sessions are already loaded.
+     * Punches are applied to the sessions in memory as they are added and written by {@link Batch#write()}.
+     *
+     * @param openSessions the users' open sessions, as managed entities
+     * @param source       where the punches came from
+     * @return the batch
+     */
+    public Batch batch(Collection<Attendance> openSessions, PunchEvent.Source source) {
+        return new Batch(openSessions, source);
+    }
+
+    /**
+     * Rebuilds {@code attendance_tbl} and the daily rollup from the punch log: every session is deleted and the log
+     * is replayed, user by user, in the order the events were appended. Punches should be paused while this runs,
+     * and the {@link ActiveSessionIndex} rebuilt afterwards.
+     * <p>
+     * Refuses to run until {@link PunchEventBackfill} has seeded the log with the sessions recorded before it existed,
+     * since replaying a log without them would delete that history.
+     * </p>
+     *
+     * @return the number of sessions written
+     * @throws PunchLogNotReadyException if the punch log has not been backfilled yet; nothing is changed
+     */
+    @Transactional
+    public int rebuild() {
+        if (!maintenanceTaskRepository.existsById(PunchEventBackfill.BACKFILL_TASK)) {
+            throw new PunchLogNotReadyException();
+        }
+        long deleted = attendanceRepository.count();
+        attendanceRepository.deleteAllInBatch();
+        dailyRollupRepository.deleteAllInBatch();
+        attendanceStatsCache.invalidateAll();
+        userRepository.incrementAllAttendanceVersions();
+        List<Long> userIds = punchEventRepository.findUserIds();
+        log.warn("Rebuilding attendance_tbl from the punch log: deleted {} session(s), replaying events of {} user(s)",
+                deleted, userIds.size());
+
+        int written = 0;
+        for (int from = 0; from < userIds.size(); from += REPLAY_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + REPLAY_CHUNK_SIZE, userIds.size()));
+            List<Attendance> sessions = replay(punchEventRepository.findInReplayOrder(chunk));
+            attendanceRepository.saveAll(sessions);
+            dailyRollupRepository.saveAll(rollUp(sessions));
+            attendanceRepository.flush();
+            entityManager.clear();
+            written += sessions.size();
+        }
+        log.info("Rebuilt attendance_tbl with {} session(s)", written);
+        return written;
+    }
+
+    /**
+     * Seeds the punch log from the sessions already in {@code attendance_tbl}, so that a later {@link #rebuild()}
+     * keeps history recorded before the log existed.
+     * <p>
+     * Only sessions up to {@code upToId}, the newest one before this instance began accepting punches, are read; later
+     * ones were recorded with their events. A session whose user already has a check-in or complete-session event at
+     * its check-in time is skipped as well, which covers sessions punched through other instances and makes a repeated
+     * run after a failure append nothing twice.
+     * </p>
+     *
+     * @param upToId the largest session ID to seed from
+     * @return the number of events appended
+     */
+    @Transactional
+    public int backfillFromAttendance(long upToId) {
+        PageRequest firstPage = PageRequest.of(0, REPLAY_CHUNK_SIZE);
+        long afterId = 0;
+        int appended = 0;
+        List<SessionHistoryView> page;
+        do {
+            page = attendanceRepository.findSessionsAfter(afterId, upToId, firstPage);
+            Set<Map.Entry<Long, LocalDateTime>> logged = loggedCheckIns(page);
+            List<PunchEvent> events = new ArrayList<>(page.size());
+            for (SessionHistoryView session : page) {
+                if (session.getCheckInTime() == null
+                        || logged.contains(Map.entry(session.getUserId(), session.getCheckInTime()))) {
+                    continue;
+                }
+                events.add(session.getCheckOutTime() != null
+                        ? PunchEvent.session(session.getUserId(), session.getCheckInTime(), session.getCheckOutTime(), PunchEvent.Source.MIGRATION)
+                        : PunchEvent.checkIn(session.getUserId(), session.getCheckInTime(), PunchEvent.Source.MIGRATION));
+            }
+            punchEventRepository.saveAll(events);
+            punchEventRepository.flush();
+            entityManager.clear();
+            appended += events.size();
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == REPLAY_CHUNK_SIZE);
+        return appended;
+    }
+
+    // The (user, check-in time) pairs of the given sessions that already have an event opening them
+    private Set<Map.Entry<Long, LocalDateTime>> loggedCheckIns(List<SessionHistoryView> sessions) {
+        List<SessionHistoryView> started = sessions.stream().filter(session -> session.getCheckInTime() != null).toList();
+        if (started.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> userIds = started.stream().map(SessionHistoryView::getUserId).collect(Collectors.toSet());
+        LocalDateTime from = started.stream().map(SessionHistoryView::getCheckInTime).min(LocalDateTime::compareTo).orElseThrow();
+        LocalDateTime to = started.stream().map(SessionHistoryView::getCheckInTime).max(LocalDateTime::compareTo).orElseThrow();
+        return punchEventRepository.findByTypeOccurredBetween(userIds,
+                        List.of(PunchEvent.Type.CHECK_IN, PunchEvent.Type.SESSION), from, to).stream()
+                .map(event -> Map.entry(event.getUserId(), event.getOccurredAt()))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Folds the events of one or more users, grouped by user and in append order, into sessions.
+     * Events that do not fit the current state are skipped: a check-in while a session is open,
+     * or a check-out with no open session that started before it.
+     */
+    List<Attendance> replay(List<PunchEvent> events) {
+        List<Attendance> sessions = new ArrayList<>();
+        Long userId = null;
+        Attendance open = null;
+        for (PunchEvent event : events) {
+            if (!event.getUserId().equals(userId)) {
+                userId = event.getUserId();
+                open = null;
+            }
+            switch (event.getType()) {
+                case CHECK_IN -> {
+                    if (open != null) {
+                        log.warn("Skipping check-in event {}: user {} already has an open session", event.getId(), userId);
+                    } else {
+                        open = newSession(userId, event.getOccurredAt());
+                        sessions.add(open);
+                    }
+                }
+                case CHECK_OUT -> {
+                    if (open != null && !event.getOccurredAt().isBefore(open.getCheckInTime())) {
+                        close(open, event.getOccurredAt());
+                        open = null;
+                    } else {
+                        log.debug("Skipping check-out event {}: user {} has no matching open session", event.getId(), userId);
+                    }
+                }
+                case SESSION -> {
+                    Attendance closed = newSession(userId, event.getOccurredAt());
+                    close(closed, event.getEndsAt());
+                    sessions.add(closed);
+                }
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Sums closed sessions per user and check-in day; open sessions are left out.
+     */
+    static Collection<DailyAttendanceRollup> rollUp(Collection<Attendance> sessions) {
+        Map<DailyAttendanceRollup.Key, DailyAttendanceRollup> days = new LinkedHashMap<>();
+        for (Attendance session : sessions) {
+            if (session.getTotalDuration() == null) {
+                continue;
+            }
+            Long userId = session.getUser().getId();
+            LocalDate day = session.getCheckInTime().toLocalDate();
+            DailyAttendanceRollup rollup = days.computeIfAbsent(new DailyAttendanceRollup.Key(userId, day),
+                    key -> new DailyAttendanceRollup(userId, day, 0, 0));
+            rollup.setSeconds(rollup.getSeconds() + session.getTotalDuration());
+            rollup.setSessions(rollup.getSessions() + 1);
+        }
+        return days.values();
+    }
+
+    // Adds closed sessions to the user's day row with one UPDATE, inserting the row on the day's first session,
+    // and drops the cached stats of the day's week and month once committed
+    private void addToRollup(Long userId, LocalDate day, long seconds, int sessions) {
+        if (dailyRollupRepository.addToDay(userId, day, seconds, sessions) == 0) {
+            dailyRollupRepository.save(new DailyAttendanceRollup(userId, day, seconds, sessions));
+        }
+        attendanceStatsCache.invalidate(userId, day);
+    }
+
+    private boolean closeSession(Long userId, ActiveSessionIndex.OpenSession open, LocalDateTime at) {
+        return attendanceRepository.closeSession(open.attendanceId(), userId, open.checkInTime(), at) == 1;
+    }
+
+    // Moves the users' attendance version on, so clients holding an ETag of their attendance fetch it again
+    private void markChanged(Collection<Long> userIds) {
+        userRepository.incrementAttendanceVersions(userIds);
+    }
+
+    private Attendance newSession(Long userId, LocalDateTime checkInTime) {
+        Attendance attendance = new Attendance();
+        attendance.setUser(userRepository.getReferenceById(userId));
+        attendance.setCheckInTime(checkInTime);
+        return attendance;
+    }
+
+    private static void close(Attendance attendance, LocalDateTime checkOutTime) {
+        attendance.setCheckOutTime(checkOutTime);
+        attendance.setTotalDuration(Duration.between(attendance.getCheckInTime(), checkOutTime).getSeconds());
+    }
+
+    /**
+     * Punches for many users applied in memory and written together: updates for the sessions they close,
+     * one batched insert for the sessions they open, and one batched insert for their events.
+     * A batch belongs to the transaction it was started in and is not thread-safe.
+     */
+    public final class Batch {
+
+        private final PunchEvent.Source source;
+
+        private final Map<Long, Attendance> openSessions = new HashMap<>();
+
+        private final List<Attendance> created = new ArrayList<>();
+
+        private final List<Attendance> closed = new ArrayList<>();
+
+        private final List<PunchEvent> events = new ArrayList<>();
+
+        private Batch(Collection<Attendance> openSessions, PunchEvent.Source source) {
+            this.source = source;
+            openSessions.forEach(attendance -> this.openSessions.put(attendance.getUser().getId(), attendance));
+        }
+
+        /**
+         * Returns the user's open session as of the punches added so far.
+         *
+         * @param userId the user
+         * @return the open session, or {@code null} if the user is not checked in
+         */
+        public Attendance openSession(Long userId) {
+            return openSessions.get(userId);
+        }
+
+        /**
+         * Adds a check-in; the user must not have an open session.
+         *
+         * @param userId the user checking in
+         * @param at     the check-in time
+         * @return the session it opens, without an ID until the batch is written
+         */
+        public Attendance checkIn(Long userId, LocalDateTime at) {
+            if (openSessions.containsKey(userId)) {
+                throw new IllegalStateException("User " + userId + " already has an open session");
+            }
+            Attendance attendance = newSession(userId, at);
+            created.add(attendance);
+            openSessions.put(userId, attendance);
+            events.add(PunchEvent.checkIn(userId, at, source));
+            return attendance;
+        }
+
+        /**
+         * Adds a check-out; the user must have an open session that started no later than {@code at}.
+         *
+         * @param userId the user checking out
+         * @param at     the check-out time
+         * @return the session it closes
+         */
+        public Attendance checkOut(Long userId, LocalDateTime at) {
+            Attendance open = openSessions.get(userId);
+            if (open == null || at.isBefore(open.getCheckInTime())) {
+                throw new IllegalStateException("User " + userId + " has no open session to close at " + at);
+            }
+            close(open, at);
+            openSessions.remove(userId);
+            closed.add(open);
+            events.add(PunchEvent.checkOut(userId, at, source));
+            return open;
+        }
+
+        /**
+         * Writes the sessions, appends the events and adds the closed sessions to the daily rollup.
+         *
+         * @throws org.springframework.dao.DataIntegrityViolationException if a user checked in through another
+         *                                                                 channel meanwhile; the transaction must roll back
+         */
+        public void write() {
+            // Hibernate flushes inserts before updates, but a new open session may only be inserted once the
+            // user's previous one is closed, so the closing updates are flushed on their own first.
+            attendanceRepository.flush();
+            attendanceRepository.saveAll(created);
+            attendanceRepository.flush();
+            punchEventRepository.saveAll(events);
+            rollUp(closed).forEach(day -> addToRollup(day.getUserId(), day.getDay(), day.getSeconds(), day.getSessions()));
+            if (!events.isEmpty()) {
+                markChanged(events.stream().map(PunchEvent::getUserId).collect(Collectors.toSet()));
+            }
+        }
+    }
+}
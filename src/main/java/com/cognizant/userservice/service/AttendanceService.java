@@ -1,13 +1,21 @@
 package com.cognizant.userservice.service;
 
+import com.cognizant.userservice.dto.DailyTotalView;
 import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.DailyAttendanceRollup;
+import com.cognizant.userservice.model.PunchEvent;
+import com.cognizant.userservice.model.TokenPrincipal;
 import com.cognizant.userservice.model.User;
+import com.cognizant.userservice.model.UserPrincipal;
 import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
 import com.cognizant.userservice.repository.UserRepository;
 import com.cognizant.userservice.exception.UserNotFoundException;
 import com.cognizant.userservice.exception.ActiveAttendanceExistsException;
 import com.cognizant.userservice.exception.NoActiveAttendanceException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
@@ -17,13 +25,15 @@ import java.time.Duration;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
 import java.time.temporal.WeekFields;
-import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,28 +46,49 @@ public class AttendanceService {
     @Autowired
     private UserRepository userRepository;
 
+    // Open sessions by user ID, so punches do not need to read attendance_tbl first
+    @Autowired
+    private ActiveSessionIndex activeSessionIndex;
+
+    // Records punches in the event log and applies them to attendance_tbl
+    @Autowired
+    private AttendanceProjector attendanceProjector;
+
+    // Worked seconds per user and day, read by the stats once backfilled
+    @Autowired
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private DailyRollupMaintenance dailyRollupMaintenance;
+
+    // Computed stats per user and period, dropped when a closed session lands in the period
+    @Autowired
+    private AttendanceStatsCache attendanceStatsCache;
+
     @Transactional
     public Attendance checkIn(Principal principal) {
         log.info("Processing check-in for user: {}", principal.getName());
 
-        // Find the user; throws UserNotFoundException if not found.
-        User user = userRepository.findByUsername(principal.getName())
-                .orElseThrow(() -> {
-                    log.warn("Check-in failed for user {}: User not found.", principal.getName());
-                    return new UserNotFoundException("User not found: " + principal.getName());
-                });
-
-        // Check for an existing active check-in; throws ActiveAttendanceExistsException if found.
-        attendanceRepository.findByUserAndCheckOutTimeIsNull(user).ifPresent(attendance -> {
-            log.warn("Check-in failed for user {}: User already has an active check-in.", principal.getName());
-            throw new ActiveAttendanceExistsException("Check-in failed: You are already checked in for today.");
-        });
-
-        // Create and save new attendance record.
-        Attendance attendance = new Attendance();
-        attendance.setUser(user);
-        attendance.setCheckInTime(LocalDateTime.now());
-        Attendance savedAttendance = attendanceRepository.save(attendance);
+        // Resolve the user's ID, from the authenticated principal when possible.
+        Long userId = resolveUserId(principal, "Check-in");
+
+        // Record the check-in and insert the new attendance record; the user is referenced by ID without loading it.
+        // The open-session unique constraint alone decides whether the user is already checked in, so no read is
+        // needed to guard against double taps or another instance's check-in. The local index is not consulted:
+        // it may miss check-ins made through other instances, or still hold sessions they have closed.
+        Attendance savedAttendance;
+        try {
+            // Whole seconds, like check-out, so the indexed check-in time matches the stored one on any column precision
+            savedAttendance = attendanceProjector.checkIn(userId, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
+                    PunchEvent.Source.WEB);
+        } catch (DataIntegrityViolationException ex) {
+            if (!isOpenSessionViolation(ex)) {
+                throw ex;
+            }
+            log.warn("Check-in failed for user {}: Database already holds an active check-in.", principal.getName());
+            throw ActiveAttendanceExistsException.ALREADY_CHECKED_IN;
+        }
+        activeSessionIndex.recordCheckIn(userId, savedAttendance.getId(), savedAttendance.getCheckInTime());
         log.info("User {} checked in successfully. Attendance ID: {}", principal.getName(), savedAttendance.getId());
         return savedAttendance;
     }
@@ -66,28 +97,98 @@ public class AttendanceService {
     public Attendance checkOut(Principal principal) {
         log.info("Processing check-out for user: {}", principal.getName());
 
-        // Find the user; throws UserNotFoundException if not found.
-        User user = userRepository.findByUsername(principal.getName())
-                .orElseThrow(() -> {
-                    log.warn("Check-out failed for user {}: User not found.", principal.getName());
-                    return new UserNotFoundException("User not found: " + principal.getName());
-                });
+        // Resolve the user's ID, from the authenticated principal when possible.
+        Long userId = resolveUserId(principal, "Check-out");
+
+        // Record the check-out and close the open session with one conditional UPDATE; the database computes the duration.
+        // The local index supplies the session's ID when it has one; the UPDATE runs either way, since the session may
+        // have been opened through another instance, and the projector then finds it in the database.
+        // Seconds precision keeps the stored value identical on every column precision.
+        LocalDateTime checkOutTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Attendance attendance = attendanceProjector.checkOut(userId, activeSessionIndex.find(userId).orElse(null),
+                checkOutTime, PunchEvent.Source.WEB).orElse(null);
+        if (attendance == null) {
+            log.warn("Check-out failed for user {}: No active check-in found.", principal.getName());
+            activeSessionIndex.evict(userId);
+            throw NoActiveAttendanceException.NOT_CHECKED_IN;
+        }
+        activeSessionIndex.recordCheckOut(userId);
+
+        attendance.setTotalDurationFormatted(formatDuration(Duration.ofSeconds(attendance.getTotalDuration())));
+        log.info("User {} checked out successfully. Attendance ID: {}", principal.getName(), attendance.getId());
+        return attendance;
+    }
+
+    /**
+     * Rebuilds {@code attendance_tbl} and the daily rollup from the punch event log and reloads the active session index from the result.
+     * Meant for recovering from a projection bug; punches should be paused while it runs. Other instances keep their
+     * old index entries until they restart, which is harmless because punches are decided by the database, not the index.
+     *
+     * @return The number of sessions written.
+     * @throws com.cognizant.userservice.exception.PunchLogNotReadyException If the punch log has not been backfilled yet.
+     */
+    public int rebuildProjection() {
+        log.warn("Rebuilding attendance sessions from the punch event log");
+        int sessions = attendanceProjector.rebuild();
+        activeSessionIndex.rebuild();
+        return sessions;
+    }
+
+    /**
+     * Returns a strong ETag for a user's attendance history and stats. It changes whenever a punch, adjustment,
+     * auto-close or rebuild changes the user's sessions, so a matching tag means any response derived from them
+     * is still current.
+     *
+     * @param userId The ID of the user.
+     * @return The quoted ETag, or empty if the user does not exist.
+     */
+    public Optional<String> getAttendanceETag(Long userId) {
+        return userRepository.findAttendanceVersion(userId).map(version -> "\"" + userId + "-" + version + "\"");
+    }
 
-        // Find the active check-in; throws NoActiveAttendanceException if none found.
-        Attendance attendance = attendanceRepository.findByUserAndCheckOutTimeIsNull(user)
+    /**
+     * Returns a strong ETag for the attendance history and stats of the logged-in user.
+     *
+     * @param principal The security principal representing the logged-in user.
+     * @return The quoted ETag, or empty if the user does not exist.
+     * @throws UserNotFoundException If the user cannot be found by username.
+     * @see #getAttendanceETag(Long)
+     */
+    public Optional<String> getAttendanceETag(Principal principal) {
+        return getAttendanceETag(resolveUserId(principal, "Attendance version lookup"));
+    }
+
+    // True if the violation comes from the one-open-session-per-user constraint rather than, e.g., a missing user
+    static boolean isOpenSessionViolation(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(Attendance.OPEN_SESSION_CONSTRAINT);
+    }
+
+    /**
+     * Resolves the ID of the user behind a punch request.
+     * JWT-authenticated requests carry the ID in their principal, so no query is needed;
+     * any other principal falls back to a lookup by username.
+     *
+     * @param principal The security principal representing the logged-in user.
+     * @param action    The action being performed, used in log messages.
+     * @return The user's ID.
+     * @throws UserNotFoundException If the user cannot be found by username.
+     */
+    private Long resolveUserId(Principal principal, String action) {
+        if (principal instanceof Authentication authentication) {
+            if (authentication.getPrincipal() instanceof TokenPrincipal tokenPrincipal && tokenPrincipal.getUserId() != null) {
+                return tokenPrincipal.getUserId();
+            }
+            if (authentication.getPrincipal() instanceof UserPrincipal userPrincipal) {
+                return userPrincipal.getUserId();
+            }
+        }
+        return userRepository.findByUsername(principal.getName())
+                .map(User::getId)
                 .orElseThrow(() -> {
-                    log.warn("Check-out failed for user {}: No active check-in found for today.", principal.getName());
-                    return new NoActiveAttendanceException("Check-out failed: No active check-in found for today.");
+                    log.warn("{} failed for user {}: User not found.", action, principal.getName());
+                    return new UserNotFoundException("User not found: " + principal.getName());
                 });
-
-        // Update attendance record with check-out time and duration.
-        attendance.setCheckOutTime(LocalDateTime.now());
-        Duration duration = Duration.between(attendance.getCheckInTime(), attendance.getCheckOutTime());
-        attendance.setTotalDuration(duration.getSeconds());
-        attendance.setTotalDurationFormatted(formatDuration(duration));
-        Attendance savedAttendance = attendanceRepository.save(attendance);
-        log.info("User {} checked out successfully. Attendance ID: {}", principal.getName(), savedAttendance.getId());
-        return savedAttendance;
     }
 
     /**
@@ -226,7 +327,7 @@ public class AttendanceService {
     }
 
     /**
-     * Calculates weekly attendance statistics for a given user.
+     * Calculates weekly attendance statistics for a given user, or returns them from the stats cache.
      *
      * @param user The user for whom to calculate stats.
      * @param year The year.
@@ -234,45 +335,45 @@ public class AttendanceService {
      * @return A map containing total hours, total working days, and a daily breakdown.
      */
     private Map<String, Object> calculateWeeklyStats(User user, int year, int weekOfYear) {
-        log.debug("Calculating weekly stats for user: {}, Year: {}, Week: {}", user.getUsername(), year, weekOfYear);
-        List<Attendance> attendancesInWeek = attendanceRepository.findByUserAndCheckInTimeBetween(
-                user,
-                getStartOfWeek(year, weekOfYear),
-                getEndOfWeek(year, weekOfYear)
-        );
-
-        long totalSeconds = attendancesInWeek.stream()
-                .filter(a -> a.getTotalDuration() != null)
-                .mapToLong(Attendance::getTotalDuration)
-                .sum();
-
-        Map<String, Long> dailyBreakdownSeconds = attendancesInWeek.stream()
-                .filter(a -> a.getTotalDuration() != null)
-                .collect(Collectors.groupingBy(
-                        attendance -> attendance.getCheckInTime().toLocalDate().toString(),
-                        Collectors.summingLong(Attendance::getTotalDuration)
-                ));
+        LocalDate startOfWeek = getStartOfWeek(year, weekOfYear).toLocalDate();
+        return attendanceStatsCache.get(new AttendanceStatsCache.Key(user.getId(), AttendanceStatsCache.Period.WEEK, startOfWeek),
+                () -> computeWeeklyStats(user, startOfWeek));
+    }
+
+    private Map<String, Object> computeWeeklyStats(User user, LocalDate startOfWeek) {
+        log.debug("Calculating weekly stats for user: {}, Week starting: {}", user.getUsername(), startOfWeek);
+        Map<String, Object> stats = weeklyStats(getDailySeconds(user, startOfWeek, startOfWeek.plusDays(7)));
+        log.debug("Calculated weekly stats for user {}: {}", user.getUsername(), stats);
+        return stats;
+    }
+
+    /**
+     * Builds weekly stats from a week's worked seconds per day; shared with the org-wide stats.
+     *
+     * @param dailyBreakdownSeconds The worked seconds of each day with at least one closed session, in date order.
+     * @return A map containing total hours, total working days, and a daily breakdown.
+     */
+    static Map<String, Object> weeklyStats(Map<LocalDate, Long> dailyBreakdownSeconds) {
+        long totalSeconds = dailyBreakdownSeconds.values().stream().mapToLong(Long::longValue).sum();
 
         List<Map<String, String>> dailyBreakdownFormatted = dailyBreakdownSeconds.entrySet().stream()
                 .map(entry -> {
                     Map<String, String> dailyStat = new LinkedHashMap<>();
-                    dailyStat.put("date", entry.getKey());
+                    dailyStat.put("date", entry.getKey().toString());
                     dailyStat.put("totalHours", formatDuration(Duration.ofSeconds(entry.getValue())));
                     return dailyStat;
                 })
-                .sorted(Comparator.comparing(a -> a.get("date")))
                 .collect(Collectors.toList());
 
         Map<String, Object> stats = new LinkedHashMap<>();
         stats.put("totalHoursThisWeek", formatDuration(Duration.ofSeconds(totalSeconds)));
         stats.put("totalWorkingDaysThisWeek", dailyBreakdownSeconds.size());
         stats.put("dailyBreakdown", dailyBreakdownFormatted);
-        log.debug("Calculated weekly stats for user {}: {}", user.getUsername(), stats);
         return stats;
     }
 
     /**
-     * Calculates monthly attendance statistics for a given user.
+     * Calculates monthly attendance statistics for a given user, or returns them from the stats cache.
      *
      * @param user The user for whom to calculate stats.
      * @param year The year.
@@ -280,26 +381,31 @@ public class AttendanceService {
      * @return A map containing total hours and a weekly breakdown.
      */
     private Map<String, Object> calculateMonthlyStats(User user, int year, int month) {
-        log.debug("Calculating monthly stats for user: {}, Year: {}, Month: {}", user.getUsername(), year, month);
-        LocalDateTime startOfMonth = LocalDateTime.of(year, month, 1, 0, 0);
-        LocalDateTime endOfMonth = startOfMonth.plusMonths(1).minusNanos(1);
-
-        List<Attendance> attendancesInMonth = attendanceRepository.findByUserAndCheckInTimeBetween(
-                user,
-                startOfMonth,
-                endOfMonth
-        );
-
-        long totalSeconds = attendancesInMonth.stream()
-                .filter(a -> a.getTotalDuration() != null)
-                .mapToLong(Attendance::getTotalDuration)
-                .sum();
-
-        Map<Integer, Long> weeklyBreakdownSeconds = attendancesInMonth.stream()
-                .filter(a -> a.getTotalDuration() != null)
+        LocalDate startOfMonth = LocalDate.of(year, month, 1);
+        return attendanceStatsCache.get(new AttendanceStatsCache.Key(user.getId(), AttendanceStatsCache.Period.MONTH, startOfMonth),
+                () -> computeMonthlyStats(user, startOfMonth));
+    }
+
+    private Map<String, Object> computeMonthlyStats(User user, LocalDate startOfMonth) {
+        log.debug("Calculating monthly stats for user: {}, Month starting: {}", user.getUsername(), startOfMonth);
+        Map<String, Object> stats = monthlyStats(getDailySeconds(user, startOfMonth, startOfMonth.plusMonths(1)));
+        log.debug("Calculated monthly stats for user {}: {}", user.getUsername(), stats);
+        return stats;
+    }
+
+    /**
+     * Builds monthly stats from a month's worked seconds per day; shared with the org-wide stats.
+     *
+     * @param dailySeconds The worked seconds of each day with at least one closed session.
+     * @return A map containing total hours and a weekly breakdown.
+     */
+    static Map<String, Object> monthlyStats(Map<LocalDate, Long> dailySeconds) {
+        long totalSeconds = dailySeconds.values().stream().mapToLong(Long::longValue).sum();
+
+        Map<Integer, Long> weeklyBreakdownSeconds = dailySeconds.entrySet().stream()
                 .collect(Collectors.groupingBy(
-                        attendance -> attendance.getCheckInTime().get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear()),
-                        Collectors.summingLong(Attendance::getTotalDuration)
+                        entry -> entry.getKey().get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear()),
+                        Collectors.summingLong(Map.Entry<LocalDate, Long>::getValue)
                 ));
 
         Map<String, String> weeklyBreakdownFormatted = weeklyBreakdownSeconds.entrySet().stream()
@@ -314,17 +420,36 @@ public class AttendanceService {
         Map<String, Object> stats = new LinkedHashMap<>();
         stats.put("totalHoursThisMonth", formatDuration(Duration.ofSeconds(totalSeconds)));
         stats.put("weeklyBreakdown", weeklyBreakdownFormatted);
-        log.debug("Calculated monthly stats for user {}: {}", user.getUsername(), stats);
         return stats;
     }
 
+    /**
+     * Sums a user's closed sessions per check-in day. Reads one rollup row per day once the rollup has been
+     * backfilled; until then the database groups the sessions by day, so no session is loaded either way.
+     *
+     * @param user The user.
+     * @param from The first day, inclusive.
+     * @param to The day after the last day.
+     * @return The worked seconds of each day with at least one closed session, in date order.
+     */
+    private Map<LocalDate, Long> getDailySeconds(User user, LocalDate from, LocalDate to) {
+        if (dailyRollupMaintenance.isReady()) {
+            return dailyRollupRepository.findByUserIdAndDayBetweenOrderByDay(user.getId(), from, to.minusDays(1)).stream()
+                    .collect(Collectors.toMap(DailyAttendanceRollup::getDay, DailyAttendanceRollup::getSeconds,
+                            Long::sum, TreeMap::new));
+        }
+        return attendanceRepository.sumDailyDurationsForUser(user.getId(), from.atStartOfDay(), to.atStartOfDay()).stream()
+                .collect(Collectors.toMap(DailyTotalView::getWorkDay, DailyTotalView::getTotalSeconds,
+                        Long::sum, TreeMap::new));
+    }
+
     /**
      * Formats a {@link Duration} object into a human-readable string.
      *
      * @param duration The duration to format.
      * @return A string representation of the duration (e.g., "X hours, Y minutes, Z seconds").
      */
-    private String formatDuration(Duration duration) {
+    static String formatDuration(Duration duration) {
         long hours = duration.toHours();
         long minutes = duration.toMinutes() % 60;
         long seconds = duration.getSeconds() % 60;
@@ -338,7 +463,7 @@ public class AttendanceService {
      * @param weekOfYear The week number (1-indexed).
      * @return The {@link LocalDateTime} representing the start of the week.
      */
-    private LocalDateTime getStartOfWeek(int year, int weekOfYear) {
+    static LocalDateTime getStartOfWeek(int year, int weekOfYear) {
         // Get a date in the first week of the year according to ISO standards
         // This is typically Jan 4th, or the Monday of the week containing Jan 4th
         LocalDate firstDayOfFirstISOWeek = LocalDate.of(year, 1, 4)
@@ -350,17 +475,4 @@ public class AttendanceService {
 
         return startOfTargetWeek.atStartOfDay();
     }
-
-    /**
-     * Calculates the end of a specific week for a given year and week number (ISO standard).
-     *
-     * @param year The year.
-     * @param weekOfYear The week number (1-indexed).
-     * @return The {@link LocalDateTime} representing the end of the week (last nanosecond of Sunday).
-     */
-    private LocalDateTime getEndOfWeek(int year, int weekOfYear) {
-        LocalDateTime startOfWeek = getStartOfWeek(year, weekOfYear);
-        // The end of the week is 7 days after the start, minus one nanosecond to be the very end of the last day.
-        return startOfWeek.plusDays(7).minusNanos(1);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.model.AttendanceAdjustment;
+import com.cognizant.userservice.repository.AttendanceAdjustmentRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of computed weekly and monthly stats, keyed by user and period.
+ * <p>
+ * {@code AttendanceProjector} invalidates the week and month of a user's day whenever a closed session is added to
+ * that day, after the transaction commits; check-ins change no totals, since open sessions do not count. The user's
+ * other periods stay cached. A stats computation that overlaps a write to any user of the same stripe is not cached. Invalidation only reaches this instance, so periods that
+ * may still change expire after {@code application.attendance.stats-cache.open-period-ttl}. A period that ended
+ * more than {@code settle-period} ago, with no pending adjustment requests, only changes through a late adjustment
+ * and is kept for {@code settled-period-ttl}, which bounds how long such a change on another instance goes unseen.
+ * Hit, miss and eviction counters are published to Micrometer under the cache name {@value #CACHE_NAME}.
+ * </p>
+ */
+@Component
+public class AttendanceStatsCache {
+
+    static final String CACHE_NAME = "attendance.stats";
+
+    // Write versions are tracked per stripe of user IDs, so the array stays small whatever the number of users
+    private static final int VERSION_STRIPES = 1024;
+
+    /**
+     * The length of a stats period.
+     */
+    public enum Period {
+        WEEK, MONTH
+    }
+
+    /**
+     * Identifies one user's stats for one period.
+     *
+     * @param userId the user
+     * @param period the length of the period
+     * @param start  the first day of the period: the Monday of an ISO week, or the first of a month
+     */
+    public record Key(Long userId, Period period, LocalDate start) {
+
+        LocalDate end() {
+            return period == Period.WEEK ? start.plusWeeks(1) : start.plusMonths(1);
+        }
+    }
+
+    private record Entry(Map<String, Object> stats, boolean settled) {
+    }
+
+    private final Cache<Key, Entry> cache;
+
+    private final AttendanceAdjustmentRepository attendanceAdjustmentRepository;
+
+    private final Duration settlePeriod;
+
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    @Autowired
+    public AttendanceStatsCache(
+            @Value("${application.attendance.stats-cache.max-size}") long maxSize,
+            @Value("${application.attendance.stats-cache.open-period-ttl}") Duration openPeriodTtl,
+            @Value("${application.attendance.stats-cache.settled-period-ttl}") Duration settledPeriodTtl,
+            @Value("${application.attendance.stats-cache.settle-period}") Duration settlePeriod,
+            AttendanceAdjustmentRepository attendanceAdjustmentRepository,
+            MeterRegistry meterRegistry) {
+        this(maxSize, openPeriodTtl, settledPeriodTtl, settlePeriod, attendanceAdjustmentRepository, meterRegistry,
+                Ticker.systemTicker());
+    }
+
+    // Takes the clock entries expire by, so tests can move it forward
+    AttendanceStatsCache(long maxSize, Duration openPeriodTtl, Duration settledPeriodTtl, Duration settlePeriod,
+                         AttendanceAdjustmentRepository attendanceAdjustmentRepository, MeterRegistry meterRegistry,
+                         Ticker ticker) {
+        this.attendanceAdjustmentRepository = attendanceAdjustmentRepository;
+        this.settlePeriod = settlePeriod;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new PeriodExpiry(openPeriodTtl, settledPeriodTtl))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached stats for a user and period, computing and caching them on a miss.
+     *
+     * @param key    the user and period
+     * @param loader computes the stats from the database
+     * @return the stats, which must not be modified
+     */
+    public Map<String, Object> get(Key key, Supplier<Map<String, Object>> loader) {
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.stats();
+        }
+        int stripe = stripe(key.userId());
+        long writes = versions.get(stripe);
+        Map<String, Object> stats = Collections.unmodifiableMap(loader.get());
+        if (versions.get(stripe) == writes) {
+            cache.put(key, new Entry(stats, isSettled(key)));
+            // A write that committed while the entry was being stored may have missed it; drop it to be safe.
+            if (versions.get(stripe) != writes) {
+                cache.invalidate(key);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Drops the week and month containing a user's day once the current transaction commits.
+     *
+     * @param userId the user whose sessions changed
+     * @param day    the check-in day of the changed sessions
+     */
+    public void invalidate(Long userId, LocalDate day) {
+        afterCommit(() -> {
+            versions.incrementAndGet(stripe(userId));
+            cache.invalidate(new Key(userId, Period.WEEK, day.with(DayOfWeek.MONDAY)));
+            cache.invalidate(new Key(userId, Period.MONTH, day.withDayOfMonth(1)));
+        });
+    }
+
+    /**
+     * Drops every entry once the current transaction commits, e.g. after a projection rebuild.
+     */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            for (int stripe = 0; stripe < VERSION_STRIPES; stripe++) {
+                versions.incrementAndGet(stripe);
+            }
+            cache.invalidateAll();
+        });
+    }
+
+    // True if the period is over, late punches for it are no longer expected, and no adjustment for it is pending
+    private boolean isSettled(Key key) {
+        LocalDate end = key.end();
+        return !end.plusDays(settlePeriod.toDays()).isAfter(LocalDate.now())
+                && !attendanceAdjustmentRepository.existsByUser_IdAndStatusAndRequestedCheckInBetween(key.userId(),
+                AttendanceAdjustment.AdjustmentStatus.PENDING, key.start().atStartOfDay(), end.atStartOfDay().minusNanos(1));
+    }
+
+    private static int stripe(Long userId) {
+        return Math.floorMod(userId.hashCode(), VERSION_STRIPES);
+    }
+
+    // Applies the change after commit, or right away when no transaction is active
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * Keeps settled periods for hours, and expires the others after a short time.
+     */
+    private static final class PeriodExpiry implements Expiry<Key, Entry> {
+
+        private final long openPeriodTtlNanos;
+
+        private final long settledPeriodTtlNanos;
+
+        private PeriodExpiry(Duration openPeriodTtl, Duration settledPeriodTtl) {
+            this.openPeriodTtlNanos = openPeriodTtl.toNanos();
+            this.settledPeriodTtlNanos = settledPeriodTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Key key, Entry value, long currentTime) {
+            return value.settled() ? settledPeriodTtlNanos : openPeriodTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, Entry value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Key key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
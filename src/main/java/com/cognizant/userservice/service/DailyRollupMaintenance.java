@@ -0,0 +1,164 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.model.MaintenanceTask;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.MaintenanceTaskRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Fills {@code daily_attendance_rollup_tbl} for sessions recorded before it existed, and keeps checking it against
+ * {@code attendance_tbl}.
+ * <p>
+ * The backfill runs once, on the first start after the table was introduced, by the instance holding the
+ * {@value #BACKFILL_LOCK_NAME} lock; its completion is recorded as the {@value #BACKFILL_TASK} maintenance task.
+ * Until then {@link #isReady()} is false and stats are computed from the sessions themselves.
+ * Every {@code application.attendance.rollup.check-interval}, one instance reconciles the last
+ * {@code check-window} of days, up to yesterday, and reports the rows it had to fix as {@code attendance.rollup.mismatches}.
+ * </p>
+ */
+@Service
+@Slf4j
+public class DailyRollupMaintenance {
+
+    static final String BACKFILL_TASK = "attendance-rollup-backfill";
+
+    static final String BACKFILL_LOCK_NAME = "attendance-rollup-backfill";
+
+    static final String CHECK_LOCK_NAME = "attendance-rollup-check";
+
+    // Users reconciled per transaction during the backfill
+    private static final int BACKFILL_CHUNK_SIZE = 500;
+
+    // Upper bound on the backfill; the lock is released by then even if this instance dies
+    private static final Duration BACKFILL_LOCK_AT_MOST_FOR = Duration.ofHours(1);
+
+    @Autowired
+    private DailyRollupReconciler dailyRollupReconciler;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private MaintenanceTaskRepository maintenanceTaskRepository;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Number of past days reconciled by each consistency check
+    @Value("${application.attendance.rollup.check-window}")
+    private Duration checkWindow;
+
+    // Upper bound on one consistency check
+    @Value("${application.attendance.rollup.check-interval}")
+    private Duration checkInterval;
+
+    private volatile boolean ready;
+
+    private Counter mismatchCounter;
+
+    @PostConstruct
+    void initMetrics() {
+        mismatchCounter = Counter.builder("attendance.rollup.mismatches")
+                .description("Daily attendance rollup rows corrected by the consistency check")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the rollup has been backfilled and can be used for stats.
+     *
+     * @return {@code true} once the backfill has completed on any instance
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Backfills the rollup from every user's sessions unless that has already been done.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (refreshReady()) {
+            return;
+        }
+        if (!schedulerLockService.tryLock(BACKFILL_LOCK_NAME, BACKFILL_LOCK_AT_MOST_FOR)) {
+            log.debug("Skipping attendance rollup backfill; another instance holds the lock");
+            return;
+        }
+        try {
+            // Another instance may have finished between the check and the lock.
+            if (!refreshReady()) {
+                backfill();
+            }
+        } finally {
+            schedulerLockService.unlock(BACKFILL_LOCK_NAME);
+        }
+    }
+
+    /**
+     * Reconciles the rollup for the recent past, if this instance wins the lock.
+     *
+     * @return the number of rows corrected, 0 if the check did not run here
+     */
+    @Scheduled(fixedDelayString = "${application.attendance.rollup.check-interval}",
+            initialDelayString = "${application.attendance.rollup.check-interval}")
+    public int checkConsistency() {
+        // Instances started before the backfill finished pick it up here.
+        if (!refreshReady() || !schedulerLockService.tryLock(CHECK_LOCK_NAME, checkInterval)) {
+            return 0;
+        }
+        int fixed = 0;
+        try {
+            LocalDate today = LocalDate.now();
+            for (LocalDate day = today.minusDays(checkWindow.toDays()); day.isBefore(today); day = day.plusDays(1)) {
+                fixed += dailyRollupReconciler.reconcileDay(day);
+            }
+        } finally {
+            schedulerLockService.unlock(CHECK_LOCK_NAME);
+        }
+        mismatchCounter.increment(fixed);
+        if (fixed > 0) {
+            log.warn("Corrected {} daily attendance rollup row(s) over the last {} day(s)", fixed, checkWindow.toDays());
+        } else {
+            log.debug("Daily attendance rollup matches attendance_tbl over the last {} day(s)", checkWindow.toDays());
+        }
+        return fixed;
+    }
+
+    private void backfill() {
+        long start = System.nanoTime();
+        List<Long> userIds = attendanceRepository.findUserIdsWithSessions();
+        int written = 0;
+        for (int from = 0; from < userIds.size(); from += BACKFILL_CHUNK_SIZE) {
+            written += dailyRollupReconciler.reconcileUsers(
+                    userIds.subList(from, Math.min(from + BACKFILL_CHUNK_SIZE, userIds.size())));
+        }
+        maintenanceTaskRepository.save(new MaintenanceTask(BACKFILL_TASK, LocalDateTime.now()));
+        ready = true;
+        log.info("Backfilled {} daily attendance rollup row(s) for {} user(s) in {} ms", written, userIds.size(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    private boolean refreshReady() {
+        if (!ready) {
+            ready = maintenanceTaskRepository.existsById(BACKFILL_TASK);
+        }
+        return ready;
+    }
+}
@@ -0,0 +1,95 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.DailyTotalView;
+import com.cognizant.userservice.model.DailyAttendanceRollup;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings {@code daily_attendance_rollup_tbl} in line with {@code attendance_tbl}: the sessions are summed per user
+ * and day in the database and compared with the stored rows, and only the rows that differ are written.
+ * Used by {@link DailyRollupMaintenance} both to backfill the table and to repair drift.
+ * <p>
+ * The stored rows are write-locked before the sessions are summed, so a check-out adding to one of them either
+ * committed before and is in the sum, or waits and adds on top of the repaired row. Rows are repaired by adding the
+ * difference, the same way check-outs write them, rather than by overwriting their totals.
+ * </p>
+ */
+@Service
+@Slf4j
+public class DailyRollupReconciler {
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private AttendanceStatsCache attendanceStatsCache;
+
+    /**
+     * Reconciles every day of the given users' history.
+     *
+     * @param userIds the users to reconcile
+     * @return the number of rows inserted, corrected or deleted
+     */
+    @Transactional
+    public int reconcileUsers(Collection<Long> userIds) {
+        List<DailyAttendanceRollup> stored = dailyRollupRepository.findByUserIdIn(userIds);
+        return reconcile(attendanceRepository.sumDailyDurationsForUsers(userIds), stored);
+    }
+
+    /**
+     * Reconciles one day for every user.
+     *
+     * @param day the day to reconcile
+     * @return the number of rows inserted, corrected or deleted
+     */
+    @Transactional
+    public int reconcileDay(LocalDate day) {
+        List<DailyAttendanceRollup> stored = dailyRollupRepository.findByDay(day);
+        return reconcile(attendanceRepository.sumDailyDurations(day.atStartOfDay(), day.plusDays(1).atStartOfDay()), stored);
+    }
+
+    private int reconcile(List<DailyTotalView> expected, List<DailyAttendanceRollup> stored) {
+        Map<DailyAttendanceRollup.Key, DailyAttendanceRollup> remaining = new HashMap<>();
+        stored.forEach(rollup -> remaining.put(rollup.getId(), rollup));
+
+        int fixed = 0;
+        for (DailyTotalView total : expected) {
+            DailyAttendanceRollup rollup = remaining.remove(new DailyAttendanceRollup.Key(total.getUserId(), total.getWorkDay()));
+            long seconds = total.getTotalSeconds();
+            int sessions = total.getSessionCount().intValue();
+            if (rollup == null) {
+                dailyRollupRepository.save(new DailyAttendanceRollup(total.getUserId(), total.getWorkDay(), seconds, sessions));
+                attendanceStatsCache.invalidate(total.getUserId(), total.getWorkDay());
+                fixed++;
+            } else if (rollup.getSeconds() != seconds || rollup.getSessions() != sessions) {
+                log.debug("Correcting rollup of user {} on {}: {}s/{} stored, {}s/{} expected", total.getUserId(),
+                        total.getWorkDay(), rollup.getSeconds(), rollup.getSessions(), seconds, sessions);
+                dailyRollupRepository.addToDay(total.getUserId(), total.getWorkDay(),
+                        seconds - rollup.getSeconds(), sessions - rollup.getSessions());
+                attendanceStatsCache.invalidate(total.getUserId(), total.getWorkDay());
+                fixed++;
+            }
+        }
+        // Rows left over have no closed sessions behind them any more.
+        if (!remaining.isEmpty()) {
+            remaining.values().forEach(rollup -> attendanceStatsCache.invalidate(rollup.getUserId(), rollup.getDay()));
+            dailyRollupRepository.deleteAll(remaining.values());
+            fixed += remaining.size();
+        }
+        return fixed;
+    }
+}
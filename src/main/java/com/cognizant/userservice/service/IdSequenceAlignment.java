@@ -0,0 +1,105 @@
+package com.cognizant.userservice.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Field;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.Locale;
+
+/**
+ * Moves the ID sequences of a schema that used AUTO_INCREMENT ids past the rows already in it.
+ * <p>
+ * On databases without native sequences, such as MySQL, Hibernate keeps each {@link SequenceGenerator} in a table of
+ * the same name holding the next value in {@value #VALUE_COLUMN}. When such a table is created for an existing
+ * AUTO_INCREMENT table it starts at 1, and the first inserts would reuse taken ids. At startup, before the web
+ * server accepts requests, every sequence table whose next block of ids could reach {@code MAX(id)} is raised just
+ * above it. The UPDATE only ever raises the value, so instances starting together agree on it. Native sequences
+ * (H2, PostgreSQL) are left alone; they are created at 1 only together with their, then empty, tables.
+ * </p>
+ */
+@Service
+@Slf4j
+public class IdSequenceAlignment implements SmartInitializingSingleton {
+
+    // Column of a table-emulated sequence that holds the next value to hand out
+    static final String VALUE_COLUMN = "next_val";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (EntityType<?> entity : entityManager.getMetamodel().getEntities()) {
+            Field id = sequenceId(entity.getJavaType());
+            if (id != null) {
+                align(entity.getName(), id.getName(), id.getAnnotation(SequenceGenerator.class));
+            }
+        }
+    }
+
+    /**
+     * Raises one sequence table above the ids of its entity.
+     *
+     * @param entityName  the JPQL name of the entity
+     * @param idAttribute the entity's id attribute
+     * @param generator   the entity's sequence
+     * @return {@code true} if the sequence table had to be raised
+     */
+    boolean align(String entityName, String idAttribute, SequenceGenerator generator) {
+        String sequence = generator.sequenceName();
+        if (!isTable(sequence)) {
+            return false;
+        }
+        Long maxId = entityManager.createQuery("select max(e." + idAttribute + ") from " + entityName + " e", Long.class)
+                .getSingleResult();
+        if (maxId == null) {
+            return false;
+        }
+        // The pooled optimizer hands out up to allocationSize ids ending at the value it reads
+        long required = maxId + generator.allocationSize();
+        Long next = jdbcTemplate.queryForObject("select " + VALUE_COLUMN + " from " + sequence, Long.class);
+        if (next != null && next >= required) {
+            return false;
+        }
+        jdbcTemplate.update("update " + sequence + " set " + VALUE_COLUMN + " = ? where " + VALUE_COLUMN + " < ?",
+                required, required);
+        log.warn("Raised sequence table {} from {} to {}, above the largest {} id {}", sequence, next, required,
+                entityName, maxId);
+        return true;
+    }
+
+    // Whether the sequence is emulated with a table rather than being a native sequence
+    private boolean isTable(String sequence) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String name = metaData.storesUpperCaseIdentifiers() ? sequence.toUpperCase(Locale.ROOT) : sequence;
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                return tables.next();
+            }
+        }));
+    }
+
+    // The id field of an entity whose ids come from a @SequenceGenerator, or null
+    private static Field sequenceId(Class<?> entityClass) {
+        for (Field field : entityClass.getDeclaredFields()) {
+            if (field.isAnnotationPresent(Id.class) && field.isAnnotationPresent(SequenceGenerator.class)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
@@ -1,30 +1,105 @@
 package com.cognizant.userservice.service;
 
+import com.cognizant.userservice.model.UserPrincipal;
+import com.cognizant.userservice.model.VerifiedToken;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Service
+@Slf4j
 public class JwtService {
-    // Secret Key
-    @Value("${application.security.jwt.secret-key}")
+    // Legacy HS256 secret; only used to verify tokens issued before RS256 signing was introduced
+    @Value("${application.security.jwt.secret-key:}")
     private String secretKey;
 
+    // Whether tokens without a kid header (legacy HS256) are still accepted; needs the secret
+    @Value("${application.security.jwt.legacy-hs256-verification:false}")
+    private boolean legacyVerification;
+
     // How long JWT token will be valid
     @Value("${application.security.jwt.expiration}")
     private long jwtExpiration;
 
+    // Already-verified tokens, so repeat requests with the same token skip the signature check
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    // RSA keys: the active one signs, all of them verify (published at /.well-known/jwks.json)
+    @Autowired
+    private JwtSigningKeys signingKeys;
+
+    // HMAC key decoded once from the legacy secret, null unless legacy verification is on
+    private Key legacyKey;
+
+    // Thread-safe parser reused for every verification instead of being rebuilt per call
+    private JwtParser jwtParser;
+
+    // Builds the parser once, after the properties have been injected, and drops results of the previous one
+    @PostConstruct
+    void init() {
+        if (legacyVerification && (secretKey == null || secretKey.isBlank())) {
+            throw new IllegalStateException("application.security.jwt.legacy-hs256-verification is on but no "
+                    + "application.security.jwt.secret-key is configured");
+        }
+        this.legacyKey = legacyVerification ? getSignInKey() : null;
+        this.jwtParser = Jwts
+                .parserBuilder()
+                .setSigningKeyResolver(new KeyIdResolver()) // Pick the verification key from the token's kid header
+                .build();
+        // Tokens verified under the old settings, e.g. legacy HS256 ones, must not outlive them in the cache
+        verifiedTokenCache.invalidateAll();
+    }
+
+    /**
+     * Parses the token and checks its signature and expiry exactly once.
+     * Callers should use the returned object for every further decision about the request
+     * instead of extracting individual claims from the raw token again.
+     * Tokens that were verified earlier are served from {@link VerifiedTokenCache} without
+     * repeating the HMAC check.
+     *
+     * @param token the compact JWT taken from the request
+     * @return the verified token, or empty if the token is malformed, tampered with or expired
+     */
+    public Optional<VerifiedToken> verifyToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        VerifiedToken cached = verifiedTokenCache.getIfPresent(token);
+        if (cached != null && !cached.isExpiredAt(Instant.now())) {
+            return Optional.of(cached);
+        }
+        try {
+            VerifiedToken verified = VerifiedToken.from(extractAllClaims(token));
+            verifiedTokenCache.put(token, verified);
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.debug("JWT verification failed: {}", ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
     // Extracts Username from JWT token
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -36,9 +111,14 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
-    // Generates token with no extra claims
+    // Generates token carrying the user's ID and role so requests can be authenticated without a DB lookup
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> identityClaims = new HashMap<>();
+        if (userDetails instanceof UserPrincipal userPrincipal) {
+            identityClaims.put(VerifiedToken.CLAIM_USER_ID, userPrincipal.getUserId());
+            identityClaims.put(VerifiedToken.CLAIM_ROLE, userPrincipal.getRole().name());
+        }
+        return generateToken(identityClaims, userDetails);
     }
 
     // Generates Token with extra Claims
@@ -49,45 +129,34 @@ public class JwtService {
         // Build the token with claims, subject (username), issue date, expiration date, and sign it.
         return Jwts
                 .builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKeys.getActiveKeyId()) // Tells verifiers which public key to use
                 .setClaims(extraClaims) // Any extra info you want to put in the token
                 .setSubject(userDetails.getUsername()) // The person the token is about
                 .setIssuedAt(new Date(System.currentTimeMillis())) // When the token was created
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration)) // When the token expires
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256) // Sign the token with our secret key
+                .signWith(signingKeys.getSigningKey(), SignatureAlgorithm.RS256) // Sign the token with the active private key
                 .compact(); // Build the final token string
     }
 
-    // Validating the Token
+    // Validating the Token; signature and expiry are both checked by a single parse
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    // Checking if the token is expired
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    // Extracting the expiration
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verifyToken(token)
+                .map(verified -> userDetails.getUsername().equals(verified.getUsername()))
+                .orElse(false);
     }
 
     // Core method to reading Token's Claims
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey()) // Use our secret key to verify the token's signature
-                .build()
-                .parseClaimsJws(token) // Parse the token
+        return jwtParser
+                .parseClaimsJws(token) // Parse the token and verify its signature and expiry
                 .getBody(); // Get the claims (the data inside the token)
     }
 
     /**
-     * Converts a base64-encoded secret key into a Key object.
-     * This key is used for securely signing and verifying JWTs.
+     * Converts the base64-encoded legacy secret into a Key object.
+     * This key only verifies HS256 tokens issued before the switch to RS256.
      *
-     * @return The signing key used for JWT encryption.
+     * @return The HMAC key for legacy tokens.
      */
     private Key getSignInKey() {
         // Decode the base64-encoded secret key into a byte array
@@ -97,4 +166,27 @@ public class JwtService {
         return Keys.hmacShaKeyFor(keyBytes);
     }
 
+    /**
+     * Chooses the verification key from the token header: the RSA public key named by {@code kid},
+     * or the legacy HMAC key for tokens without one. The parser still checks that the header's
+     * algorithm fits the key type, so an HS256 token cannot be verified against a public key.
+     */
+    private class KeyIdResolver extends SigningKeyResolverAdapter {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            String kid = header.getKeyId();
+            if (kid == null) {
+                if (!legacyVerification) {
+                    throw new UnsupportedJwtException("Token has no kid header");
+                }
+                return legacyKey;
+            }
+            Key key = signingKeys.getVerificationKey(kid);
+            if (key == null) {
+                throw new UnsupportedJwtException("Unknown signing key: " + kid);
+            }
+            return key;
+        }
+    }
+
 }
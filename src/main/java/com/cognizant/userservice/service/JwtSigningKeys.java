@@ -0,0 +1,209 @@
+package com.cognizant.userservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * RSA key set used to sign and verify JWTs (RS256).
+ * <p>
+ * Keys are read from {@code application.security.jwt.keys.directory}. Every {@code <kid>.key} file
+ * (PKCS#8 PEM private key) is a signing-capable key, and every {@code <kid>.pub} file (X.509 PEM public key)
+ * is a verify-only key, typically a retired key whose tokens have not expired yet. The file name without
+ * extension becomes the {@code kid} header. One private key signs new tokens: the one named by
+ * {@code active-kid}, or the last one in name order. All keys verify, so rotating means adding the new key,
+ * switching {@code active-kid}, and removing the old key once its tokens have expired.
+ * </p>
+ * <p>
+ * Without a directory an ephemeral key pair is generated at startup, but only under the {@value #DEV_PROFILE}
+ * profile: tokens signed with it do not survive a restart and other instances cannot verify them. Under any other
+ * profile a missing directory fails startup.
+ * </p>
+ */
+@Component
+@Slf4j
+public class JwtSigningKeys {
+
+    private static final String PRIVATE_KEY_SUFFIX = ".key";
+
+    private static final String PUBLIC_KEY_SUFFIX = ".pub";
+
+    static final String DEV_PROFILE = "dev";
+
+    private final String activeKeyId;
+
+    private final PrivateKey signingKey;
+
+    private final Map<String, RSAPublicKey> verificationKeys;
+
+    @Autowired
+    public JwtSigningKeys(
+            @Value("${application.security.jwt.keys.directory:}") String directory,
+            @Value("${application.security.jwt.keys.active-kid:}") String activeKid,
+            Environment environment) {
+        this(directory, activeKid, environment.acceptsProfiles(Profiles.of(DEV_PROFILE)));
+    }
+
+    JwtSigningKeys(String directory, String activeKid, boolean allowEphemeralKey) {
+        TreeMap<String, PrivateKey> privateKeys = new TreeMap<>();
+        Map<String, RSAPublicKey> publicKeys = new TreeMap<>();
+        if (directory == null || directory.isBlank()) {
+            if (!allowEphemeralKey) {
+                throw new IllegalStateException("No JWT key directory configured (application.security.jwt.keys.directory); "
+                        + "an ephemeral key is only used under the '" + DEV_PROFILE + "' profile");
+            }
+            String kid = "ephemeral-" + LocalDate.now() + "-" + UUID.randomUUID().toString().substring(0, 8);
+            KeyPair keyPair = generateKeyPair();
+            privateKeys.put(kid, keyPair.getPrivate());
+            publicKeys.put(kid, (RSAPublicKey) keyPair.getPublic());
+            log.warn("No JWT key directory configured; signing with ephemeral key '{}'. Tokens will not survive a restart.", kid);
+        } else {
+            loadDirectory(Path.of(directory), privateKeys, publicKeys);
+        }
+        if (privateKeys.isEmpty()) {
+            throw new IllegalStateException("No JWT signing key (*" + PRIVATE_KEY_SUFFIX + ") found in " + directory);
+        }
+
+        String kid = activeKid == null || activeKid.isBlank()
+                ? privateKeys.lastKey()
+                : activeKid;
+        if (!privateKeys.containsKey(kid)) {
+            throw new IllegalStateException("Active JWT key '" + kid + "' has no private key");
+        }
+        this.activeKeyId = kid;
+        this.signingKey = privateKeys.get(kid);
+        this.verificationKeys = Collections.unmodifiableMap(new LinkedHashMap<>(publicKeys));
+        log.info("JWT signing key '{}' active; {} key(s) accepted for verification", activeKeyId, verificationKeys.size());
+    }
+
+    /**
+     * Returns the {@code kid} of the key that signs new tokens.
+     *
+     * @return the active key ID
+     */
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    /**
+     * Returns the private key that signs new tokens.
+     *
+     * @return the active signing key
+     */
+    public PrivateKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * Looks up the public key for a token's {@code kid} header.
+     *
+     * @param kid the key ID from the token header
+     * @return the matching public key, or {@code null} if the key is unknown
+     */
+    public PublicKey getVerificationKey(String kid) {
+        return kid == null ? null : verificationKeys.get(kid);
+    }
+
+    /**
+     * Describes every verification key as a JSON Web Key (RFC 7517), for publishing at the JWKS endpoint.
+     *
+     * @return one map per key with {@code kty}, {@code kid}, {@code use}, {@code alg}, {@code n} and {@code e}
+     */
+    public List<Map<String, String>> toJwks() {
+        List<Map<String, String>> keys = new ArrayList<>();
+        verificationKeys.forEach((kid, key) -> {
+            Map<String, String> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            jwk.put("alg", "RS256");
+            jwk.put("n", base64Url(key.getModulus()));
+            jwk.put("e", base64Url(key.getPublicExponent()));
+            keys.add(jwk);
+        });
+        return keys;
+    }
+
+    private static void loadDirectory(Path directory, Map<String, PrivateKey> privateKeys, Map<String, RSAPublicKey> publicKeys) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(PRIVATE_KEY_SUFFIX)) {
+                    String kid = name.substring(0, name.length() - PRIVATE_KEY_SUFFIX.length());
+                    RSAPrivateCrtKey privateKey = (RSAPrivateCrtKey) KeyFactory.getInstance("RSA")
+                            .generatePrivate(new PKCS8EncodedKeySpec(readPem(file)));
+                    privateKeys.put(kid, privateKey);
+                    publicKeys.put(kid, (RSAPublicKey) KeyFactory.getInstance("RSA")
+                            .generatePublic(new RSAPublicKeySpec(privateKey.getModulus(), privateKey.getPublicExponent())));
+                } else if (name.endsWith(PUBLIC_KEY_SUFFIX)) {
+                    String kid = name.substring(0, name.length() - PUBLIC_KEY_SUFFIX.length());
+                    publicKeys.putIfAbsent(kid, (RSAPublicKey) KeyFactory.getInstance("RSA")
+                            .generatePublic(new X509EncodedKeySpec(readPem(file))));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read JWT keys from " + directory, e);
+        } catch (GeneralSecurityException | ClassCastException e) {
+            throw new IllegalStateException("Invalid RSA key in " + directory, e);
+        }
+    }
+
+    // Strips the PEM armour and decodes the base64 body
+    private static byte[] readPem(Path file) throws IOException {
+        String pem = Files.readString(file, StandardCharsets.US_ASCII);
+        String body = pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(body);
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("RSA key generation is not available", e);
+        }
+    }
+
+    // JWK integers are unsigned big-endian, so drop the sign byte BigInteger may prepend
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            bytes = unsigned;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
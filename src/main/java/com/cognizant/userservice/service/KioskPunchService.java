@@ -0,0 +1,205 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.PunchDirection;
+import com.cognizant.userservice.dto.PunchRequest;
+import com.cognizant.userservice.dto.PunchResult;
+import com.cognizant.userservice.exception.ActiveAttendanceExistsException;
+import com.cognizant.userservice.exception.InvalidPunchBatchException;
+import com.cognizant.userservice.exception.NoActiveAttendanceException;
+import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.PunchEvent;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies batches of badge punches collected by lobby kiosks.
+ * <p>
+ * A batch costs a fixed number of queries however many punches it holds: one to resolve all users, one to load
+ * their open sessions, one to load their closed sessions in the batch's time range, and JDBC-batched writes for the
+ * punch events and the sessions they open and close. Punches are applied in timestamp order with the same rules as
+ * {@link AttendanceService#checkIn} and {@link AttendanceService#checkOut}: at most one open session per user, and a
+ * check-out needs an open session that started before it. Since kiosks submit punches after the fact, a punch may
+ * also not lie in the future, fall inside an existing closed session, or close a session that would overlap one.
+ * A punch that breaks a rule is reported as rejected without affecting the rest of the batch.
+ * </p>
+ */
+@Service
+@Slf4j
+public class KioskPunchService {
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ActiveSessionIndex activeSessionIndex;
+
+    @Autowired
+    private AttendanceProjector attendanceProjector;
+
+    // Largest batch accepted in one request
+    @Value("${application.attendance.kiosk.max-batch-size}")
+    private int maxBatchSize;
+
+    // How far a kiosk clock may run ahead of this server before its punches count as in the future
+    @Value("${application.attendance.kiosk.max-clock-skew}")
+    private Duration maxClockSkew;
+
+    /**
+     * Applies a batch of punches in one transaction.
+     *
+     * @param punches the punches, in any order
+     * @return one result per punch, in the order the punches were submitted
+     * @throws InvalidPunchBatchException      if the batch is empty or larger than the configured maximum
+     * @throws ActiveAttendanceExistsException if a user checked in through another channel while the batch was
+     *                                         being applied; nothing from the batch is stored and it can be resubmitted
+     */
+    @Transactional
+    public List<PunchResult> applyPunches(List<PunchRequest> punches) {
+        if (punches == null || punches.isEmpty()) {
+            throw new InvalidPunchBatchException("Punch batch is empty.");
+        }
+        if (punches.size() > maxBatchSize) {
+            throw new InvalidPunchBatchException(String.format(
+                    "Punch batch has %d punches; at most %d are accepted per request.", punches.size(), maxBatchSize));
+        }
+        log.info("Applying batch of {} punches", punches.size());
+
+        PunchResult[] results = new PunchResult[punches.size()];
+        List<Integer> pending = new ArrayList<>(punches.size());
+        LocalDateTime latest = LocalDateTime.now().plus(maxClockSkew);
+        for (int i = 0; i < punches.size(); i++) {
+            PunchRequest punch = punches.get(i);
+            if (punch == null || punch.getUserId() == null || punch.getTimestamp() == null || punch.getDirection() == null) {
+                results[i] = rejected(i, punch, "userId, timestamp and direction are required.");
+            } else if (punch.getTimestamp().isAfter(latest)) {
+                results[i] = rejected(i, punch, "Punch timestamp is in the future.");
+            } else {
+                pending.add(i);
+            }
+        }
+
+        // Resolve every user, their open session and their closed sessions up front: three queries for the whole batch.
+        // The closed sessions are those from the earliest open session or punch on, which any punch here could overlap.
+        Set<Long> userIds = new HashSet<>();
+        LocalDateTime from = LocalDateTime.MAX;
+        LocalDateTime to = LocalDateTime.MIN;
+        for (int i : pending) {
+            PunchRequest punch = punches.get(i);
+            userIds.add(punch.getUserId());
+            from = punch.getTimestamp().isBefore(from) ? punch.getTimestamp() : from;
+            to = punch.getTimestamp().isAfter(to) ? punch.getTimestamp() : to;
+        }
+        Set<Long> existingUserIds = userIds.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingIds(userIds));
+        List<Attendance> openSessions = existingUserIds.isEmpty() ? List.of()
+                : attendanceRepository.findOpenSessionsForUsers(existingUserIds);
+        for (Attendance open : openSessions) {
+            from = open.getCheckInTime().isBefore(from) ? open.getCheckInTime() : from;
+        }
+        AttendanceProjector.Batch batch = attendanceProjector.batch(openSessions, PunchEvent.Source.KIOSK);
+        Map<Long, List<Attendance>> closedSessions = new HashMap<>();
+        if (!existingUserIds.isEmpty()) {
+            attendanceRepository.findClosedSessionsOverlapping(existingUserIds, from, to)
+                    .forEach(attendance -> closedSessions.computeIfAbsent(attendance.getUser().getId(), id -> new ArrayList<>()).add(attendance));
+        }
+
+        // A stable sort keeps submission order for punches with the same timestamp.
+        pending.sort(Comparator.comparing(i -> punches.get(i).getTimestamp()));
+
+        Map<Integer, Attendance> applied = new LinkedHashMap<>();
+        for (int i : pending) {
+            PunchRequest punch = punches.get(i);
+            Long userId = punch.getUserId();
+            if (!existingUserIds.contains(userId)) {
+                results[i] = rejected(i, punch, "User not found with ID: " + userId);
+                continue;
+            }
+            LocalDateTime timestamp = punch.getTimestamp();
+            List<Attendance> closed = closedSessions.computeIfAbsent(userId, id -> new ArrayList<>());
+            if (closed.stream().anyMatch(session -> !timestamp.isBefore(session.getCheckInTime())
+                    && !timestamp.isAfter(session.getCheckOutTime()))) {
+                results[i] = rejected(i, punch, "Punch falls inside an existing session.");
+                continue;
+            }
+            Attendance open = batch.openSession(userId);
+            if (punch.getDirection() == PunchDirection.IN) {
+                if (open != null) {
+                    results[i] = rejected(i, punch, ActiveAttendanceExistsException.ALREADY_CHECKED_IN.getMessage());
+                    continue;
+                }
+                applied.put(i, batch.checkIn(userId, timestamp));
+            } else {
+                if (open == null) {
+                    results[i] = rejected(i, punch, NoActiveAttendanceException.NOT_CHECKED_IN.getMessage());
+                    continue;
+                }
+                if (timestamp.isBefore(open.getCheckInTime())) {
+                    results[i] = rejected(i, punch, "Check-out failed: Punch is earlier than the open check-in.");
+                    continue;
+                }
+                if (closed.stream().anyMatch(session -> !session.getCheckInTime().isAfter(timestamp)
+                        && !session.getCheckOutTime().isBefore(open.getCheckInTime()))) {
+                    results[i] = rejected(i, punch, "Check-out failed: The session would overlap an existing session.");
+                    continue;
+                }
+                Attendance session = batch.checkOut(userId, timestamp);
+                closed.add(session);
+                applied.put(i, session);
+            }
+        }
+
+        try {
+            batch.write();
+        } catch (DataIntegrityViolationException ex) {
+            if (!AttendanceService.isOpenSessionViolation(ex)) {
+                throw ex;
+            }
+            log.warn("Punch batch conflicts with a concurrent check-in; rolling back the batch.");
+            throw new ActiveAttendanceExistsException(
+                    "Punch batch conflicts with a check-in made while it was being applied; submit the batch again.");
+        }
+
+        Set<Long> changedUserIds = new HashSet<>();
+        applied.forEach((i, attendance) -> {
+            results[i] = new PunchResult(i, punches.get(i).getUserId(), punches.get(i).getDirection(),
+                    PunchResult.Status.APPLIED, null, attendance.getId());
+            changedUserIds.add(punches.get(i).getUserId());
+        });
+        for (Long userId : changedUserIds) {
+            Attendance open = batch.openSession(userId);
+            if (open != null) {
+                activeSessionIndex.recordCheckIn(userId, open.getId(), open.getCheckInTime());
+            } else {
+                activeSessionIndex.recordCheckOut(userId);
+            }
+        }
+
+        log.info("Punch batch done: {} applied, {} rejected", applied.size(), punches.size() - applied.size());
+        return Arrays.asList(results);
+    }
+
+    private static PunchResult rejected(int index, PunchRequest punch, String message) {
+        return new PunchResult(index, punch != null ? punch.getUserId() : null, punch != null ? punch.getDirection() : null,
+                PunchResult.Status.REJECTED, message, null);
+    }
+}
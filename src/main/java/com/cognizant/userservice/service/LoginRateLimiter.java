@@ -0,0 +1,123 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.exception.LoginThrottledException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process limiter for login attempts, applied before any password hashing.
+ * <p>
+ * Each username and each client address gets its own token bucket. A bucket holds up to
+ * {@code capacity} attempts and refills completely over {@code refill-period}. Buckets are lock-free:
+ * the whole state is a single timestamp updated with compare-and-set (the generic cell rate form of a
+ * token bucket), so concurrent attempts never block each other. Buckets that have been idle for a full
+ * refill period are full again and are evicted, which keeps memory bounded by the number of recently
+ * active keys and by {@code max-tracked-keys}.
+ * </p>
+ */
+@Service
+@Slf4j
+public class LoginRateLimiter {
+
+    private final BucketGroup usernameBuckets;
+
+    private final BucketGroup addressBuckets;
+
+    public LoginRateLimiter(
+            @Value("${application.security.login-throttle.username.capacity}") int usernameCapacity,
+            @Value("${application.security.login-throttle.username.refill-period}") Duration usernameRefillPeriod,
+            @Value("${application.security.login-throttle.ip.capacity}") int addressCapacity,
+            @Value("${application.security.login-throttle.ip.refill-period}") Duration addressRefillPeriod,
+            @Value("${application.security.login-throttle.max-tracked-keys}") long maxTrackedKeys,
+            MeterRegistry meterRegistry) {
+        this.usernameBuckets = new BucketGroup("username", usernameCapacity, usernameRefillPeriod, maxTrackedKeys, meterRegistry);
+        this.addressBuckets = new BucketGroup("ip", addressCapacity, addressRefillPeriod, maxTrackedKeys, meterRegistry);
+    }
+
+    /**
+     * Consumes one login attempt for the client address and the username.
+     *
+     * @param username      the username being logged in to
+     * @param remoteAddress the address the request came from
+     * @throws LoginThrottledException if either bucket is empty
+     */
+    public void checkAttempt(String username, String remoteAddress) {
+        addressBuckets.acquire(remoteAddress == null ? "" : remoteAddress);
+        usernameBuckets.acquire(username == null ? "" : username.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Buckets of one kind (per username or per address) sharing the same limits.
+     */
+    private static final class BucketGroup {
+
+        private final String kind;
+
+        private final long emissionIntervalNanos;
+
+        private final long burstToleranceNanos;
+
+        private final Cache<String, Bucket> buckets;
+
+        private final Counter throttled;
+
+        BucketGroup(String kind, int capacity, Duration refillPeriod, long maxTrackedKeys, MeterRegistry meterRegistry) {
+            this.kind = kind;
+            this.emissionIntervalNanos = Math.max(1, refillPeriod.toNanos() / Math.max(1, capacity));
+            this.burstToleranceNanos = emissionIntervalNanos * (Math.max(1, capacity) - 1);
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxTrackedKeys)
+                    .expireAfterAccess(refillPeriod)
+                    .build();
+            this.throttled = Counter.builder("auth.login.throttled")
+                    .description("Login attempts rejected before password verification")
+                    .tag("key", kind)
+                    .register(meterRegistry);
+        }
+
+        void acquire(String key) {
+            long waitNanos = buckets.get(key, k -> new Bucket()).tryAcquire(emissionIntervalNanos, burstToleranceNanos);
+            if (waitNanos > 0) {
+                throttled.increment();
+                log.warn("Login attempt throttled for {} '{}'", kind, key);
+                long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+                throw new LoginThrottledException("Too many login attempts, please try again later", retryAfterSeconds);
+            }
+        }
+    }
+
+    /**
+     * Lock-free token bucket. {@code theoreticalArrival} is the time at which the bucket would be full again;
+     * an attempt is allowed while that time is at most the burst tolerance ahead of now.
+     */
+    private static final class Bucket {
+
+        private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+        // Returns 0 if a token was taken, otherwise how many nanoseconds until the next one is available
+        long tryAcquire(long emissionIntervalNanos, long burstToleranceNanos) {
+            while (true) {
+                long now = System.nanoTime();
+                long current = theoreticalArrival.get();
+                long base = current - now > 0 ? current : now;
+                long allowedAt = base - burstToleranceNanos;
+                if (allowedAt - now > 0) {
+                    return allowedAt - now;
+                }
+                if (theoreticalArrival.compareAndSet(current, base + emissionIntervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -3,12 +3,25 @@ package com.cognizant.userservice.service;
 import com.cognizant.userservice.model.User;
 import com.cognizant.userservice.model.UserPrincipal;
 import com.cognizant.userservice.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.Optional;
 
 /**
@@ -16,19 +29,59 @@ import java.util.Optional;
  * This service is responsible for retrieving user details required for authentication,
  * wrapping the user data inside a {@link UserPrincipal} which encapsulates the necessary
  * information such as password and granted authorities.
+ * <p>
+ * Loaded principals are kept in a bounded, time-limited cache. {@link UserService} evicts
+ * the affected entry whenever a user is created, updated or deleted.
+ * </p>
+ * <p>
+ * It also implements {@link UserDetailsPasswordService} so that Spring Security can store a rehashed
+ * password after a successful login whose stored hash uses an outdated work factor.
+ * </p>
  */
 @Service
-public class MyUserDetailsService implements UserDetailsService {
+@Slf4j
+public class MyUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    static final String CACHE_NAME = "users.principals";
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${application.security.user-cache.max-size}")
+    private long cacheMaxSize;
+
+    @Value("${application.security.user-cache.ttl}")
+    private Duration cacheTtl;
+
+    private Cache<String, UserPrincipal> principalCache;
+
+    /**
+     * Builds the principal cache and publishes its size and hit ratio.
+     */
+    @PostConstruct
+    void initCache() {
+        principalCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principalCache, CACHE_NAME);
+        Gauge.builder("cache.hit.ratio", principalCache, cache -> cache.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .description("Fraction of principal lookups served from memory")
+                .register(meterRegistry);
+    }
+
     /**
      * Loads the user details for Spring Security based on the provided username.
      * <p>
      * This method retrieves the {@link User} entity from the {@link UserRepository} and,
      * if found, wraps it inside a {@link UserPrincipal} which implements {@link UserDetails}.
-     * If the user is not found, a {@link UsernameNotFoundException} is thrown.
+     * Repeat lookups are served from the principal cache. If the user is not found,
+     * a {@link UsernameNotFoundException} is thrown; misses are never cached.
      * </p>
      *
      * @param username the username identifying the user whose data is required
@@ -37,12 +90,60 @@ public class MyUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserPrincipal cached = principalCache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+
         Optional<User> userOptional = userRepository.findByUsername(username);
 
         if (userOptional.isEmpty()) {
             throw new UsernameNotFoundException("User not found with username: " + username);
         }
-        
-        return new UserPrincipal(userOptional.get());
+
+        UserPrincipal principal = new UserPrincipal(userOptional.get());
+        principalCache.put(username, principal);
+        return principal;
+    }
+
+    /**
+     * Stores a password that Spring Security re-encoded after a successful login because the old hash
+     * used an outdated work factor.
+     *
+     * @param user        the authenticated user whose hash is being upgraded
+     * @param newPassword the password encoded with the current work factor
+     * @return the user details reloaded with the new hash
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        evict(user.getUsername());
+        log.info("Rehashed stored password for user '{}' with the current work factor", user.getUsername());
+        return loadUserByUsername(user.getUsername());
+    }
+
+    /**
+     * Removes the cached principal for a user whose stored data has changed.
+     * <p>
+     * The entry is dropped immediately and, when called inside a transaction, dropped again after commit
+     * so that a lookup racing with the transaction cannot re-cache the old row.
+     * </p>
+     *
+     * @param username the username whose cached principal is stale
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        principalCache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    principalCache.invalidate(username);
+                }
+            });
+        }
     }
 }
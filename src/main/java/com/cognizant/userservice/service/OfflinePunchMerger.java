@@ -0,0 +1,180 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.PunchDirection;
+import com.cognizant.userservice.dto.SyncPunch;
+import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.PunchEvent;
+import com.cognizant.userservice.model.PunchReceipt;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.PunchReceiptRepository;
+import com.cognizant.userservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges one chunk of offline punches into the punch log and {@code attendance_tbl}, for {@link OfflinePunchSyncService}.
+ * <p>
+ * The chunk's punches are sorted per user by timestamp and replayed against the users' current sessions:
+ * an IN opens a session, an OUT closes the open session it follows. A punch that falls inside an existing
+ * closed session is rejected, and so is an OUT whose session would enclose or overlap one. A punch that cannot be matched yet (an OUT whose IN is still to come, or an IN
+ * while an earlier session is still open) is handed back as deferred, so it can be retried with the next chunk
+ * of the same upload; on the final chunk it is rejected instead.
+ * Each chunk is one transaction with a fixed number of queries, and records a {@link PunchReceipt} for
+ * every punch it applies.
+ * </p>
+ */
+@Service
+@Slf4j
+public class OfflinePunchMerger {
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PunchReceiptRepository punchReceiptRepository;
+
+    @Autowired
+    private ActiveSessionIndex activeSessionIndex;
+
+    @Autowired
+    private AttendanceProjector attendanceProjector;
+
+    /**
+     * The outcome of merging one chunk.
+     *
+     * @param appliedClientIds the client IDs of the punches that were applied
+     * @param rejected         the number of punches that were rejected
+     * @param deferred         the punches that could not be matched yet, to be retried with the next chunk
+     */
+    public record Outcome(List<String> appliedClientIds, int rejected, List<SyncPunch> deferred) {
+    }
+
+    /**
+     * Merges a chunk of valid, not yet applied punches.
+     *
+     * @param punches   the punches; every field is set and no client ID has a receipt
+     * @param lastChunk whether this is the last chunk of the upload, in which case nothing is deferred
+     * @return which punches were applied, rejected and deferred
+     */
+    @Transactional
+    public Outcome merge(List<SyncPunch> punches, boolean lastChunk) {
+        Set<Long> userIds = new HashSet<>();
+        LocalDateTime from = LocalDateTime.MAX;
+        LocalDateTime to = LocalDateTime.MIN;
+        for (SyncPunch punch : punches) {
+            userIds.add(punch.getUserId());
+            from = punch.getTimestamp().isBefore(from) ? punch.getTimestamp() : from;
+            to = punch.getTimestamp().isAfter(to) ? punch.getTimestamp() : to;
+        }
+
+        // The chunk's users, their open sessions and their closed sessions in the chunk's time range: three queries.
+        // The range starts at the earliest open session, which an OUT in the chunk may close.
+        // The open sessions stay locked until the chunk commits, so a live web or kiosk check-out of one of them waits
+        // and then finds it closed, and only one side writes its rollup and CHECK_OUT event.
+        Set<Long> existingUserIds = userIds.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingIds(userIds));
+        List<Attendance> openSessions = existingUserIds.isEmpty() ? List.of()
+                : attendanceRepository.findOpenSessionsForUsers(existingUserIds);
+        for (Attendance open : openSessions) {
+            from = open.getCheckInTime().isBefore(from) ? open.getCheckInTime() : from;
+        }
+        AttendanceProjector.Batch batch = attendanceProjector.batch(openSessions, PunchEvent.Source.OFFLINE_SYNC);
+        Map<Long, List<Attendance>> closedSessions = new HashMap<>();
+        if (!existingUserIds.isEmpty()) {
+            attendanceRepository.findClosedSessionsOverlapping(existingUserIds, from, to)
+                    .forEach(attendance -> closedSessions.computeIfAbsent(attendance.getUser().getId(), id -> new ArrayList<>()).add(attendance));
+        }
+
+        List<SyncPunch> sorted = new ArrayList<>(punches);
+        sorted.sort(Comparator.comparing(SyncPunch::getUserId).thenComparing(SyncPunch::getTimestamp));
+
+        Map<SyncPunch, Attendance> applied = new IdentityHashMap<>();
+        Set<Long> changedUserIds = new HashSet<>();
+        List<SyncPunch> deferred = new ArrayList<>();
+        int rejected = 0;
+        for (SyncPunch punch : sorted) {
+            Long userId = punch.getUserId();
+            LocalDateTime timestamp = punch.getTimestamp();
+            if (!existingUserIds.contains(userId)) {
+                log.debug("Rejecting offline punch {}: user {} not found", punch.getClientId(), userId);
+                rejected++;
+                continue;
+            }
+            List<Attendance> closed = closedSessions.computeIfAbsent(userId, id -> new ArrayList<>());
+            if (closed.stream().anyMatch(session -> !timestamp.isBefore(session.getCheckInTime())
+                    && !timestamp.isAfter(session.getCheckOutTime()))) {
+                log.debug("Rejecting offline punch {}: it falls inside an existing session", punch.getClientId());
+                rejected++;
+                continue;
+            }
+
+            Attendance open = batch.openSession(userId);
+            boolean matched;
+            if (punch.getDirection() == PunchDirection.IN) {
+                matched = open == null;
+                if (matched) {
+                    applied.put(punch, batch.checkIn(userId, timestamp));
+                }
+            } else {
+                matched = open != null && !timestamp.isBefore(open.getCheckInTime());
+                if (matched && closed.stream().anyMatch(session -> !session.getCheckInTime().isAfter(timestamp)
+                        && !session.getCheckOutTime().isBefore(open.getCheckInTime()))) {
+                    log.debug("Rejecting offline punch {}: its session would overlap an existing session", punch.getClientId());
+                    rejected++;
+                    continue;
+                }
+                if (matched) {
+                    closed.add(batch.checkOut(userId, timestamp));
+                    applied.put(punch, open);
+                }
+            }
+
+            if (matched) {
+                changedUserIds.add(userId);
+            } else if (lastChunk) {
+                log.debug("Rejecting offline punch {}: no matching {} punch", punch.getClientId(),
+                        punch.getDirection() == PunchDirection.IN ? "OUT" : "IN");
+                rejected++;
+            } else {
+                deferred.add(punch);
+            }
+        }
+
+        batch.write();
+
+        LocalDateTime receivedAt = LocalDateTime.now();
+        List<PunchReceipt> receipts = new ArrayList<>(applied.size());
+        List<String> appliedClientIds = new ArrayList<>(applied.size());
+        applied.forEach((punch, attendance) -> {
+            receipts.add(new PunchReceipt(punch.getClientId(), punch.getUserId(), attendance.getId(), receivedAt));
+            appliedClientIds.add(punch.getClientId());
+        });
+        // A receipt written concurrently by another upload of the same punch fails this flush and rolls the chunk back.
+        punchReceiptRepository.saveAll(receipts);
+        punchReceiptRepository.flush();
+
+        for (Long userId : changedUserIds) {
+            Attendance open = batch.openSession(userId);
+            if (open != null) {
+                activeSessionIndex.recordCheckIn(userId, open.getId(), open.getCheckInTime());
+            } else {
+                activeSessionIndex.recordCheckOut(userId);
+            }
+        }
+        return new Outcome(appliedClientIds, rejected, deferred);
+    }
+}
@@ -0,0 +1,225 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.SyncPunch;
+import com.cognizant.userservice.dto.SyncResult;
+import com.cognizant.userservice.exception.InvalidPunchBatchException;
+import com.cognizant.userservice.repository.PunchReceiptRepository;
+import com.cognizant.userservice.util.BloomFilter;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ingests punches that devices recorded while offline and upload later, possibly out of order and more than once.
+ * <p>
+ * The upload is a JSON array that is read one punch at a time and processed in chunks of
+ * {@code application.attendance.sync.chunk-size}, so memory use does not depend on the size of the upload.
+ * Every punch carries a device-generated client ID. Client IDs that were already applied are skipped: a Bloom
+ * filter over the IDs applied on this instance rules out most new IDs without a query, and only the IDs it
+ * cannot rule out are checked against {@code punch_receipt_tbl} in one query per chunk. Each chunk is merged
+ * into the users' sessions by {@link OfflinePunchMerger} in its own transaction; punches it cannot match yet
+ * are carried into the next chunk, up to one chunk's worth.
+ * </p>
+ */
+@Service
+@Slf4j
+public class OfflinePunchSyncService {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private static final int MAX_CLIENT_ID_LENGTH = 64;
+
+    @Autowired
+    private PunchReceiptRepository punchReceiptRepository;
+
+    @Autowired
+    private OfflinePunchMerger offlinePunchMerger;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Number of punches merged per transaction
+    @Value("${application.attendance.sync.chunk-size}")
+    private int chunkSize;
+
+    // How long receipts are kept; an upload repeated after this is no longer recognised as a duplicate
+    @Value("${application.attendance.sync.receipt-retention}")
+    private Duration receiptRetention;
+
+    // Number of retained receipts the Bloom filter is sized for before its error rate degrades
+    @Value("${application.attendance.sync.expected-receipts}")
+    private int expectedReceipts;
+
+    // Client IDs applied recently; swapped as a whole on rebuild
+    private volatile BloomFilter seenClientIds;
+
+    /**
+     * Loads the retained receipts once the repository is available.
+     */
+    @PostConstruct
+    void init() {
+        rebuildSeenSet();
+    }
+
+    /**
+     * Reads an upload and merges its punches into attendance records.
+     *
+     * @param upload the request body: a JSON array of {@link SyncPunch} objects
+     * @return how many punches were received, skipped as duplicates, applied and rejected
+     * @throws InvalidPunchBatchException if the body is not a JSON array of punches; chunks before the error stay applied
+     * @throws IOException                if the upload cannot be read
+     */
+    public SyncResult sync(InputStream upload) throws IOException {
+        SyncResult result = new SyncResult();
+        List<SyncPunch> chunk = new ArrayList<>(chunkSize);
+        List<SyncPunch> deferred = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(upload)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidPunchBatchException("Sync upload must be a JSON array of punches.");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                chunk.add(objectMapper.readValue(parser, SyncPunch.class));
+                result.setReceived(result.getReceived() + 1);
+                if (chunk.size() == chunkSize) {
+                    deferred = process(chunk, deferred, false, result);
+                    chunk.clear();
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new InvalidPunchBatchException("Sync upload must be a JSON array of punches.");
+            }
+        } catch (JsonProcessingException ex) {
+            throw new InvalidPunchBatchException("Sync upload is not valid JSON: " + ex.getOriginalMessage());
+        }
+        process(chunk, deferred, true, result);
+        log.info("Offline sync done: {} received, {} duplicate(s), {} applied, {} rejected",
+                result.getReceived(), result.getDuplicates(), result.getApplied(), result.getRejected());
+        return result;
+    }
+
+    /**
+     * Deletes receipts past the retention period and rebuilds the seen-set, which cannot forget single IDs.
+     */
+    @Scheduled(fixedDelayString = "${application.attendance.sync.purge-interval}",
+            initialDelayString = "${application.attendance.sync.purge-interval}")
+    public void purgeReceipts() {
+        int purged = punchReceiptRepository.deleteReceivedBefore(LocalDateTime.now().minus(receiptRetention));
+        if (purged > 0) {
+            log.info("Purged {} offline punch receipt(s) past retention", purged);
+        }
+        rebuildSeenSet();
+    }
+
+    // Dedupes and merges one chunk together with the punches deferred by the previous one
+    private List<SyncPunch> process(List<SyncPunch> chunk, List<SyncPunch> deferred, boolean lastChunk, SyncResult result) {
+        List<SyncPunch> fresh = new ArrayList<>(chunk.size());
+        Set<String> chunkClientIds = new HashSet<>();
+        deferred.forEach(punch -> chunkClientIds.add(punch.getClientId()));
+        for (SyncPunch punch : chunk) {
+            if (!isValid(punch)) {
+                result.setRejected(result.getRejected() + 1);
+            } else if (!chunkClientIds.add(punch.getClientId())) {
+                result.setDuplicates(result.getDuplicates() + 1); // Repeated within this part of the upload
+            } else {
+                fresh.add(punch);
+            }
+        }
+
+        List<SyncPunch> candidates = new ArrayList<>(deferred.size() + fresh.size());
+        candidates.addAll(deferred);
+        candidates.addAll(fresh);
+        List<SyncPunch> toMerge = withoutApplied(candidates, false);
+        OfflinePunchMerger.Outcome outcome;
+        try {
+            outcome = merge(toMerge, lastChunk);
+        } catch (DataIntegrityViolationException ex) {
+            // Another upload of the same punches, possibly on another instance, committed first.
+            // Retry once, checking every client ID against the receipts table.
+            log.info("Offline sync chunk conflicted with a concurrent upload; retrying");
+            toMerge = withoutApplied(candidates, true);
+            outcome = merge(toMerge, lastChunk);
+        }
+        result.setDuplicates(result.getDuplicates() + candidates.size() - toMerge.size());
+
+        BloomFilter seen = seenClientIds;
+        outcome.appliedClientIds().forEach(seen::put);
+        result.setApplied(result.getApplied() + outcome.appliedClientIds().size());
+        result.setRejected(result.getRejected() + outcome.rejected());
+
+        List<SyncPunch> carried = outcome.deferred();
+        if (carried.size() > chunkSize) {
+            // Keep memory bounded: give up on the oldest unmatched punches.
+            carried.sort(Comparator.comparing(SyncPunch::getTimestamp));
+            int dropped = carried.size() - chunkSize;
+            result.setRejected(result.getRejected() + dropped);
+            carried = new ArrayList<>(carried.subList(dropped, carried.size()));
+        }
+        return carried;
+    }
+
+    private OfflinePunchMerger.Outcome merge(List<SyncPunch> punches, boolean lastChunk) {
+        if (punches.isEmpty()) {
+            return new OfflinePunchMerger.Outcome(List.of(), 0, new ArrayList<>());
+        }
+        return offlinePunchMerger.merge(punches, lastChunk);
+    }
+
+    // Drops punches that already have a receipt; only IDs the seen-set cannot rule out are queried, unless checkAll
+    private List<SyncPunch> withoutApplied(List<SyncPunch> punches, boolean checkAll) {
+        BloomFilter seen = seenClientIds;
+        List<String> candidates = new ArrayList<>();
+        for (SyncPunch punch : punches) {
+            if (checkAll || seen.mightContain(punch.getClientId())) {
+                candidates.add(punch.getClientId());
+            }
+        }
+        if (candidates.isEmpty()) {
+            return punches;
+        }
+        Set<String> applied = new HashSet<>(punchReceiptRepository.findExistingClientIds(candidates));
+        if (applied.isEmpty()) {
+            return punches;
+        }
+        List<SyncPunch> remaining = new ArrayList<>(punches.size());
+        for (SyncPunch punch : punches) {
+            if (applied.contains(punch.getClientId())) {
+                seen.put(punch.getClientId()); // May have been applied on another instance; remember it here too
+            } else {
+                remaining.add(punch);
+            }
+        }
+        return remaining;
+    }
+
+    private static boolean isValid(SyncPunch punch) {
+        return punch.getClientId() != null && !punch.getClientId().isBlank()
+                && punch.getClientId().length() <= MAX_CLIENT_ID_LENGTH
+                && punch.getUserId() != null && punch.getTimestamp() != null && punch.getDirection() != null;
+    }
+
+    private void rebuildSeenSet() {
+        List<String> retained = punchReceiptRepository.findClientIdsReceivedSince(LocalDateTime.now().minus(receiptRetention));
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedReceipts, retained.size() * 2), FALSE_POSITIVE_PROBABILITY);
+        retained.forEach(rebuilt::put);
+        seenClientIds = rebuilt;
+        log.info("Offline punch seen-set loaded with {} receipt(s)", retained.size());
+    }
+}
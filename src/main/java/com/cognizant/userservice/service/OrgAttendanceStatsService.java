@@ -0,0 +1,290 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.DailyTotalView;
+import com.cognizant.userservice.model.DailyAttendanceRollup;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Weekly and monthly stats for every user, or a chosen set of users, in one request.
+ * <p>
+ * The period is read from {@code daily_attendance_rollup_tbl} once it has been backfilled, otherwise from
+ * {@code attendance_tbl} grouped by user and day in the database: with one range scan for all users, or by user ID,
+ * {@value #IDS_PER_QUERY} users per query, for a chosen set. The per-user stats are then built on
+ * the common fork/join pool, {@value #USERS_PER_TASK} users per task, in the same shape as the single-user stats;
+ * users without closed sessions in the period get zero totals. The org totals are the stats of all selected users'
+ * days added together. {@link #write(OrgStats, OutputStream)} streams the result as JSON, user by user.
+ * </p>
+ */
+@Service
+@Slf4j
+public class OrgAttendanceStatsService {
+
+    // Users whose stats one fork/join task builds without splitting further
+    static final int USERS_PER_TASK = 256;
+
+    // Users written between flushes of the response stream
+    private static final int USERS_PER_FLUSH = 500;
+
+    // Selected user IDs bound into one query, well below the parameter limits of the supported databases
+    static final int IDS_PER_QUERY = 1000;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private DailyRollupMaintenance dailyRollupMaintenance;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * One user's stats for the period.
+     *
+     * @param userId the user
+     * @param stats  the stats, shaped like those of the single-user stats endpoints
+     */
+    public record UserStats(Long userId, Map<String, Object> stats) {
+    }
+
+    /**
+     * The stats of all selected users for one period.
+     *
+     * @param period the length of the period
+     * @param from   the first day of the period
+     * @param to     the last day of the period, inclusive
+     * @param users  the stats of each selected user, in user ID order
+     * @param totals the stats of all selected users together, plus their number as {@code totalUsers}
+     */
+    public record OrgStats(AttendanceStatsCache.Period period, LocalDate from, LocalDate to,
+                           List<UserStats> users, Map<String, Object> totals) {
+    }
+
+    /**
+     * Computes weekly stats for the given users, or for all users.
+     *
+     * @param year       The year.
+     * @param weekOfYear The ISO week number.
+     * @param userIds    The users to include, or {@code null} or empty for all users. Unknown IDs are ignored.
+     * @return The per-user and org-wide stats for the week.
+     */
+    public OrgStats getWeeklyStats(int year, int weekOfYear, Collection<Long> userIds) {
+        log.info("Computing org-wide weekly stats, Year: {}, Week: {}", year, weekOfYear);
+        LocalDate startOfWeek = AttendanceService.getStartOfWeek(year, weekOfYear).toLocalDate();
+        return compute(AttendanceStatsCache.Period.WEEK, startOfWeek, startOfWeek.plusWeeks(1), userIds,
+                AttendanceService::weeklyStats);
+    }
+
+    /**
+     * Computes monthly stats for the given users, or for all users.
+     *
+     * @param year    The year.
+     * @param month   The month number (1-12).
+     * @param userIds The users to include, or {@code null} or empty for all users. Unknown IDs are ignored.
+     * @return The per-user and org-wide stats for the month.
+     */
+    public OrgStats getMonthlyStats(int year, int month, Collection<Long> userIds) {
+        log.info("Computing org-wide monthly stats, Year: {}, Month: {}", year, month);
+        LocalDate startOfMonth = LocalDate.of(year, month, 1);
+        return compute(AttendanceStatsCache.Period.MONTH, startOfMonth, startOfMonth.plusMonths(1), userIds,
+                AttendanceService::monthlyStats);
+    }
+
+    /**
+     * Writes computed stats as one JSON object: the period, a {@code users} array with one entry per user, and the
+     * {@code totals}. The stream is flushed as users are written and is left open.
+     *
+     * @param orgStats The stats to write.
+     * @param out      The stream to write to.
+     * @throws IOException If the stream cannot be written, e.g. because the client went away.
+     */
+    public void write(OrgStats orgStats, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeStringField("period", orgStats.period().name());
+            generator.writeStringField("from", orgStats.from().toString());
+            generator.writeStringField("to", orgStats.to().toString());
+            generator.writeArrayFieldStart("users");
+            int written = 0;
+            for (UserStats user : orgStats.users()) {
+                generator.writeStartObject();
+                generator.writeNumberField("userId", user.userId());
+                for (Map.Entry<String, Object> stat : user.stats().entrySet()) {
+                    generator.writeObjectField(stat.getKey(), stat.getValue());
+                }
+                generator.writeEndObject();
+                if (++written % USERS_PER_FLUSH == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+            generator.writeObjectField("totals", orgStats.totals());
+            generator.writeEndObject();
+        }
+    }
+
+    private OrgStats compute(AttendanceStatsCache.Period period, LocalDate from, LocalDate to, Collection<Long> userIds,
+                             Function<Map<LocalDate, Long>, Map<String, Object>> statsBuilder) {
+        long start = System.nanoTime();
+        boolean allUsers = userIds == null || userIds.isEmpty();
+        List<Long> selected = allUsers
+                ? userRepository.findAllIds()
+                : userRepository.findExistingIds(userIds).stream().sorted().toList();
+        Map<Long, Map<LocalDate, Long>> dailySeconds = allUsers
+                ? getDailySeconds(from, to, new HashSet<>(selected))
+                : getSelectedDailySeconds(from, to, selected);
+
+        Partial result = ForkJoinPool.commonPool().invoke(new StatsTask(selected, dailySeconds, statsBuilder));
+
+        Map<String, Object> totals = new LinkedHashMap<>(statsBuilder.apply(result.dailySeconds()));
+        totals.put("totalUsers", selected.size());
+        log.info("Computed {} stats from {} for {} user(s) in {} ms", period, from, selected.size(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return new OrgStats(period, from, to.minusDays(1), result.users(), totals);
+    }
+
+    /**
+     * Sums the closed sessions of all users per user and check-in day, with one range scan over the period.
+     * Mirrors the single-user lookup in {@code AttendanceService}: the rollup once backfilled, the sessions until then.
+     *
+     * @param from     The first day, inclusive.
+     * @param to       The day after the last day.
+     * @param selected The users to keep; rows of users created since they were listed are skipped.
+     * @return The worked seconds per day, in date order, of each selected user with at least one closed session.
+     */
+    private Map<Long, Map<LocalDate, Long>> getDailySeconds(LocalDate from, LocalDate to, Set<Long> selected) {
+        Map<Long, Map<LocalDate, Long>> dailySeconds = new HashMap<>();
+        if (dailyRollupMaintenance.isReady()) {
+            for (DailyAttendanceRollup row : dailyRollupRepository.findByDayBetween(from, to.minusDays(1))) {
+                addDay(dailySeconds, selected, row.getUserId(), row.getDay(), row.getSeconds());
+            }
+        } else {
+            for (DailyTotalView row : attendanceRepository.sumDailyDurations(from.atStartOfDay(), to.atStartOfDay())) {
+                addDay(dailySeconds, selected, row.getUserId(), row.getWorkDay(), row.getTotalSeconds());
+            }
+        }
+        return dailySeconds;
+    }
+
+    /**
+     * Sums the closed sessions of a chosen set of users per user and check-in day, reading only their rows.
+     *
+     * @param from     The first day, inclusive.
+     * @param to       The day after the last day.
+     * @param selected The users to read.
+     * @return The worked seconds per day, in date order, of each selected user with at least one closed session.
+     */
+    private Map<Long, Map<LocalDate, Long>> getSelectedDailySeconds(LocalDate from, LocalDate to, List<Long> selected) {
+        Map<Long, Map<LocalDate, Long>> dailySeconds = new HashMap<>();
+        Set<Long> selectedIds = new HashSet<>(selected);
+        boolean fromRollup = dailyRollupMaintenance.isReady();
+        for (int start = 0; start < selected.size(); start += IDS_PER_QUERY) {
+            List<Long> chunk = selected.subList(start, Math.min(start + IDS_PER_QUERY, selected.size()));
+            if (fromRollup) {
+                for (DailyAttendanceRollup row : dailyRollupRepository.findByUserIdInAndDayBetween(
+                        chunk, from, to.minusDays(1))) {
+                    addDay(dailySeconds, selectedIds, row.getUserId(), row.getDay(), row.getSeconds());
+                }
+            } else {
+                for (DailyTotalView row : attendanceRepository.sumDailyDurationsForUsers(
+                        chunk, from.atStartOfDay(), to.atStartOfDay())) {
+                    addDay(dailySeconds, selectedIds, row.getUserId(), row.getWorkDay(), row.getTotalSeconds());
+                }
+            }
+        }
+        return dailySeconds;
+    }
+
+    private static void addDay(Map<Long, Map<LocalDate, Long>> dailySeconds, Set<Long> selected,
+                               Long userId, LocalDate day, long seconds) {
+        if (selected.contains(userId)) {
+            dailySeconds.computeIfAbsent(userId, id -> new TreeMap<>()).merge(day, seconds, Long::sum);
+        }
+    }
+
+    /**
+     * The stats of a run of users, and the sum of their days for the org totals.
+     */
+    private record Partial(List<UserStats> users, Map<LocalDate, Long> dailySeconds) {
+
+        // Appends the users of the next run, keeping user ID order
+        Partial merge(Partial next) {
+            List<UserStats> users = new ArrayList<>(this.users.size() + next.users.size());
+            users.addAll(this.users);
+            users.addAll(next.users);
+            Map<LocalDate, Long> dailySeconds = new TreeMap<>(this.dailySeconds);
+            next.dailySeconds.forEach((day, seconds) -> dailySeconds.merge(day, seconds, Long::sum));
+            return new Partial(users, dailySeconds);
+        }
+    }
+
+    /**
+     * Builds the stats of a run of users, halving the run until it is small enough for one task.
+     * The daily seconds are only read, so the tasks share them without locking.
+     */
+    private static final class StatsTask extends RecursiveTask<Partial> {
+
+        private final List<Long> userIds;
+
+        private final Map<Long, Map<LocalDate, Long>> dailySeconds;
+
+        private final Function<Map<LocalDate, Long>, Map<String, Object>> statsBuilder;
+
+        private StatsTask(List<Long> userIds, Map<Long, Map<LocalDate, Long>> dailySeconds,
+                          Function<Map<LocalDate, Long>, Map<String, Object>> statsBuilder) {
+            this.userIds = userIds;
+            this.dailySeconds = dailySeconds;
+            this.statsBuilder = statsBuilder;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (userIds.size() > USERS_PER_TASK) {
+                int middle = userIds.size() / 2;
+                StatsTask first = new StatsTask(userIds.subList(0, middle), dailySeconds, statsBuilder);
+                first.fork();
+                Partial second = new StatsTask(userIds.subList(middle, userIds.size()), dailySeconds, statsBuilder).compute();
+                return first.join().merge(second);
+            }
+            List<UserStats> users = new ArrayList<>(userIds.size());
+            Map<LocalDate, Long> totals = new TreeMap<>();
+            for (Long userId : userIds) {
+                Map<LocalDate, Long> days = dailySeconds.getOrDefault(userId, Collections.emptyMap());
+                users.add(new UserStats(userId, statsBuilder.apply(days)));
+                days.forEach((day, seconds) -> totals.merge(day, seconds, Long::sum));
+            }
+            return new Partial(users, totals);
+        }
+    }
+}
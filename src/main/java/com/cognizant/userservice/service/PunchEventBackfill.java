@@ -0,0 +1,80 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.model.MaintenanceTask;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.MaintenanceTaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Seeds the punch log from {@code attendance_tbl}, so that sessions recorded before the log existed survive a
+ * projection rebuild.
+ * <p>
+ * The newest session ID is captured at startup, before the web server accepts requests, and only sessions up to it
+ * are seeded; everything after was punched with its events. The backfill itself runs once the application is ready,
+ * by the instance holding the {@value #LOCK_NAME} lock, and its completion is recorded as the
+ * {@value #BACKFILL_TASK} maintenance task. On every later start it is a single lookup of that task.
+ * </p>
+ */
+@Service
+@Slf4j
+public class PunchEventBackfill implements SmartInitializingSingleton {
+
+    static final String BACKFILL_TASK = "punch-event-backfill";
+
+    static final String LOCK_NAME = "punch-event-backfill";
+
+    // Upper bound on one backfill; the lock is released by then even if this instance dies
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofHours(1);
+
+    @Autowired
+    private AttendanceProjector attendanceProjector;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private MaintenanceTaskRepository maintenanceTaskRepository;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    // The newest session before this instance took punches, or null if the backfill was already done
+    private Long upToId;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!maintenanceTaskRepository.existsById(BACKFILL_TASK)) {
+            upToId = attendanceRepository.findMaxId();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (upToId == null) {
+            return;
+        }
+        if (!schedulerLockService.tryLock(LOCK_NAME, LOCK_AT_MOST_FOR)) {
+            log.debug("Skipping punch log backfill; another instance holds the lock");
+            return;
+        }
+        try {
+            // Another instance may have finished between the check and the lock.
+            if (maintenanceTaskRepository.existsById(BACKFILL_TASK)) {
+                return;
+            }
+            int appended = attendanceProjector.backfillFromAttendance(upToId);
+            maintenanceTaskRepository.save(new MaintenanceTask(BACKFILL_TASK, LocalDateTime.now()));
+            log.info("Seeded the punch log with {} event(s) from attendance_tbl, up to session {}", appended, upToId);
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+}
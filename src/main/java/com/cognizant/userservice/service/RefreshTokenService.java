@@ -0,0 +1,175 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.exception.InvalidRefreshTokenException;
+import com.cognizant.userservice.exception.UserNotFoundException;
+import com.cognizant.userservice.model.RefreshToken;
+import com.cognizant.userservice.model.User;
+import com.cognizant.userservice.repository.RefreshTokenRepository;
+import com.cognizant.userservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Issues and rotates refresh tokens.
+ * <p>
+ * A refresh is a single indexed lookup plus an access-token signature, so long sessions no longer
+ * need a BCrypt password verification every time the short-lived access token expires.
+ * Tokens are opaque random values; only their SHA-256 digest is persisted.
+ * </p>
+ * <p>
+ * Used and revoked tokens are kept until they expire, since presenting one again is how reuse is detected.
+ * Every {@code application.security.jwt.refresh-token.purge-interval}, the instance holding the {@value #PURGE_LOCK_NAME}
+ * lock deletes the expired ones, which are rejected on expiry alone.
+ * </p>
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    static final String PURGE_LOCK_NAME = "refresh-token-purge";
+
+    private static final int TOKEN_BYTES = 32;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    // How long a refresh token can be exchanged after it was issued
+    @Value("${application.security.jwt.refresh-token.expiration}")
+    private Duration refreshExpiration;
+
+    // How often expired tokens are deleted; also bounds one purge, after which the lock is released anyway
+    @Value("${application.security.jwt.refresh-token.purge-interval}")
+    private Duration purgeInterval;
+
+    /**
+     * The outcome of a successful refresh: the token owner and the successor token to hand back.
+     *
+     * @param user         the user the token belongs to
+     * @param refreshToken the newly issued refresh token
+     */
+    public record Rotation(User user, String refreshToken) {
+    }
+
+    /**
+     * Issues a refresh token for a user who has just logged in with their password.
+     *
+     * @param username the authenticated username
+     * @return the raw refresh token to return to the client
+     * @throws UserNotFoundException if the user no longer exists
+     */
+    @Transactional
+    public String issue(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UserNotFoundException("User not found with username: " + username));
+        return create(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for its successor.
+     * <p>
+     * The presented token is consumed with a conditional update, so concurrent requests with the same
+     * token cannot both succeed. Presenting a token that was already consumed is treated as theft and
+     * revokes every token in its family. The revocation is committed even though the call fails.
+     * </p>
+     *
+     * @param rawToken the refresh token sent by the client
+     * @return the token owner and the successor token
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, or already used
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new InvalidRefreshTokenException("Refresh token is missing");
+        }
+        RefreshToken token = refreshTokenRepository.findByTokenHash(digest(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Refresh token is not recognised"));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!token.getExpiresAt().isAfter(now)) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+        if (token.getRevokedAt() != null || refreshTokenRepository.consume(token.getId(), now) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            log.warn("Refresh token reuse detected for user '{}'; revoked {} token(s) in its family",
+                    token.getUser().getUsername(), revoked);
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+
+        String successor = create(token.getUser(), token.getFamilyId());
+        log.debug("Rotated refresh token for user '{}'", token.getUser().getUsername());
+        return new Rotation(token.getUser(), successor);
+    }
+
+    /**
+     * Deletes expired refresh tokens, if this instance wins the lock.
+     *
+     * @return the number of tokens deleted, 0 if the purge did not run here
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.refresh-token.purge-interval}",
+            initialDelayString = "${application.security.jwt.refresh-token.purge-interval}")
+    public int purgeExpired() {
+        if (!schedulerLockService.tryLock(PURGE_LOCK_NAME, purgeInterval)) {
+            log.debug("Skipping refresh token purge; another instance holds the lock");
+            return 0;
+        }
+        try {
+            int purged = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+            if (purged > 0) {
+                log.info("Purged {} expired refresh token(s)", purged);
+            }
+            return purged;
+        } finally {
+            schedulerLockService.unlock(PURGE_LOCK_NAME);
+        }
+    }
+
+    // Stores the digest of a new random token and returns the raw value
+    private String create(User user, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setTokenHash(digest(rawToken));
+        token.setFamilyId(familyId);
+        token.setCreatedAt(now);
+        token.setExpiresAt(now.plus(refreshExpiration));
+        refreshTokenRepository.save(token);
+        return rawToken;
+    }
+
+    // Hashes the token so a database leak does not expose usable refresh tokens
+    static String digest(String rawToken) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(sha256.digest(rawToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to ship SHA-256, so this cannot happen in practice.
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
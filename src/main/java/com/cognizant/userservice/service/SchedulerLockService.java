@@ -0,0 +1,80 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.model.SchedulerLock;
+import com.cognizant.userservice.repository.SchedulerLockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Leader election for scheduled jobs, backed by {@code scheduler_lock_tbl}.
+ * <p>
+ * Every instance runs the same {@code @Scheduled} methods; a job only does its work on the instance that
+ * wins the lock for that run. Locks are leases: they expire after {@code lockAtMostFor} even if the holder
+ * never releases them, so instance clocks are expected to be roughly in sync (NTP).
+ * Each statement runs in its own transaction, so a lock is visible to other instances as soon as it is taken.
+ * </p>
+ */
+@Service
+@Slf4j
+public class SchedulerLockService {
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    // Identifies this instance as the holder of a lock
+    private final String owner = hostName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    /**
+     * Tries to take the named lock without waiting.
+     *
+     * @param name          the name of the lock, usually the job name
+     * @param lockAtMostFor how long the lock is held if it is never released; must exceed the job's running time
+     * @return {@code true} if this instance now holds the lock
+     */
+    public boolean tryLock(String name, Duration lockAtMostFor) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lockedUntil = now.plus(lockAtMostFor);
+        if (schedulerLockRepository.acquire(name, owner, now, lockedUntil) == 1) {
+            return true;
+        }
+        if (schedulerLockRepository.existsById(name)) {
+            return false;
+        }
+        // First run of this job anywhere: create the lock row. Of several instances racing here, the primary key
+        // lets exactly one insert succeed; SchedulerLock is Persistable, so saving it never turns into an update.
+        try {
+            schedulerLockRepository.saveAndFlush(new SchedulerLock(name, lockedUntil, now, owner));
+            return true;
+        } catch (DataIntegrityViolationException ex) {
+            log.debug("Lock '{}' was created by another instance", name);
+            return false;
+        }
+    }
+
+    /**
+     * Releases a lock taken with {@link #tryLock(String, Duration)}, so the next run does not have to wait for the lease to end.
+     *
+     * @param name the name of the lock
+     */
+    public void unlock(String name) {
+        if (schedulerLockRepository.release(name, owner, LocalDateTime.now()) == 0) {
+            log.warn("Lock '{}' was no longer held by this instance when released", name);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.OpenSessionView;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Closes attendance sessions that have been open for longer than {@code application.attendance.auto-close.max-session},
+ * for users who forgot to check out.
+ * <p>
+ * A stale session is closed as if the user had checked out exactly {@code max-session} after checking in, so it
+ * counts towards stats with the capped length; users can correct it through an attendance adjustment request.
+ * Sessions are closed in chunks of {@code chunk-size}, one UPDATE statement and one transaction per chunk, so the job
+ * never holds locks on many rows at once; each closed session is recorded as an {@code AUTO_CLOSE} check-out event. Only the instance holding the {@value #LOCK_NAME} lock closes sessions;
+ * every instance then drops the closed sessions from its own {@link ActiveSessionIndex}.
+ * Each run reports the number of rows closed and its duration in the log and as
+ * {@code attendance.auto-close.closed} and {@code attendance.auto-close.duration}.
+ * </p>
+ */
+@Service
+@Slf4j
+public class StaleAttendanceAutoCloseJob {
+
+    static final String LOCK_NAME = "attendance-auto-close";
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceProjector attendanceProjector;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private ActiveSessionIndex activeSessionIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Sessions open for longer than this are closed
+    @Value("${application.attendance.auto-close.max-session}")
+    private Duration maxSession;
+
+    // Number of sessions closed per UPDATE statement
+    @Value("${application.attendance.auto-close.chunk-size}")
+    private int chunkSize;
+
+    // Upper bound on one run; the lock is released by then even if this instance dies
+    @Value("${application.attendance.auto-close.lock-at-most-for}")
+    private Duration lockAtMostFor;
+
+    private Counter closedCounter;
+
+    private Timer runTimer;
+
+    /**
+     * The outcome of one run.
+     *
+     * @param closed  the number of sessions closed, 0 if another instance held the lock
+     * @param elapsed how long the run took
+     */
+    public record Result(int closed, Duration elapsed) {
+    }
+
+    @PostConstruct
+    void initMetrics() {
+        closedCounter = Counter.builder("attendance.auto-close.closed")
+                .description("Stale attendance sessions closed automatically")
+                .register(meterRegistry);
+        runTimer = Timer.builder("attendance.auto-close.duration")
+                .description("Time taken to close stale attendance sessions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Closes every stale open session, if this instance wins the lock, and drops them from the local session index.
+     *
+     * @return how many sessions this instance closed and how long it took
+     */
+    @Scheduled(fixedDelayString = "${application.attendance.auto-close.interval}",
+            initialDelayString = "${application.attendance.auto-close.interval}")
+    public Result closeStaleSessions() {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxSession);
+        int closed = 0;
+
+        if (schedulerLockService.tryLock(LOCK_NAME, lockAtMostFor)) {
+            try {
+                closed = closeInChunks(cutoff, start);
+            } finally {
+                schedulerLockService.unlock(LOCK_NAME);
+            }
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            closedCounter.increment(closed);
+            runTimer.record(elapsed);
+            log.info("Auto-closed {} attendance session(s) open since before {} in {} ms", closed, cutoff, elapsed.toMillis());
+        } else {
+            log.debug("Skipping attendance auto-close; another instance holds the lock");
+        }
+
+        // Whichever instance closed them, sessions this old are no longer open.
+        int dropped = activeSessionIndex.evictCheckedInBefore(cutoff);
+        if (dropped > 0) {
+            log.debug("Dropped {} auto-closed session(s) from the active session index", dropped);
+        }
+        return new Result(closed, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private int closeInChunks(LocalDateTime cutoff, long start) {
+        long maxSessionSeconds = maxSession.toSeconds();
+        PageRequest firstChunk = PageRequest.of(0, chunkSize);
+        int closed = 0;
+        List<OpenSessionView> sessions;
+        do {
+            sessions = attendanceRepository.findStaleOpenSessions(cutoff, firstChunk);
+            if (sessions.isEmpty()) {
+                break;
+            }
+            closed += attendanceProjector.closeAtCap(sessions, maxSessionSeconds);
+            if (System.nanoTime() - start > lockAtMostFor.toNanos()) {
+                // The lease is over; stop before another instance takes the lock and works alongside this one.
+                log.warn("Attendance auto-close stopped after {} session(s); lock-at-most-for elapsed", closed);
+                break;
+            }
+        } while (sessions.size() == chunkSize);
+        return closed;
+    }
+}
@@ -0,0 +1,157 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.model.RevokedToken;
+import com.cognizant.userservice.model.VerifiedToken;
+import com.cognizant.userservice.repository.RevokedTokenRepository;
+import com.cognizant.userservice.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of subjects whose outstanding access tokens must no longer be accepted.
+ * <p>
+ * Revocations are stored in {@code revoked_token_tbl} and mirrored in an in-memory index fronted by a
+ * Bloom filter. Checking a token that is not revoked, which is almost every request, costs one filter
+ * probe and never touches the database. The index is reloaded from the table periodically so that
+ * revocations made on other instances are picked up, and entries are purged once every token they
+ * cover has expired.
+ * </p>
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    // Maximum lifetime of an access token; a revocation entry is kept this long
+    @Value("${application.security.jwt.expiration}")
+    private long jwtExpiration;
+
+    // Number of live revocations the Bloom filter is sized for before its error rate degrades
+    @Value("${application.security.jwt.revocation.expected-entries}")
+    private int expectedEntries;
+
+    // Swapped as a whole on reload so readers never see a half-built index
+    private volatile Index index;
+
+    /**
+     * Revoked subjects with the time of revocation, and a Bloom filter over the same subjects.
+     */
+    private record Index(Map<String, Instant> revokedSubjects, BloomFilter filter) {
+    }
+
+    /**
+     * Loads the current revocations once the repository is available.
+     */
+    @PostConstruct
+    void init() {
+        reload();
+    }
+
+    /**
+     * Checks whether a verified token has been revoked.
+     *
+     * @param token the verified token of the current request
+     * @return {@code true} if the token's subject was revoked at or after the token was issued
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        String subject = token.getUsername();
+        Index current = index;
+        if (subject == null || !current.filter().mightContain(subject)) {
+            return false;
+        }
+        Instant revokedAt = current.revokedSubjects().get(subject);
+        if (revokedAt == null) {
+            return false; // Bloom filter false positive
+        }
+        return token.getIssuedAt() == null || !token.getIssuedAt().isAfter(revokedAt);
+    }
+
+    /**
+     * Revokes every access token issued to a subject so far.
+     * <p>
+     * The entry is written in the caller's transaction and added to the in-memory index after commit,
+     * so a rolled-back deletion does not lock the user out.
+     * </p>
+     *
+     * @param subject the username whose tokens are revoked
+     */
+    @Transactional
+    public void revokeSubject(String subject) {
+        LocalDateTime revokedAt = LocalDateTime.now();
+        RevokedToken entry = new RevokedToken();
+        entry.setSubject(subject);
+        entry.setRevokedAt(revokedAt);
+        entry.setExpiresAt(revokedAt.plusNanos(jwtExpiration * 1_000_000L));
+        revokedTokenRepository.save(entry);
+
+        Instant revokedInstant = toInstant(revokedAt);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(subject, revokedInstant);
+                }
+            });
+        } else {
+            remember(subject, revokedInstant);
+        }
+        log.info("Revoked outstanding tokens for user '{}'", subject);
+    }
+
+    /**
+     * Purges revocations whose tokens have all expired and reloads the index from the table.
+     * Rebuilding also picks up revocations written by other instances and resets the Bloom filter,
+     * which cannot forget individual entries.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation.refresh-interval}")
+    @Transactional
+    public void refresh() {
+        int purged = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.debug("Purged {} expired token revocation(s)", purged);
+        }
+        reload();
+    }
+
+    // Rebuilds the index from the table; synchronized with remember() so a concurrent revocation is not lost
+    private synchronized void reload() {
+        List<RevokedToken> active = revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now());
+        Index rebuilt = new Index(new ConcurrentHashMap<>(),
+                new BloomFilter(Math.max(expectedEntries, active.size() * 2), FALSE_POSITIVE_PROBABILITY));
+        for (RevokedToken entry : active) {
+            add(rebuilt, entry.getSubject(), toInstant(entry.getRevokedAt()));
+        }
+        index = rebuilt;
+    }
+
+    private synchronized void remember(String subject, Instant revokedAt) {
+        add(index, subject, revokedAt);
+    }
+
+    private static void add(Index target, String subject, Instant revokedAt) {
+        target.revokedSubjects().merge(subject, revokedAt, (existing, added) -> existing.isAfter(added) ? existing : added);
+        target.filter().put(subject);
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -3,7 +3,6 @@ package com.cognizant.userservice.service;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +16,9 @@ import com.cognizant.userservice.repository.UserRepository;
 import com.cognizant.userservice.repository.LeaveRepository;
 import com.cognizant.userservice.repository.AttendanceRepository;
 import com.cognizant.userservice.repository.AttendanceAdjustmentRepository;
+import com.cognizant.userservice.repository.RefreshTokenRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.PunchEventRepository;
 import com.cognizant.userservice.dto.UserProfileUpdateDTO;
 import lombok.extern.slf4j.Slf4j;
 
@@ -36,9 +38,27 @@ public class UserService {
     @Autowired
     private AttendanceAdjustmentRepository attendanceAdjustmentRepository;
 
-    // PasswordEncoder can be autowired or instantiated as a bean in a config class
-    // For simplicity, keeping it here for now, but autowiring is generally preferred.
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PunchEventRepository punchEventRepository;
+
+    @Autowired
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private ActiveSessionIndex activeSessionIndex;
+
+    @Autowired
+    private MyUserDetailsService userDetailsService;
+
+    // Shared with login verification so new hashes use the same calibrated work factor
+    @Autowired
+    private PasswordEncoder passwordEncoder;
 
     /**
      * Retrieves all users from the database.
@@ -103,7 +123,9 @@ public class UserService {
                     return new UserNotFoundException(String.format("User with username '%s' not found for update", username));
                 });
 
-        return applyProfileUpdatesAndSave(existingUser, updateDTO);
+        User updatedUser = applyProfileUpdatesAndSave(existingUser, updateDTO);
+        userDetailsService.evict(username);
+        return updatedUser;
     }
 
     /**
@@ -132,6 +154,7 @@ public class UserService {
 
         // Save the user. Persistence exceptions will naturally propagate.
         User savedUser = userRepository.save(user);
+        userDetailsService.evict(savedUser.getUsername());
         log.info("User saved successfully with id: {}", savedUser.getId());
         return savedUser;
     }
@@ -148,11 +171,12 @@ public class UserService {
     public void deleteById(Long id) {
         log.info("Deleting user with id: {}", id);
 
-        // Check if user exists before attempting deletion.
-        if (!userRepository.existsById(id)) {
-            log.warn("Deletion failed: User with id {} not found for deletion.", id);
-            throw new UserNotFoundException(id);
-        }
+        // Check if user exists before attempting deletion; the username is needed to evict cached credentials.
+        User existingUser = userRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.warn("Deletion failed: User with id {} not found for deletion.", id);
+                    return new UserNotFoundException(id);
+                });
 
         // Deleting associated data. These operations are part of the transaction.
         // If any of these fail, the transaction will roll back due to @Transactional
@@ -163,8 +187,17 @@ public class UserService {
         attendanceAdjustmentRepository.deleteByUserId(id); // Assuming this method exists and works as expected
         log.debug("Deleting attendance records for user: {}", id);
         attendanceRepository.deleteByUserId(id); // Assuming this method exists and works as expected
+        // The punch log is otherwise never modified, but a deleted user's events would resurrect their sessions on a rebuild.
+        punchEventRepository.deleteByUserId(id);
+        dailyRollupRepository.deleteByUserId(id);
+        activeSessionIndex.recordCheckOut(id);
+        log.debug("Deleting refresh tokens for user: {}", id);
+        refreshTokenRepository.deleteByUserId(id);
 
         userRepository.deleteById(id);
+        userDetailsService.evict(existingUser.getUsername());
+        // Access tokens already handed out stay valid until they expire unless they are revoked.
+        tokenRevocationService.revokeSubject(existingUser.getUsername());
         log.info("User deleted successfully: {}", id);
     }
 
@@ -186,7 +219,9 @@ public class UserService {
                     return new UserNotFoundException(id);
                 });
 
-        return applyProfileUpdatesAndSave(existingUser, updateDTO);
+        User updatedUser = applyProfileUpdatesAndSave(existingUser, updateDTO);
+        userDetailsService.evict(existingUser.getUsername());
+        return updatedUser;
     }
 
     // Helper method to apply updates and save, reducing code duplication
@@ -0,0 +1,124 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.model.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Bounded cache of tokens that have already passed signature verification.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the token so raw bearer tokens are never kept in memory,
+ * and each entry expires exactly when the token's own {@code exp} claim does. Only successful
+ * verifications are cached; malformed or forged tokens always go through the full check.
+ * Hit, miss and eviction counters are published to Micrometer under the cache name
+ * {@code jwt.verified-tokens} (see {@code /actuator/metrics/cache.gets}).
+ * </p>
+ */
+@Component
+public class VerifiedTokenCache {
+
+    static final String CACHE_NAME = "jwt.verified-tokens";
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(
+            @Value("${application.security.jwt.cache.max-size}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Looks up a previously verified token.
+     *
+     * @param token the compact JWT taken from the request
+     * @return the cached verification result, or {@code null} if the token has not been seen or has expired
+     */
+    public VerifiedToken getIfPresent(String token) {
+        return cache.getIfPresent(digest(token));
+    }
+
+    /**
+     * Remembers a successful verification until the token expires.
+     *
+     * @param token    the compact JWT that was verified
+     * @param verified the result of the verification
+     */
+    public void put(String token, VerifiedToken verified) {
+        cache.put(digest(token), verified);
+    }
+
+    /**
+     * Forgets every verification, so tokens are checked again against the current keys and settings.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the approximate number of cached tokens.
+     *
+     * @return the estimated entry count
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    // Hashes the token so the cache holds fixed-size keys instead of usable credentials
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to ship SHA-256, so this cannot happen in practice.
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Expires each entry at the {@code exp} of the token it describes.
+     */
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        // Tokens without an expiry are still bounded so the cache never pins them forever.
+        private static final Duration MAX_LIFETIME = Duration.ofHours(24);
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            if (value.getExpiresAt() == null) {
+                return MAX_LIFETIME.toNanos();
+            }
+            Duration remaining = Duration.between(Instant.now(), value.getExpiresAt());
+            if (remaining.isNegative()) {
+                return 0L;
+            }
+            return remaining.compareTo(MAX_LIFETIME) > 0 ? MAX_LIFETIME.toNanos() : remaining.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -2,8 +2,11 @@ package com.cognizant.userservice;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
+// The dev profile lets the context start with an ephemeral JWT signing key
 @SpringBootTest
+@ActiveProfiles("dev")
 class UserserviceApplicationTests {
 
 	@Test
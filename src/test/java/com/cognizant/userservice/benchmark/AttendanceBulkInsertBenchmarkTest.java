@@ -0,0 +1,143 @@
+package com.cognizant.userservice.benchmark;
+
+import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.User;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares bulk inserts of attendance rows with IDENTITY ids, as {@code attendance_tbl} was mapped before, against
+ * the pooled sequence ids it uses now. Both run with the production JDBC batch size of 50; Hibernate has to send
+ * IDENTITY inserts one statement per row to read back each id, while sequence ids let it batch them.
+ * Excluded from the normal build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AttendanceBulkInsertBenchmarkTest {
+
+    private static final int ROWS = 5_000;
+
+    private static final int ROUNDS = 5;
+
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private record Result(long bestNanos, long statements) {
+    }
+
+    /**
+     * {@link Attendance} with the IDENTITY id it had before the move to sequences; only used by this benchmark.
+     */
+    @Entity
+    @Table(name = "identity_attendance_benchmark")
+    @Data
+    static class IdentityAttendance {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @ManyToOne(fetch = FetchType.LAZY)
+        @JoinColumn(name = "user_id", nullable = false)
+        private User user;
+
+        private LocalDateTime checkInTime;
+
+        private LocalDateTime checkOutTime;
+
+        @Column(name = "total_duration_seconds")
+        private Long totalDuration;
+    }
+
+    @Test
+    void bulkInsertAttendance() {
+        User user = new User();
+        user.setUsername("benchmark");
+        user.setEmail("benchmark@example.com");
+        user.setPassword("not-used");
+        user.setMobile(9_000_000_000L);
+        user.setRole(User.Role.EMPLOYEE);
+        entityManager.persist(user);
+        entityManager.flush();
+
+        Session session = entityManager.unwrap(Session.class);
+        Statistics statistics = session.getSessionFactory().getStatistics();
+        session.setJdbcBatchSize(BATCH_SIZE);
+
+        Result identity = measure(session, statistics, user.getId(), true);
+        Result sequence = measure(session, statistics, user.getId(), false);
+
+        System.out.printf("Inserting %d attendance rows with JDBC batches of %d (best of %d rounds)%n",
+                ROWS, BATCH_SIZE, ROUNDS);
+        System.out.printf("  IDENTITY ids:        %6d ms, %6d JDBC statements%n",
+                TimeUnit.NANOSECONDS.toMillis(identity.bestNanos()), identity.statements());
+        System.out.printf("  pooled sequence ids: %6d ms, %6d JDBC statements%n",
+                TimeUnit.NANOSECONDS.toMillis(sequence.bestNanos()), sequence.statements());
+
+        assertTrue(sequence.statements() * 10 < identity.statements());
+    }
+
+    private Result measure(Session session, Statistics statistics, Long userId, boolean identityIds) {
+        long best = Long.MAX_VALUE;
+        long statements = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            User user = session.getReference(User.class, userId);
+            LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0).plusYears(round);
+            statistics.clear();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ROWS; i++) {
+                LocalDateTime checkIn = base.plusHours(i);
+                // Closed rows, so no open-session conflict
+                session.persist(identityIds ? identityRow(user, checkIn) : sequenceRow(user, checkIn));
+            }
+            session.flush();
+            long elapsed = System.nanoTime() - start;
+
+            statements = statistics.getPrepareStatementCount();
+            best = Math.min(best, elapsed);
+            session.clear();
+        }
+        return new Result(best, statements);
+    }
+
+    private static IdentityAttendance identityRow(User user, LocalDateTime checkIn) {
+        IdentityAttendance attendance = new IdentityAttendance();
+        attendance.setUser(user);
+        attendance.setCheckInTime(checkIn);
+        attendance.setCheckOutTime(checkIn.plusMinutes(30));
+        attendance.setTotalDuration(1_800L);
+        return attendance;
+    }
+
+    private static Attendance sequenceRow(User user, LocalDateTime checkIn) {
+        Attendance attendance = new Attendance();
+        attendance.setUser(user);
+        attendance.setCheckInTime(checkIn);
+        attendance.setCheckOutTime(checkIn.plusMinutes(30));
+        attendance.setTotalDuration(1_800L);
+        return attendance;
+    }
+}
@@ -0,0 +1,112 @@
+package com.cognizant.userservice.benchmark;
+
+import com.cognizant.userservice.dto.DailyTotalView;
+import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.User;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the monthly stats query the way it used to run, loading every session of the month and grouping them
+ * by day in Java, against grouping by day in the database, for a user with 10k, 100k and 1M sessions a year.
+ * Excluded from the normal build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+class AttendanceStatsAggregationBenchmarkTest {
+
+    private static final int[] ROWS_PER_YEAR = {10_000, 100_000, 1_000_000};
+
+    private static final int ROUNDS = 5;
+
+    private static final LocalDateTime YEAR_START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final LocalDateTime MONTH_START = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Test
+    void monthlyStatsAggregation() {
+        User user = new User();
+        user.setUsername("benchmark");
+        user.setEmail("benchmark@example.com");
+        user.setPassword("not-used");
+        user.setMobile(9_000_000_000L);
+        user.setRole(User.Role.EMPLOYEE);
+        entityManager.persist(user);
+        entityManager.flush();
+        Long userId = user.getId();
+
+        System.out.printf("Monthly stats for one user (best of %d rounds)%n", ROUNDS);
+        for (int rowsPerYear : ROWS_PER_YEAR) {
+            insertSessions(userId, rowsPerYear);
+
+            User reference = entityManager.getReference(User.class, userId);
+            Map<LocalDate, Long> loaded = measure(() -> attendanceRepository
+                    .findByUserAndCheckInTimeBetween(reference, MONTH_START, MONTH_START.plusMonths(1).minusNanos(1)).stream()
+                    .filter(a -> a.getTotalDuration() != null)
+                    .collect(Collectors.groupingBy(a -> a.getCheckInTime().toLocalDate(),
+                            Collectors.summingLong(Attendance::getTotalDuration))), "load and group in Java", rowsPerYear);
+            Map<LocalDate, Long> aggregated = measure(() -> attendanceRepository
+                    .sumDailyDurationsForUser(userId, MONTH_START, MONTH_START.plusMonths(1)).stream()
+                    .collect(Collectors.toMap(DailyTotalView::getWorkDay, DailyTotalView::getTotalSeconds)),
+                    "group by day in the database", rowsPerYear);
+
+            assertEquals(loaded, aggregated);
+        }
+    }
+
+    // Replaces the user's sessions with rowsPerYear closed sessions spread evenly over the year
+    private void insertSessions(Long userId, int rowsPerYear) {
+        entityManager.createQuery("delete from Attendance").executeUpdate();
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(50);
+        long slotSeconds = 365L * 24 * 3600 / rowsPerYear;
+        for (int i = 0; i < rowsPerYear; i++) {
+            Attendance attendance = new Attendance();
+            attendance.setUser(session.getReference(User.class, userId));
+            LocalDateTime checkIn = YEAR_START.plusSeconds(i * slotSeconds);
+            attendance.setCheckInTime(checkIn);
+            attendance.setCheckOutTime(checkIn.plusSeconds(slotSeconds / 2));
+            attendance.setTotalDuration(slotSeconds / 2);
+            session.persist(attendance);
+            if (i % 10_000 == 9_999) {
+                session.flush();
+                session.clear();
+            }
+        }
+        session.flush();
+        session.clear();
+    }
+
+    private <T> T measure(Supplier<T> query, String label, int rowsPerYear) {
+        long best = Long.MAX_VALUE;
+        T result = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            entityManager.clear();
+            long start = System.nanoTime();
+            result = query.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("  %,9d rows/year, %-30s %6d ms%n", rowsPerYear, label + ":", TimeUnit.NANOSECONDS.toMillis(best));
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package com.cognizant.userservice.benchmark;
+
+import com.cognizant.userservice.exception.ActiveAttendanceExistsException;
+import com.cognizant.userservice.exception.ErrorResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares a rejected check-in as it used to be handled (a fresh exception that captures its stack trace,
+ * answered with a map body) against the shared stackless exception answered with an {@link ErrorResponse}.
+ * The exception is thrown below a stack as deep as a typical request thread's, since stack capture cost
+ * grows with depth.
+ * Excluded from the normal build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class RejectedPunchBenchmarkTest {
+
+    private static final String MESSAGE = ActiveAttendanceExistsException.ALREADY_CHECKED_IN.getMessage();
+
+    // Roughly the number of frames between the servlet container and the service on a request thread
+    private static final int STACK_DEPTH = 120;
+
+    private static final int OPERATIONS = 200_000;
+
+    private static final int ROUNDS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Stand-in for the previous exception, which captured a stack trace on every rejection
+    private static final class StackfulRejection extends RuntimeException {
+        StackfulRejection(String message) {
+            super(message);
+        }
+    }
+
+    private record Result(long nanosPerOp, long bytesPerOp) {
+    }
+
+    // Keeps the JIT from discarding the bodies
+    private int sink;
+
+    @Test
+    void rejectedCheckIn() {
+        Result stackful = measure(() -> new StackfulRejection(MESSAGE), true);
+        Result stackless = measure(() -> ActiveAttendanceExistsException.ALREADY_CHECKED_IN, false);
+
+        System.out.printf("Rejected check-in, %d frames deep (best of %d rounds of %d)%n", STACK_DEPTH, ROUNDS, OPERATIONS);
+        System.out.printf("  new exception with stack trace, map body: %6d ns/op, %6d bytes/op%n",
+                stackful.nanosPerOp(), stackful.bytesPerOp());
+        System.out.printf("  shared stackless exception, record body:  %6d ns/op, %6d bytes/op%n",
+                stackless.nanosPerOp(), stackless.bytesPerOp());
+
+        assertTrue(stackless.bytesPerOp() * 10 < stackful.bytesPerOp());
+        assertTrue(stackless.nanosPerOp() < stackful.nanosPerOp());
+    }
+
+    private Result measure(Supplier<RuntimeException> rejection, boolean mapBody) {
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        long threadId = Thread.currentThread().getId();
+        for (int round = 0; round < ROUNDS; round++) {
+            long startBytes = THREADS.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < OPERATIONS; i++) {
+                try {
+                    throwAtDepth(STACK_DEPTH, rejection);
+                } catch (RuntimeException ex) {
+                    sink += mapBody ? mapBody(ex).size() : recordBody(ex).message().length();
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            long allocated = THREADS.getThreadAllocatedBytes(threadId) - startBytes;
+
+            bestNanos = Math.min(bestNanos, elapsed / OPERATIONS);
+            bestBytes = Math.min(bestBytes, allocated / OPERATIONS);
+        }
+        return new Result(bestNanos, bestBytes);
+    }
+
+    private static void throwAtDepth(int depth, Supplier<RuntimeException> rejection) {
+        if (depth == 0) {
+            throw rejection.get();
+        }
+        throwAtDepth(depth - 1, rejection);
+    }
+
+    private static Map<String, Object> mapBody(RuntimeException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", ex.getMessage());
+        return body;
+    }
+
+    private static ErrorResponse recordBody(RuntimeException ex) {
+        return new ErrorResponse(LocalDateTime.now(), ex.getMessage());
+    }
+}
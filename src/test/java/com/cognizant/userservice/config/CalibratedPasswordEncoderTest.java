@@ -0,0 +1,80 @@
+package com.cognizant.userservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Uses the lowest BCrypt costs so every hash takes a few milliseconds
+class CalibratedPasswordEncoderTest {
+
+    private static final String PASSWORD = "s3cret-password";
+
+    @Test
+    void testCalibrate_StaysWithinBounds() {
+        assertEquals(4, new CalibratedPasswordEncoder(Duration.ZERO, 4, 6).getStrength());
+        assertEquals(5, new CalibratedPasswordEncoder(Duration.ofMinutes(1), 4, 5).getStrength());
+    }
+
+    @Test
+    void testUpgradeEncoding_OnlyWeakerHashes() {
+        CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(Duration.ofMinutes(1), 5, 5);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode(PASSWORD)));
+        assertFalse(encoder.upgradeEncoding(encoder.encode(PASSWORD)));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode(PASSWORD)));
+        assertFalse(encoder.upgradeEncoding("{noop}" + PASSWORD));
+        assertFalse(encoder.upgradeEncoding(null));
+        assertTrue(encoder.matches(PASSWORD, new BCryptPasswordEncoder(6).encode(PASSWORD)));
+    }
+
+    @Test
+    void testLogin_RehashesWeakerStoredHash() {
+        CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(Duration.ofMinutes(1), 5, 5);
+        UserDetails stored = User.withUsername("alice").password(new BCryptPasswordEncoder(4).encode(PASSWORD)).build();
+        UserDetailsService userDetailsService = mock(UserDetailsService.class);
+        UserDetailsPasswordService passwordService = mock(UserDetailsPasswordService.class);
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(stored);
+        when(passwordService.updatePassword(eq(stored), any())).thenReturn(stored);
+
+        provider(encoder, userDetailsService, passwordService)
+                .authenticate(new UsernamePasswordAuthenticationToken("alice", PASSWORD));
+
+        verify(passwordService).updatePassword(eq(stored), argThat((String hash) ->
+                hash.startsWith("$2a$05$") && encoder.matches(PASSWORD, hash)));
+    }
+
+    @Test
+    void testLogin_KeepsStrongerStoredHash() {
+        CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(Duration.ofMinutes(1), 4, 4);
+        UserDetails stored = User.withUsername("alice").password(new BCryptPasswordEncoder(5).encode(PASSWORD)).build();
+        UserDetailsService userDetailsService = mock(UserDetailsService.class);
+        UserDetailsPasswordService passwordService = mock(UserDetailsPasswordService.class);
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(stored);
+
+        provider(encoder, userDetailsService, passwordService)
+                .authenticate(new UsernamePasswordAuthenticationToken("alice", PASSWORD));
+
+        verifyNoInteractions(passwordService);
+    }
+
+    private static DaoAuthenticationProvider provider(CalibratedPasswordEncoder encoder, UserDetailsService userDetailsService,
+                                                      UserDetailsPasswordService passwordService) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsPasswordService(passwordService);
+        return provider;
+    }
+}
@@ -0,0 +1,169 @@
+package com.cognizant.userservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    private static final String CHECKIN_URI = "/api/v1/attendance/checkin";
+
+    private IdempotencyFilter idempotencyFilter;
+
+    private AtomicInteger invocations;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyFilter = new IdempotencyFilter(Duration.ofMinutes(10), 100, new SimpleMeterRegistry());
+        invocations = new AtomicInteger();
+        authenticateAs("testuser");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRetryWithSameKey_ReplaysStoredResponse() throws Exception {
+        MockHttpServletResponse first = perform("POST", CHECKIN_URI, "key-1", respondWith(201));
+        MockHttpServletResponse retry = perform("POST", CHECKIN_URI, "key-1", respondWith(201));
+
+        assertEquals(1, invocations.get());
+        assertEquals(201, first.getStatus());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(201, retry.getStatus());
+        assertEquals("{\"call\":1}", retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testSameKeyWithDifferentBody_Unprocessable() throws Exception {
+        perform("POST", CHECKIN_URI, "key-1", "{\"notes\":\"a\"}", respondWith(201));
+        MockHttpServletResponse reused = perform("POST", CHECKIN_URI, "key-1", "{\"notes\":\"b\"}", respondWith(201));
+        MockHttpServletResponse retry = perform("POST", CHECKIN_URI, "key-1", "{\"notes\":\"a\"}", respondWith(201));
+
+        assertEquals(1, invocations.get());
+        assertEquals(422, reused.getStatus());
+        assertNull(reused.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(201, retry.getStatus());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testRequestBodyStillReadableByChain() throws Exception {
+        String[] seen = new String[1];
+        FilterChain readingChain = (request, response) -> {
+            seen[0] = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            respondWith(201).doFilter(request, response);
+        };
+
+        perform("POST", CHECKIN_URI, "key-1", "{\"notes\":\"a\"}", readingChain);
+
+        assertEquals("{\"notes\":\"a\"}", seen[0]);
+    }
+
+    @Test
+    void testClientErrorIsReplayed() throws Exception {
+        perform("POST", CHECKIN_URI, "key-1", respondWith(409));
+        MockHttpServletResponse retry = perform("POST", CHECKIN_URI, "key-1", respondWith(201));
+
+        assertEquals(1, invocations.get());
+        assertEquals(409, retry.getStatus());
+    }
+
+    @Test
+    void testDifferentKeyOrUser_RunsAgain() throws Exception {
+        perform("POST", CHECKIN_URI, "key-1", respondWith(201));
+        perform("POST", CHECKIN_URI, "key-2", respondWith(201));
+        authenticateAs("otheruser");
+        perform("POST", CHECKIN_URI, "key-1", respondWith(201));
+
+        assertEquals(3, invocations.get());
+    }
+
+    @Test
+    void testServerError_NotStored() throws Exception {
+        perform("POST", CHECKIN_URI, "key-1", respondWith(500));
+        MockHttpServletResponse retry = perform("POST", CHECKIN_URI, "key-1", respondWith(201));
+
+        assertEquals(2, invocations.get());
+        assertEquals(201, retry.getStatus());
+        assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testConcurrentRetry_Conflict() throws Exception {
+        MockHttpServletResponse[] concurrent = new MockHttpServletResponse[1];
+        FilterChain slowChain = (request, response) -> {
+            // The retry arrives while the first request is still inside the chain
+            concurrent[0] = perform("POST", CHECKIN_URI, "key-1", respondWith(201));
+            respondWith(201).doFilter(request, response);
+        };
+
+        MockHttpServletResponse first = perform("POST", CHECKIN_URI, "key-1", slowChain);
+
+        assertEquals(201, first.getStatus());
+        assertEquals(409, concurrent[0].getStatus());
+        assertEquals(1, invocations.get());
+    }
+
+    @Test
+    void testWithoutKeyOrOnOtherEndpoints_PassesThrough() throws Exception {
+        perform("POST", CHECKIN_URI, null, respondWith(201));
+        perform("POST", CHECKIN_URI, null, respondWith(201));
+        perform("GET", "/api/v1/attendance/my-all", "key-1", respondWith(200));
+        perform("GET", "/api/v1/attendance/my-all", "key-1", respondWith(200));
+
+        assertEquals(4, invocations.get());
+    }
+
+    // Stands in for the controller: counts calls and writes a body naming the call
+    private FilterChain respondWith(int status) {
+        return (request, response) -> {
+            int call = invocations.incrementAndGet();
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(status);
+            httpResponse.setContentType("application/json");
+            httpResponse.getOutputStream().write(("{\"call\":" + call + "}").getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String key, FilterChain chain) {
+        return perform(method, uri, key, "", chain);
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String key, String body, FilterChain chain) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            idempotencyFilter.doFilter(request, response, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+
+    private static void authenticateAs(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, Collections.emptyList()));
+    }
+}
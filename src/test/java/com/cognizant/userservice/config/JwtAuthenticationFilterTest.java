@@ -0,0 +1,193 @@
+package com.cognizant.userservice.config;
+
+import com.cognizant.userservice.model.TokenPrincipal;
+import com.cognizant.userservice.model.User;
+import com.cognizant.userservice.model.UserPrincipal;
+import com.cognizant.userservice.model.VerifiedToken;
+import com.cognizant.userservice.service.JwtService;
+import com.cognizant.userservice.service.TokenRevocationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    private static final String JWT = "header.payload.signature";
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @InjectMocks
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @BeforeEach
+    void setUp() {
+        init(Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testClaimsToken_PrincipalBuiltFromClaims() throws Exception {
+        VerifiedToken token = token(Map.of(VerifiedToken.CLAIM_USER_ID, 42, VerifiedToken.CLAIM_ROLE, "EMPLOYEE"));
+        when(jwtService.verifyToken(JWT)).thenReturn(Optional.of(token));
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(stored("EMPLOYEE"));
+
+        Authentication authentication = authenticate();
+
+        TokenPrincipal principal = assertInstanceOf(TokenPrincipal.class, authentication.getPrincipal());
+        assertEquals(42L, principal.getUserId());
+        assertEquals("alice", principal.getUsername());
+        assertEquals("EMPLOYEE", principal.getRole());
+        assertEquals("EMPLOYEE", authentication.getAuthorities().iterator().next().getAuthority());
+        assertNull(authentication.getCredentials());
+    }
+
+    @Test
+    void testClaimsToken_StoreRecheckedOncePerInterval() throws Exception {
+        VerifiedToken token = token(Map.of(VerifiedToken.CLAIM_USER_ID, 42, VerifiedToken.CLAIM_ROLE, "EMPLOYEE"));
+        when(jwtService.verifyToken(JWT)).thenReturn(Optional.of(token));
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(stored("EMPLOYEE"));
+
+        assertNotNull(authenticate());
+        assertNotNull(authenticate());
+        assertNotNull(authenticate());
+
+        verify(userDetailsService, times(1)).loadUserByUsername("alice");
+    }
+
+    @Test
+    void testClaimsToken_ZeroIntervalRechecksEveryRequest() throws Exception {
+        init(Duration.ZERO);
+        VerifiedToken token = token(Map.of(VerifiedToken.CLAIM_USER_ID, 42, VerifiedToken.CLAIM_ROLE, "EMPLOYEE"));
+        when(jwtService.verifyToken(JWT)).thenReturn(Optional.of(token));
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(stored("EMPLOYEE"));
+
+        assertNotNull(authenticate());
+        assertNotNull(authenticate());
+
+        verify(userDetailsService, times(2)).loadUserByUsername("alice");
+    }
+
+    @Test
+    void testClaimsToken_RejectedWhenRecheckFindsRoleChanged() throws Exception {
+        VerifiedToken token = token(Map.of(VerifiedToken.CLAIM_USER_ID, 42, VerifiedToken.CLAIM_ROLE, "ADMIN"));
+        when(jwtService.verifyToken(JWT)).thenReturn(Optional.of(token));
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(stored("EMPLOYEE"));
+
+        assertNull(authenticate());
+        // A failed re-check is not remembered, so the next request checks again
+        assertNull(authenticate());
+
+        verify(userDetailsService, times(2)).loadUserByUsername("alice");
+    }
+
+    @Test
+    void testClaimsToken_RejectedWhenUsernameNowBelongsToAnotherUser() throws Exception {
+        VerifiedToken token = token(Map.of(VerifiedToken.CLAIM_USER_ID, 42, VerifiedToken.CLAIM_ROLE, "EMPLOYEE"));
+        when(jwtService.verifyToken(JWT)).thenReturn(Optional.of(token));
+        // The account was deleted and its username registered again
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(stored(43L, "EMPLOYEE"));
+
+        assertNull(authenticate());
+    }
+
+    @Test
+    void testClaimsToken_RejectedWhenUserDeleted() throws Exception {
+        VerifiedToken token = token(Map.of(VerifiedToken.CLAIM_USER_ID, 42, VerifiedToken.CLAIM_ROLE, "EMPLOYEE"));
+        when(jwtService.verifyToken(JWT)).thenReturn(Optional.of(token));
+        when(userDetailsService.loadUserByUsername("alice")).thenThrow(new UsernameNotFoundException("alice"));
+
+        assertNull(authenticate());
+    }
+
+    @Test
+    void testTokenWithoutClaims_LoadsUserFromStoreEveryRequest() throws Exception {
+        UserDetails stored = stored("EMPLOYEE");
+        when(jwtService.verifyToken(JWT)).thenReturn(Optional.of(token(Map.of())));
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(stored);
+
+        assertSame(stored, authenticate().getPrincipal());
+        assertSame(stored, authenticate().getPrincipal());
+
+        verify(userDetailsService, times(2)).loadUserByUsername("alice");
+    }
+
+    @Test
+    void testRevokedToken_NotAuthenticated() throws Exception {
+        VerifiedToken token = token(Map.of(VerifiedToken.CLAIM_USER_ID, 42, VerifiedToken.CLAIM_ROLE, "EMPLOYEE"));
+        when(jwtService.verifyToken(JWT)).thenReturn(Optional.of(token));
+        when(tokenRevocationService.isRevoked(token)).thenReturn(true);
+
+        assertNull(authenticate());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    private void init(Duration recheckInterval) {
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "storeRecheckInterval", recheckInterval);
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "storeRecheckCacheMaxSize", 100L);
+        jwtAuthenticationFilter.initRecheckCache();
+    }
+
+    // Runs one request carrying the token through the filter and returns the authentication it left behind
+    private Authentication authenticate() throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/attendance/history");
+        request.addHeader("Authorization", "Bearer " + JWT);
+        MockFilterChain chain = new MockFilterChain();
+
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static VerifiedToken token(Map<String, Object> claims) {
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        return new VerifiedToken("alice", issuedAt, issuedAt.plusSeconds(900), claims);
+    }
+
+    private static UserDetails stored(String role) {
+        return stored(42L, role);
+    }
+
+    private static UserDetails stored(Long userId, String role) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername("alice");
+        user.setPassword("not-used");
+        user.setRole(User.Role.valueOf(role));
+        return new UserPrincipal(user);
+    }
+}
@@ -0,0 +1,150 @@
+package com.cognizant.userservice.config;
+
+import com.cognizant.userservice.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs a one-thread pool with a one-slot queue; the thread is held busy with a latch to saturate it.
+ */
+class PasswordHashingExecutorTest {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(3);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PasswordHashingExecutor hashingExecutor;
+
+    // Stands in for the request threads waiting on the pool
+    private ExecutorService callers;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (hashingExecutor != null) {
+            hashingExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void testExecute_RunsOnPoolAndRecordsLatency() {
+        hashingExecutor = executor(Duration.ofMinutes(1));
+
+        String thread = hashingExecutor.execute("matches", () -> Thread.currentThread().getName());
+
+        assertTrue(thread.startsWith("password-hash-"));
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void testExecute_RejectsWhenPoolAndQueueAreFull() throws Exception {
+        hashingExecutor = executor(Duration.ofMinutes(1));
+        Future<Boolean> running = callers.submit(() -> hashingExecutor.execute("matches", this::awaitRelease));
+        awaitPool(1, 0);
+        Future<Boolean> queued = callers.submit(() -> hashingExecutor.execute("matches", () -> true));
+        awaitPool(1, 1);
+
+        ServiceBusyException ex = assertThrows(ServiceBusyException.class,
+                () -> hashingExecutor.execute("matches", () -> true));
+
+        assertEquals(RETRY_AFTER.toSeconds(), ex.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("auth.password.hash.rejected").tag("operation", "matches").counter().count());
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testExecute_RejectsTaskThatWaitedPastQueueTimeout() throws Exception {
+        hashingExecutor = executor(Duration.ofMillis(50));
+        Future<Boolean> running = callers.submit(() -> hashingExecutor.execute("matches", this::awaitRelease));
+        awaitPool(1, 0);
+        Runnable hash = mock(Runnable.class);
+        Future<Boolean> queued = callers.submit(() -> hashingExecutor.execute("encode", () -> {
+            hash.run();
+            return true;
+        }));
+        awaitPool(1, 1);
+        Thread.sleep(100);
+        release.countDown();
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+
+        ServiceBusyException busy = assertInstanceOf(ServiceBusyException.class, ex.getCause());
+        assertEquals(RETRY_AFTER.toSeconds(), busy.getRetryAfterSeconds());
+        verifyNoInteractions(hash);
+        assertEquals(1.0, meterRegistry.get("auth.password.hash.expired").tag("operation", "encode").counter().count());
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testExecute_RethrowsTaskException() {
+        hashingExecutor = executor(Duration.ofMinutes(1));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> hashingExecutor.execute("encode", () -> {
+                    throw new IllegalArgumentException("rawPassword cannot be null");
+                }));
+
+        assertEquals("rawPassword cannot be null", ex.getMessage());
+    }
+
+    @Test
+    void testBoundedPasswordEncoder_HashesOnPool() {
+        hashingExecutor = executor(Duration.ofMinutes(1));
+        PasswordEncoder delegate = spy(new BCryptPasswordEncoder(4));
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, hashingExecutor);
+
+        String hash = encoder.encode("s3cret-password");
+
+        assertTrue(encoder.matches("s3cret-password", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count());
+        verify(delegate).upgradeEncoding(hash);
+    }
+
+    private PasswordHashingExecutor executor(Duration queueTimeout) {
+        return new PasswordHashingExecutor(1, 1, queueTimeout, RETRY_AFTER, meterRegistry);
+    }
+
+    private boolean awaitRelease() throws InterruptedException {
+        return release.await(5, TimeUnit.SECONDS);
+    }
+
+    // Waits until the pool has the given number of running and queued tasks
+    private void awaitPool(int active, int queued) throws InterruptedException {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) ReflectionTestUtils.getField(hashingExecutor, "executor");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pool.getActiveCount() != active || pool.getQueue().size() != queued) {
+            assertTrue(System.nanoTime() < deadline, "Pool did not reach " + active + " running and " + queued + " queued");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.cognizant.userservice.controller;
 
+import com.cognizant.userservice.dto.PunchDirection;
+import com.cognizant.userservice.dto.PunchResult;
+import com.cognizant.userservice.dto.SyncResult;
 import com.cognizant.userservice.model.Attendance;
 import com.cognizant.userservice.service.AttendanceService;
+import com.cognizant.userservice.service.KioskPunchService;
+import com.cognizant.userservice.service.OfflinePunchSyncService;
+import com.cognizant.userservice.service.OrgAttendanceStatsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,21 +15,41 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +60,15 @@ class AttendanceControllerTest {
     @Mock
     private AttendanceService attendanceService;
 
+    @Mock
+    private KioskPunchService kioskPunchService;
+
+    @Mock
+    private OfflinePunchSyncService offlinePunchSyncService;
+
+    @Mock
+    private OrgAttendanceStatsService orgAttendanceStatsService;
+
     @InjectMocks
     private AttendanceController attendanceController;
 
@@ -42,6 +77,7 @@ class AttendanceControllerTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(attendanceController, "pastPeriodMaxAge", Duration.ofDays(1));
         mockMvc = MockMvcBuilders.standaloneSetup(attendanceController).build();
         attendance = new Attendance();
         attendance.setId(1L);
@@ -100,4 +136,100 @@ class AttendanceControllerTest {
                         .param("weekOfYear", "1"))
                 .andExpect(status().isOk());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testGetWeeklyStatsForUser_NotModified() throws Exception {
+        when(attendanceService.getAttendanceETag(1L)).thenReturn(Optional.of("\"1-5\""));
+
+        mockMvc.perform(get("/api/v1/attendance/user/1/stats/weekly")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-5\"")
+                        .param("year", "2023")
+                        .param("weekOfYear", "1"))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-5\""));
+        verify(attendanceService, never()).getWeeklyStats(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testGetMyMonthlyStats_PastPeriodCachedLonger() throws Exception {
+        when(attendanceService.getAttendanceETag(any(Principal.class))).thenReturn(Optional.of("\"1-6\""));
+        when(attendanceService.getMyMonthlyStats(any(Principal.class), anyInt(), anyInt())).thenReturn(new HashMap<>());
+
+        mockMvc.perform(get("/api/v1/attendance/my-stats/monthly")
+                        .principal(principal)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-5\"")
+                        .param("year", "2023")
+                        .param("month", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-6\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, private"));
+
+        LocalDate today = LocalDate.now();
+        mockMvc.perform(get("/api/v1/attendance/my-stats/monthly")
+                        .principal(principal)
+                        .param("year", String.valueOf(today.getYear()))
+                        .param("month", String.valueOf(today.getMonthValue())))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+    }
+
+    @Test
+    void testApplyPunches() throws Exception {
+        when(kioskPunchService.applyPunches(anyList())).thenReturn(List.of(
+                new PunchResult(0, 1L, PunchDirection.IN, PunchResult.Status.APPLIED, null, 10L),
+                new PunchResult(1, 2L, PunchDirection.OUT, PunchResult.Status.REJECTED, "Check-out failed", null)));
+
+        mockMvc.perform(post("/api/v1/attendance/punches/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"userId\":1,\"timestamp\":\"2024-05-06T09:00:00\",\"direction\":\"IN\"},"
+                                + "{\"userId\":2,\"timestamp\":\"2024-05-06T09:01:00\",\"direction\":\"OUT\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("APPLIED"))
+                .andExpect(jsonPath("$[0].attendanceId").value(10))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"));
+    }
+
+    @Test
+    void testSyncPunches() throws Exception {
+        when(offlinePunchSyncService.sync(any(InputStream.class))).thenReturn(new SyncResult(3, 1, 2, 0));
+
+        mockMvc.perform(post("/api/v1/attendance/punches/sync")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.duplicates").value(1))
+                .andExpect(jsonPath("$.applied").value(2));
+    }
+
+    @Test
+    void testRebuildProjection() throws Exception {
+        when(attendanceService.rebuildProjection()).thenReturn(42);
+
+        mockMvc.perform(post("/api/v1/attendance/projection/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions").value(42));
+    }
+
+    @Test
+    void testGetOrgWeeklyStats_StreamsServiceOutput() throws Exception {
+        OrgAttendanceStatsService.OrgStats stats = new OrgAttendanceStatsService.OrgStats(
+                null, LocalDate.of(2024, 5, 6), LocalDate.of(2024, 5, 12), List.of(), Collections.emptyMap());
+        when(orgAttendanceStatsService.getWeeklyStats(2024, 19, List.of(1L, 2L))).thenReturn(stats);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write("{\"users\":[{\"userId\":1}]}".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(orgAttendanceStatsService).write(eq(stats), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/attendance/org/stats/weekly")
+                        .param("year", "2024")
+                        .param("weekOfYear", "19")
+                        .param("userIds", "1,2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, private"))
+                .andExpect(jsonPath("$.users[0].userId").value(1));
+    }
+}
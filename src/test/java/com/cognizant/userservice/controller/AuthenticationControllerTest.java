@@ -1,8 +1,16 @@
 package com.cognizant.userservice.controller;
 
 import com.cognizant.userservice.dto.AuthenticationRequest;
+import com.cognizant.userservice.dto.RefreshTokenRequest;
+import com.cognizant.userservice.exception.GlobalExceptionHandler;
+import com.cognizant.userservice.exception.InvalidRefreshTokenException;
+import com.cognizant.userservice.exception.LoginThrottledException;
+import com.cognizant.userservice.exception.ServiceBusyException;
+import com.cognizant.userservice.model.UserPrincipal;
 import com.cognizant.userservice.service.JwtService;
+import com.cognizant.userservice.service.LoginRateLimiter;
 import com.cognizant.userservice.service.MyUserDetailsService;
+import com.cognizant.userservice.service.RefreshTokenService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,8 +28,12 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import java.util.ArrayList;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -39,6 +51,12 @@ class AuthenticationControllerTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
     @InjectMocks
     private AuthenticationController authenticationController;
 
@@ -46,7 +64,9 @@ class AuthenticationControllerTest {
 
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(authenticationController).build();
+        mockMvc = MockMvcBuilders.standaloneSetup(authenticationController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
     }
 
     @Test
@@ -56,11 +76,76 @@ class AuthenticationControllerTest {
 
         when(myUserDetailsService.loadUserByUsername("user")).thenReturn(userDetails);
         when(jwtService.generateToken(any(UserDetails.class))).thenReturn("mock-jwt-token");
+        when(refreshTokenService.issue("user")).thenReturn("mock-refresh-token");
 
         mockMvc.perform(post("/api/v1/auth/authenticate")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.token").value("mock-jwt-token"));
+                .andExpect(jsonPath("$.token").value("mock-jwt-token"))
+                .andExpect(jsonPath("$.refreshToken").value("mock-refresh-token"));
+    }
+
+    @Test
+    void testAuthenticate_Throttled() throws Exception {
+        AuthenticationRequest request = new AuthenticationRequest("user", "password");
+        doThrow(new LoginThrottledException("Too many login attempts, please try again later", 12))
+                .when(loginRateLimiter).checkAttempt(eq("user"), any());
+
+        mockMvc.perform(post("/api/v1/auth/authenticate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "12"));
+
+        verifyNoInteractions(authenticationManager);
+    }
+
+    @Test
+    void testAuthenticate_HashingPoolBusy() throws Exception {
+        AuthenticationRequest request = new AuthenticationRequest("user", "password");
+        when(authenticationManager.authenticate(any()))
+                .thenThrow(new ServiceBusyException("Authentication service is busy, please retry shortly.", 2));
+
+        mockMvc.perform(post("/api/v1/auth/authenticate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.message").value("Authentication service is busy, please retry shortly."));
+
+        verifyNoInteractions(refreshTokenService);
+    }
+
+    @Test
+    void testRefresh() throws Exception {
+        com.cognizant.userservice.model.User user = new com.cognizant.userservice.model.User();
+        user.setId(1L);
+        user.setUsername("user");
+        user.setRole(com.cognizant.userservice.model.User.Role.EMPLOYEE);
+
+        when(refreshTokenService.rotate("old-refresh-token"))
+                .thenReturn(new RefreshTokenService.Rotation(user, "new-refresh-token"));
+        when(jwtService.generateToken(any(UserPrincipal.class))).thenReturn("new-jwt-token");
+
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("old-refresh-token"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("new-jwt-token"))
+                .andExpect(jsonPath("$.refreshToken").value("new-refresh-token"));
+
+        verifyNoInteractions(authenticationManager);
+    }
+
+    @Test
+    void testRefresh_InvalidToken() throws Exception {
+        when(refreshTokenService.rotate("stale"))
+                .thenThrow(new InvalidRefreshTokenException("Refresh token has already been used"));
+
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("stale"))))
+                .andExpect(status().isUnauthorized());
     }
 } 
\ No newline at end of file
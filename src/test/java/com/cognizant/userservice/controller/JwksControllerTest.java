@@ -0,0 +1,51 @@
+package com.cognizant.userservice.controller;
+
+import com.cognizant.userservice.service.JwtSigningKeys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class JwksControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private JwtSigningKeys signingKeys;
+
+    @InjectMocks
+    private JwksController jwksController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(jwksController).build();
+    }
+
+    @Test
+    void testJwks() throws Exception {
+        when(signingKeys.toJwks()).thenReturn(List.of(
+                Map.of("kty", "RSA", "kid", "2025-01", "use", "sig", "alg", "RS256", "n", "abc", "e", "AQAB"),
+                Map.of("kty", "RSA", "kid", "2025-06", "use", "sig", "alg", "RS256", "n", "def", "e", "AQAB")));
+
+        mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=300, public"))
+                .andExpect(jsonPath("$.keys.length()").value(2))
+                .andExpect(jsonPath("$.keys[0].kid").value("2025-01"))
+                .andExpect(jsonPath("$.keys[1].e").value("AQAB"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.cognizant.userservice.repository;
+
+import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two check-outs of the same open session at once against the embedded database, each in its own committed
+ * transaction as in production: a kiosk or offline-sync batch that closes the session it loaded with
+ * {@link AttendanceRepository#findOpenSessionsForUsers}, or the auto-close job that locked it with
+ * {@link AttendanceRepository#lockOpenSessionIds}, and a web check-out or second batch that has to wait for it.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AttendanceLockingTest {
+
+    private static final LocalDateTime CHECK_IN = LocalDateTime.of(2024, 5, 6, 9, 0);
+
+    // How long the second writer is expected to stay blocked; well under the database's lock timeout
+    private static final long BLOCKED_MILLIS = 300;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    private User user;
+
+    private Attendance open;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        user = new User();
+        user.setUsername("locking-test");
+        user.setEmail("locking-test@example.com");
+        user.setPassword("not-used");
+        user.setMobile(9_000_000_001L);
+        user.setRole(User.Role.EMPLOYEE);
+        user = userRepository.save(user);
+
+        Attendance attendance = new Attendance();
+        attendance.setUser(user);
+        attendance.setCheckInTime(CHECK_IN);
+        open = attendanceRepository.save(attendance);
+    }
+
+    @AfterEach
+    void tearDown() {
+        attendanceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testBatchCheckOut_WebCheckOutWaitsAndFindsSessionClosed() throws Exception {
+        LocalDateTime batchCheckOut = CHECK_IN.plusHours(8);
+
+        // The web check-out starts after the batch has read the session but before it writes it
+        TransactionStatus batch = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        Attendance loaded = loadOpenSession();
+        CompletableFuture<Integer> webCheckOut = CompletableFuture.supplyAsync(() -> transaction.execute(status ->
+                attendanceRepository.closeSession(open.getId(), user.getId(), CHECK_IN, CHECK_IN.plusHours(9))));
+        assertBlocked(webCheckOut);
+        close(loaded, batchCheckOut);
+        transactionManager.commit(batch);
+
+        assertEquals(0, webCheckOut.get(5, TimeUnit.SECONDS));
+        Attendance closed = attendanceRepository.findById(open.getId()).orElseThrow();
+        assertEquals(batchCheckOut, closed.getCheckOutTime());
+        assertEquals(Duration.ofHours(8).toSeconds(), closed.getTotalDuration());
+    }
+
+    @Test
+    void testBatchCheckOut_SecondBatchWaitsAndFindsNoOpenSession() throws Exception {
+        LocalDateTime batchCheckOut = CHECK_IN.plusHours(8);
+
+        TransactionStatus batch = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        close(loadOpenSession(), batchCheckOut);
+        CompletableFuture<List<Attendance>> secondBatch = CompletableFuture.supplyAsync(() -> transaction.execute(status ->
+                attendanceRepository.findOpenSessionsForUsers(List.of(user.getId()))));
+        assertBlocked(secondBatch);
+        transactionManager.commit(batch);
+
+        assertTrue(secondBatch.get(5, TimeUnit.SECONDS).isEmpty());
+        assertEquals(batchCheckOut, attendanceRepository.findById(open.getId()).orElseThrow().getCheckOutTime());
+    }
+
+    @Test
+    void testCapClose_WebCheckOutWaitsUntilSessionClosedAtCap() throws Exception {
+        long cap = Duration.ofHours(16).toSeconds();
+
+        TransactionStatus autoClose = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        assertEquals(List.of(open.getId()), attendanceRepository.lockOpenSessionIds(List.of(open.getId())));
+        CompletableFuture<Integer> webCheckOut = CompletableFuture.supplyAsync(() -> transaction.execute(status ->
+                attendanceRepository.closeSession(open.getId(), user.getId(), CHECK_IN, CHECK_IN.plusSeconds(cap))));
+        assertBlocked(webCheckOut);
+        assertEquals(1, attendanceRepository.closeSessionsAtCap(List.of(open.getId()), cap));
+        transactionManager.commit(autoClose);
+
+        assertEquals(0, webCheckOut.get(5, TimeUnit.SECONDS));
+        assertEquals(cap, attendanceRepository.findById(open.getId()).orElseThrow().getTotalDuration());
+        assertTrue(transaction.execute(status -> attendanceRepository.lockOpenSessionIds(List.of(open.getId()))).isEmpty());
+    }
+
+    // Loads the session the way a kiosk or offline batch does
+    private Attendance loadOpenSession() {
+        List<Attendance> sessions = attendanceRepository.findOpenSessionsForUsers(List.of(user.getId()));
+        assertEquals(1, sessions.size());
+        return sessions.get(0);
+    }
+
+    // Closes a loaded session the way a batch does, by changing the managed entity
+    private void close(Attendance session, LocalDateTime checkOut) {
+        session.setCheckOutTime(checkOut);
+        session.setTotalDuration(Duration.between(session.getCheckInTime(), checkOut).toSeconds());
+        attendanceRepository.flush();
+    }
+
+    private static void assertBlocked(CompletableFuture<?> writer) {
+        assertThrows(TimeoutException.class, () -> writer.get(BLOCKED_MILLIS, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,86 @@
+package com.cognizant.userservice.repository;
+
+import com.cognizant.userservice.dto.OpenSessionView;
+import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the native check-out UPDATE against the embedded database.
+ */
+@DataJpaTest
+class AttendanceRepositoryTest {
+
+    private static final LocalDateTime CHECK_IN = LocalDateTime.of(2024, 5, 6, 9, 0, 15);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    private User user;
+
+    private Attendance open;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("repository-test");
+        user.setEmail("repository-test@example.com");
+        user.setPassword("not-used");
+        user.setMobile(9_000_000_000L);
+        user.setRole(User.Role.EMPLOYEE);
+        entityManager.persist(user);
+
+        open = new Attendance();
+        open.setUser(user);
+        open.setCheckInTime(CHECK_IN);
+        entityManager.persist(open);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testFindOpenSession() {
+        OpenSessionView session = attendanceRepository.findOpenSession(user.getId()).orElseThrow();
+
+        assertEquals(open.getId(), session.getAttendanceId());
+        assertEquals(CHECK_IN, session.getCheckInTime());
+    }
+
+    @Test
+    void testCloseSession_DatabaseComputesDuration() {
+        LocalDateTime checkOut = CHECK_IN.plusHours(8).plusMinutes(30).plusSeconds(7);
+
+        assertEquals(1, attendanceRepository.closeSession(open.getId(), user.getId(), CHECK_IN, checkOut));
+        entityManager.clear();
+
+        Attendance closed = attendanceRepository.findById(open.getId()).orElseThrow();
+        assertEquals(checkOut, closed.getCheckOutTime());
+        assertEquals(8 * 3600L + 30 * 60 + 7, closed.getTotalDuration());
+        assertTrue(attendanceRepository.findOpenSession(user.getId()).isEmpty());
+    }
+
+    @Test
+    void testCloseSession_StaleHintChangesNothing() {
+        LocalDateTime checkOut = CHECK_IN.plusHours(1);
+
+        assertEquals(0, attendanceRepository.closeSession(open.getId(), user.getId(), CHECK_IN.minusSeconds(1), checkOut));
+        assertEquals(0, attendanceRepository.closeSession(open.getId(), user.getId() + 1, CHECK_IN, checkOut));
+        assertEquals(1, attendanceRepository.closeSession(open.getId(), user.getId(), CHECK_IN, checkOut));
+        // Already closed
+        assertEquals(0, attendanceRepository.closeSession(open.getId(), user.getId(), CHECK_IN, checkOut.plusHours(1)));
+        entityManager.clear();
+
+        assertEquals(checkOut, attendanceRepository.findById(open.getId()).orElseThrow().getCheckOutTime());
+    }
+}
@@ -2,10 +2,15 @@ package com.cognizant.userservice.service;
 
 import com.cognizant.userservice.exception.UnauthorizedActionException;
 import com.cognizant.userservice.exception.UserNotFoundException;
+import com.cognizant.userservice.model.Attendance;
 import com.cognizant.userservice.model.AttendanceAdjustment;
+import com.cognizant.userservice.model.PunchEvent;
 import com.cognizant.userservice.model.User;
 import com.cognizant.userservice.repository.AttendanceAdjustmentRepository;
 import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.MaintenanceTaskRepository;
+import com.cognizant.userservice.repository.PunchEventRepository;
 import com.cognizant.userservice.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +18,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.security.Principal;
 import java.time.LocalDateTime;
@@ -34,6 +40,18 @@ class AttendanceAdjustmentServiceTest {
     @Mock
     private AttendanceRepository attendanceRepository;
 
+    @Mock
+    private PunchEventRepository punchEventRepository;
+
+    @Mock
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Mock
+    private MaintenanceTaskRepository maintenanceTaskRepository;
+
+    @Mock
+    private AttendanceStatsCache attendanceStatsCache;
+
     @InjectMocks
     private AttendanceAdjustmentService attendanceAdjustmentService;
 
@@ -62,6 +80,12 @@ class AttendanceAdjustmentServiceTest {
         adjustment.setId(1L);
         adjustment.setUser(user);
         adjustment.setStatus(AttendanceAdjustment.AdjustmentStatus.PENDING);
+        adjustment.setRequestedCheckIn(LocalDateTime.of(2024, 5, 6, 9, 0));
+        adjustment.setRequestedCheckOut(LocalDateTime.of(2024, 5, 6, 17, 30));
+
+        AttendanceProjector projector = new AttendanceProjector(punchEventRepository, attendanceRepository, userRepository,
+                dailyRollupRepository, attendanceStatsCache, maintenanceTaskRepository);
+        ReflectionTestUtils.setField(attendanceAdjustmentService, "attendanceProjector", projector);
     }
 
     @Test
@@ -88,7 +112,10 @@ class AttendanceAdjustmentServiceTest {
 
         assertNotNull(result);
         assertEquals(AttendanceAdjustment.AdjustmentStatus.APPROVED, result.getStatus());
-        verify(attendanceRepository, times(1)).save(any());
+        verify(attendanceRepository, times(1)).save(argThat((Attendance attendance) ->
+                attendance.getTotalDuration() == 8 * 3600L + 1800L && attendance.getUser() == user));
+        verify(punchEventRepository, times(1)).save(argThat((PunchEvent event) -> event.getType() == PunchEvent.Type.SESSION
+                && event.getSource() == PunchEvent.Source.ADJUSTMENT && event.getEndsAt().equals(adjustment.getRequestedCheckOut())));
         verify(attendanceAdjustmentRepository, times(1)).save(adjustment);
     }
 
@@ -104,6 +131,7 @@ class AttendanceAdjustmentServiceTest {
         assertNotNull(result);
         assertEquals(AttendanceAdjustment.AdjustmentStatus.REJECTED, result.getStatus());
         verify(attendanceRepository, never()).save(any());
+        verify(punchEventRepository, never()).save(any());
         verify(attendanceAdjustmentRepository, times(1)).save(adjustment);
     }
 
@@ -0,0 +1,286 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.OpenSessionView;
+import com.cognizant.userservice.dto.SessionHistoryView;
+import com.cognizant.userservice.exception.PunchLogNotReadyException;
+import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.DailyAttendanceRollup;
+import com.cognizant.userservice.model.PunchEvent;
+import com.cognizant.userservice.model.User;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.MaintenanceTaskRepository;
+import com.cognizant.userservice.repository.PunchEventRepository;
+import com.cognizant.userservice.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttendanceProjectorTest {
+
+    private static final LocalDateTime MORNING = LocalDateTime.of(2024, 5, 6, 9, 0);
+
+    @Mock
+    private PunchEventRepository punchEventRepository;
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Mock
+    private MaintenanceTaskRepository maintenanceTaskRepository;
+
+    @Mock
+    private AttendanceStatsCache attendanceStatsCache;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private AttendanceProjector attendanceProjector;
+
+    @BeforeEach
+    void setUp() {
+        // Mockito injects through the constructor, which leaves the container-managed entity manager out
+        ReflectionTestUtils.setField(attendanceProjector, "entityManager", entityManager);
+    }
+
+    @Test
+    void testReplay_FoldsEventsIntoSessions() {
+        stubUserReferences();
+
+        List<Attendance> sessions = attendanceProjector.replay(List.of(
+                event(1L, PunchEvent.checkIn(1L, MORNING, PunchEvent.Source.WEB)),
+                event(2L, PunchEvent.session(1L, MORNING.minusDays(1), MORNING.minusDays(1).plusHours(4), PunchEvent.Source.ADJUSTMENT)),
+                event(3L, PunchEvent.checkOut(1L, MORNING.plusHours(8), PunchEvent.Source.WEB)),
+                event(4L, PunchEvent.checkIn(2L, MORNING, PunchEvent.Source.KIOSK))));
+
+        assertEquals(3, sessions.size());
+        assertEquals(MORNING.plusHours(8), sessions.get(0).getCheckOutTime());
+        assertEquals(8 * 3600L, sessions.get(0).getTotalDuration());
+        assertEquals(4 * 3600L, sessions.get(1).getTotalDuration());
+        assertEquals(2L, sessions.get(2).getUser().getId());
+        assertNull(sessions.get(2).getCheckOutTime());
+    }
+
+    @Test
+    void testReplay_SkipsEventsThatDoNotFit() {
+        stubUserReferences();
+
+        List<Attendance> sessions = attendanceProjector.replay(List.of(
+                event(1L, PunchEvent.checkOut(1L, MORNING.minusHours(1), PunchEvent.Source.WEB)), // nothing open
+                event(2L, PunchEvent.checkIn(1L, MORNING, PunchEvent.Source.WEB)),
+                event(3L, PunchEvent.checkIn(1L, MORNING.plusHours(1), PunchEvent.Source.KIOSK)), // already open
+                event(4L, PunchEvent.checkOut(1L, MORNING.minusMinutes(5), PunchEvent.Source.AUTO_CLOSE)), // before the check-in
+                event(5L, PunchEvent.checkOut(1L, MORNING.plusHours(2), PunchEvent.Source.WEB))));
+
+        assertEquals(1, sessions.size());
+        assertEquals(MORNING, sessions.get(0).getCheckInTime());
+        assertEquals(MORNING.plusHours(2), sessions.get(0).getCheckOutTime());
+    }
+
+    @Test
+    void testRebuild_ReplacesSessionsWithReplayedLog() {
+        stubUserReferences();
+        when(maintenanceTaskRepository.existsById(PunchEventBackfill.BACKFILL_TASK)).thenReturn(true);
+        when(punchEventRepository.findUserIds()).thenReturn(List.of(1L));
+        when(punchEventRepository.findInReplayOrder(List.of(1L))).thenReturn(List.of(
+                event(1L, PunchEvent.checkIn(1L, MORNING, PunchEvent.Source.WEB)),
+                event(2L, PunchEvent.checkOut(1L, MORNING.plusHours(8), PunchEvent.Source.WEB))));
+
+        assertEquals(1, attendanceProjector.rebuild());
+
+        verify(attendanceRepository).deleteAllInBatch();
+        verify(dailyRollupRepository).deleteAllInBatch();
+        verify(attendanceStatsCache).invalidateAll();
+        verify(attendanceRepository).saveAll(argThat((List<Attendance> sessions) ->
+                sessions.size() == 1 && sessions.get(0).getTotalDuration() == 8 * 3600L));
+        verify(dailyRollupRepository).saveAll(argThat((Collection<DailyAttendanceRollup> days) -> days.size() == 1
+                && days.iterator().next().getSeconds() == 8 * 3600L));
+        verify(entityManager).clear();
+    }
+
+    @Test
+    void testRebuild_RefusedUntilLogBackfilled() {
+        when(maintenanceTaskRepository.existsById(PunchEventBackfill.BACKFILL_TASK)).thenReturn(false);
+
+        assertThrows(PunchLogNotReadyException.class, () -> attendanceProjector.rebuild());
+
+        verify(attendanceRepository, never()).deleteAllInBatch();
+        verify(dailyRollupRepository, never()).deleteAllInBatch();
+    }
+
+    @Test
+    void testRollUp_SumsClosedSessionsPerUserAndDay() {
+        stubUserReferences();
+        List<Attendance> sessions = attendanceProjector.replay(List.of(
+                event(1L, PunchEvent.session(1L, MORNING, MORNING.plusHours(3), PunchEvent.Source.WEB)),
+                event(2L, PunchEvent.session(1L, MORNING.plusHours(4), MORNING.plusHours(6), PunchEvent.Source.WEB)),
+                event(3L, PunchEvent.session(1L, MORNING.plusDays(1), MORNING.plusDays(1).plusHours(1), PunchEvent.Source.WEB)),
+                event(4L, PunchEvent.checkIn(2L, MORNING, PunchEvent.Source.WEB))));
+
+        List<DailyAttendanceRollup> days = List.copyOf(AttendanceProjector.rollUp(sessions));
+
+        assertEquals(2, days.size());
+        assertEquals(5 * 3600L, days.get(0).getSeconds());
+        assertEquals(2, days.get(0).getSessions());
+        assertEquals(MORNING.toLocalDate().plusDays(1), days.get(1).getDay());
+    }
+
+    @Test
+    void testCloseAtCap_OnlyRecordsSessionsClosedByThisRun() {
+        long cap = 16 * 3600L;
+        // User 1 checked out by hand in the meantime, possibly after exactly the cap
+        when(attendanceRepository.lockOpenSessionIds(List.of(10L, 11L))).thenReturn(List.of(11L));
+        when(attendanceRepository.closeSessionsAtCap(List.of(11L), cap)).thenReturn(1);
+        when(dailyRollupRepository.addToDay(2L, MORNING.toLocalDate(), cap, 1)).thenReturn(1);
+
+        assertEquals(1, attendanceProjector.closeAtCap(List.of(openSession(1L, 10L), openSession(2L, 11L)), cap));
+
+        verify(punchEventRepository).saveAll(argThat((List<PunchEvent> events) -> events.size() == 1
+                && events.get(0).getUserId() == 2L && events.get(0).getOccurredAt().equals(MORNING.plusSeconds(cap))));
+        verify(dailyRollupRepository, never()).addToDay(eq(1L), any(), anyLong(), anyInt());
+        verify(dailyRollupRepository, never()).save(any());
+        verify(attendanceStatsCache).invalidate(2L, MORNING.toLocalDate());
+        verify(attendanceStatsCache, never()).invalidate(eq(1L), any());
+    }
+
+    @Test
+    void testCloseAtCap_NothingLeftOpen() {
+        when(attendanceRepository.lockOpenSessionIds(List.of(10L))).thenReturn(List.of());
+
+        assertEquals(0, attendanceProjector.closeAtCap(List.of(openSession(1L, 10L)), 16 * 3600L));
+
+        verify(attendanceRepository, never()).closeSessionsAtCap(anyList(), anyLong());
+        verifyNoInteractions(punchEventRepository, dailyRollupRepository);
+    }
+
+    @Test
+    void testBackfill_SeedsLogFromAttendanceUpToCapturedId() {
+        when(attendanceRepository.findSessionsAfter(eq(0L), eq(6L), any(Pageable.class))).thenReturn(List.of(
+                history(5L, 1L, MORNING.minusDays(1), MORNING.minusDays(1).plusHours(8)),
+                history(6L, 1L, MORNING, null)));
+
+        assertEquals(2, attendanceProjector.backfillFromAttendance(6L));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PunchEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(punchEventRepository).saveAll(events.capture());
+        assertEquals(PunchEvent.Type.SESSION, events.getValue().get(0).getType());
+        assertEquals(MORNING.minusDays(1).plusHours(8), events.getValue().get(0).getEndsAt());
+        assertEquals(PunchEvent.Type.CHECK_IN, events.getValue().get(1).getType());
+        assertTrue(events.getValue().stream().allMatch(event -> event.getSource() == PunchEvent.Source.MIGRATION));
+    }
+
+    @Test
+    void testBackfill_SkipsSessionsAlreadyInLog() {
+        when(attendanceRepository.findSessionsAfter(eq(0L), eq(7L), any(Pageable.class))).thenReturn(List.of(
+                history(5L, 1L, MORNING.minusDays(1), MORNING.minusDays(1).plusHours(8)),
+                history(6L, 2L, MORNING.minusDays(1), null),
+                history(7L, 1L, MORNING, MORNING.plusHours(4))));
+        // User 1 checked in live through another instance, and an earlier run seeded the session of user 2
+        when(punchEventRepository.findByTypeOccurredBetween(Set.of(1L, 2L),
+                List.of(PunchEvent.Type.CHECK_IN, PunchEvent.Type.SESSION), MORNING.minusDays(1), MORNING))
+                .thenReturn(List.of(PunchEvent.checkIn(1L, MORNING, PunchEvent.Source.WEB),
+                        PunchEvent.checkIn(2L, MORNING.minusDays(1), PunchEvent.Source.MIGRATION)));
+
+        assertEquals(1, attendanceProjector.backfillFromAttendance(7L));
+
+        verify(punchEventRepository).saveAll(argThat((List<PunchEvent> events) -> events.size() == 1
+                && events.get(0).getUserId() == 1L && events.get(0).getOccurredAt().equals(MORNING.minusDays(1))));
+    }
+
+    @Test
+    void testBatch_RejectsPunchesThatDoNotFit() {
+        when(userRepository.getReferenceById(1L)).thenReturn(user(1L));
+        AttendanceProjector.Batch batch = attendanceProjector.batch(List.of(), PunchEvent.Source.KIOSK);
+
+        assertThrows(IllegalStateException.class, () -> batch.checkOut(1L, MORNING));
+        batch.checkIn(1L, MORNING);
+        assertThrows(IllegalStateException.class, () -> batch.checkIn(1L, MORNING.plusHours(1)));
+        assertThrows(IllegalStateException.class, () -> batch.checkOut(1L, MORNING.minusHours(1)));
+    }
+
+    private void stubUserReferences() {
+        when(userRepository.getReferenceById(anyLong())).thenAnswer(invocation -> user(invocation.getArgument(0)));
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static PunchEvent event(Long id, PunchEvent event) {
+        event.setId(id);
+        return event;
+    }
+
+    private static OpenSessionView openSession(Long userId, Long attendanceId) {
+        return new OpenSessionView() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Long getAttendanceId() {
+                return attendanceId;
+            }
+
+            @Override
+            public LocalDateTime getCheckInTime() {
+                return MORNING;
+            }
+        };
+    }
+
+    private static SessionHistoryView history(Long id, Long userId, LocalDateTime checkIn, LocalDateTime checkOut) {
+        return new SessionHistoryView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public LocalDateTime getCheckInTime() {
+                return checkIn;
+            }
+
+            @Override
+            public LocalDateTime getCheckOutTime() {
+                return checkOut;
+            }
+        };
+    }
+}
@@ -1,24 +1,46 @@
 package com.cognizant.userservice.service;
 
+import com.cognizant.userservice.dto.DailyTotalView;
+import com.cognizant.userservice.dto.OpenSessionView;
 import com.cognizant.userservice.exception.ActiveAttendanceExistsException;
 import com.cognizant.userservice.exception.NoActiveAttendanceException;
 import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.DailyAttendanceRollup;
+import com.cognizant.userservice.model.PunchEvent;
+import com.cognizant.userservice.model.TokenPrincipal;
 import com.cognizant.userservice.model.User;
+import com.cognizant.userservice.repository.AttendanceAdjustmentRepository;
 import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.MaintenanceTaskRepository;
+import com.cognizant.userservice.repository.PunchEventRepository;
 import com.cognizant.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.security.Principal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.WeekFields;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,9 +52,26 @@ class AttendanceServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PunchEventRepository punchEventRepository;
+
+    @Mock
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Mock
+    private MaintenanceTaskRepository maintenanceTaskRepository;
+
+    @Mock
+    private DailyRollupMaintenance dailyRollupMaintenance;
+
+    @Mock
+    private AttendanceAdjustmentRepository attendanceAdjustmentRepository;
+
     @InjectMocks
     private AttendanceService attendanceService;
 
+    private ActiveSessionIndex activeSessionIndex;
+
     private User user;
     private Principal principal;
 
@@ -43,54 +82,281 @@ class AttendanceServiceTest {
         user.setUsername("testuser");
 
         principal = () -> "testuser";
+
+        activeSessionIndex = new ActiveSessionIndex(attendanceRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(attendanceService, "activeSessionIndex", activeSessionIndex);
+
+        AttendanceStatsCache statsCache = new AttendanceStatsCache(100, Duration.ofMinutes(1), Duration.ofHours(6), Duration.ofDays(2),
+                attendanceAdjustmentRepository, new SimpleMeterRegistry());
+        AttendanceProjector projector = new AttendanceProjector(punchEventRepository, attendanceRepository, userRepository,
+                dailyRollupRepository, statsCache, maintenanceTaskRepository);
+        ReflectionTestUtils.setField(attendanceService, "attendanceStatsCache", statsCache);
+        ReflectionTestUtils.setField(attendanceService, "attendanceProjector", projector);
     }
 
     @Test
     void testCheckIn_Success() {
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(attendanceRepository.findByUserAndCheckOutTimeIsNull(user)).thenReturn(Optional.empty());
-        when(attendanceRepository.save(any(Attendance.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(attendanceRepository.saveAndFlush(any(Attendance.class))).thenAnswer(i -> {
+            Attendance saved = i.getArgument(0);
+            saved.setId(10L);
+            return saved;
+        });
 
         Attendance attendance = attendanceService.checkIn(principal);
 
         assertNotNull(attendance);
         assertNotNull(attendance.getCheckInTime());
         assertNull(attendance.getCheckOutTime());
-        verify(attendanceRepository, times(1)).save(any(Attendance.class));
+        verify(attendanceRepository, times(1)).saveAndFlush(any(Attendance.class));
+        verify(punchEventRepository).save(argThat((PunchEvent event) -> event.getType() == PunchEvent.Type.CHECK_IN
+                && event.getUserId().equals(1L) && event.getSource() == PunchEvent.Source.WEB));
+        assertEquals(10L, activeSessionIndex.find(1L).orElseThrow().attendanceId());
+    }
+
+    @Test
+    void testCheckIn_TokenPrincipalSkipsUserLookup() {
+        Principal authenticated = new UsernamePasswordAuthenticationToken(
+                new TokenPrincipal(1L, "testuser", "EMPLOYEE"), null, Collections.emptyList());
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(attendanceRepository.saveAndFlush(any(Attendance.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        attendanceService.checkIn(authenticated);
+
+        verify(userRepository, never()).findByUsername(any());
+        verify(attendanceRepository, never()).findByUserAndCheckOutTimeIsNull(any());
     }
 
     @Test
-    void testCheckIn_AlreadyCheckedIn() {
+    void testCheckIn_StaleIndexEntryDoesNotBlock() {
+        // Closed through another instance, which this index never heard of
+        activeSessionIndex.recordCheckIn(1L, 5L, LocalDateTime.now().minusHours(1));
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(attendanceRepository.findByUserAndCheckOutTimeIsNull(user)).thenReturn(Optional.of(new Attendance()));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(attendanceRepository.saveAndFlush(any(Attendance.class))).thenAnswer(i -> {
+            Attendance saved = i.getArgument(0);
+            saved.setId(10L);
+            return saved;
+        });
 
-        assertThrows(ActiveAttendanceExistsException.class, () -> attendanceService.checkIn(principal));
-        verify(attendanceRepository, never()).save(any(Attendance.class));
+        attendanceService.checkIn(principal);
+
+        assertEquals(10L, activeSessionIndex.find(1L).orElseThrow().attendanceId());
+    }
+
+    @Test
+    void testCheckIn_OpenSessionConstraintViolation() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(attendanceRepository.saveAndFlush(any(Attendance.class))).thenThrow(new DataIntegrityViolationException(
+                "Duplicate entry '1' for key 'attendance_tbl.uk_attendance_open_session'"));
+
+        ActiveAttendanceExistsException ex = assertThrows(ActiveAttendanceExistsException.class, () -> attendanceService.checkIn(principal));
+        assertSame(ActiveAttendanceExistsException.ALREADY_CHECKED_IN, ex);
+        assertEquals(0, ex.getStackTrace().length);
+        verify(punchEventRepository, never()).save(any());
+        assertTrue(activeSessionIndex.find(1L).isEmpty());
+    }
+
+    @Test
+    void testCheckIn_OtherConstraintViolationPropagates() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(attendanceRepository.saveAndFlush(any(Attendance.class))).thenThrow(new DataIntegrityViolationException(
+                "Referential integrity constraint violation: FK_USER"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> attendanceService.checkIn(principal));
     }
 
     @Test
     void testCheckOut_Success() {
-        Attendance checkedInAttendance = new Attendance();
-        checkedInAttendance.setUser(user);
-        checkedInAttendance.setCheckInTime(LocalDateTime.now().minusHours(1));
+        LocalDateTime checkInTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusHours(1);
+        activeSessionIndex.recordCheckIn(1L, 10L, checkInTime);
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(attendanceRepository.findByUserAndCheckOutTimeIsNull(user)).thenReturn(Optional.of(checkedInAttendance));
-        when(attendanceRepository.save(any(Attendance.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(attendanceRepository.closeSession(eq(10L), eq(1L), eq(checkInTime), any(LocalDateTime.class))).thenReturn(1);
 
         Attendance attendance = attendanceService.checkOut(principal);
 
         assertNotNull(attendance);
+        assertEquals(10L, attendance.getId());
+        assertEquals(checkInTime, attendance.getCheckInTime());
         assertNotNull(attendance.getCheckOutTime());
-        verify(attendanceRepository, times(1)).save(any(Attendance.class));
+        assertEquals(Duration.between(checkInTime, attendance.getCheckOutTime()).getSeconds(), attendance.getTotalDuration());
+        assertTrue(attendance.getTotalDurationFormatted().startsWith("1 hours, 0 minutes"));
+        // The indexed session is closed by its ID in one statement, and nothing is read back
+        verify(attendanceRepository, never()).findOpenSession(any());
+        verify(attendanceRepository, never()).save(any(Attendance.class));
+        verify(punchEventRepository).save(argThat((PunchEvent event) -> event.getType() == PunchEvent.Type.CHECK_OUT
+                && event.getOccurredAt().equals(attendance.getCheckOutTime())));
+        verify(dailyRollupRepository).addToDay(1L, checkInTime.toLocalDate(), attendance.getTotalDuration(), 1);
+        verify(dailyRollupRepository).save(argThat((DailyAttendanceRollup rollup) ->
+                rollup.getSeconds() == attendance.getTotalDuration()));
+        assertTrue(activeSessionIndex.find(1L).isEmpty());
     }
 
     @Test
     void testCheckOut_NotCheckedIn() {
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(attendanceRepository.findByUserAndCheckOutTimeIsNull(user)).thenReturn(Optional.empty());
+        when(attendanceRepository.findOpenSession(1L)).thenReturn(Optional.empty());
 
         assertThrows(NoActiveAttendanceException.class, () -> attendanceService.checkOut(principal));
-        verify(attendanceRepository, never()).save(any(Attendance.class));
+        verify(attendanceRepository, never()).closeSession(any(), any(), any(), any());
+        verify(punchEventRepository, never()).save(any());
+    }
+
+    @Test
+    void testCheckOut_CheckedInOnAnotherInstance() {
+        LocalDateTime checkInTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusHours(1);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(attendanceRepository.findOpenSession(1L)).thenReturn(Optional.of(openSession(10L, checkInTime)));
+        when(attendanceRepository.closeSession(eq(10L), eq(1L), eq(checkInTime), any(LocalDateTime.class))).thenReturn(1);
+
+        Attendance attendance = attendanceService.checkOut(principal);
+
+        assertEquals(10L, attendance.getId());
+        verify(punchEventRepository).save(argThat((PunchEvent event) -> event.getType() == PunchEvent.Type.CHECK_OUT));
+    }
+
+    @Test
+    void testCheckOut_StaleIndexEntry() {
+        LocalDateTime checkInTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusHours(1);
+        activeSessionIndex.recordCheckIn(1L, 10L, checkInTime);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(attendanceRepository.closeSession(eq(10L), eq(1L), eq(checkInTime), any(LocalDateTime.class))).thenReturn(0);
+        when(attendanceRepository.findOpenSession(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NoActiveAttendanceException.class, () -> attendanceService.checkOut(principal));
+        verify(punchEventRepository, never()).save(any());
+        assertTrue(activeSessionIndex.find(1L).isEmpty());
+    }
+
+    @Test
+    void testCheckOut_StaleIndexEntryFallsBackToOpenSession() {
+        // Session 10 was closed, and session 11 opened, through another instance
+        LocalDateTime checkInTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusHours(1);
+        activeSessionIndex.recordCheckIn(1L, 10L, checkInTime.minusHours(2));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(attendanceRepository.closeSession(eq(10L), eq(1L), eq(checkInTime.minusHours(2)), any(LocalDateTime.class)))
+                .thenReturn(0);
+        when(attendanceRepository.findOpenSession(1L)).thenReturn(Optional.of(openSession(11L, checkInTime)));
+        when(attendanceRepository.closeSession(eq(11L), eq(1L), eq(checkInTime), any(LocalDateTime.class))).thenReturn(1);
+
+        Attendance attendance = attendanceService.checkOut(principal);
+
+        assertEquals(11L, attendance.getId());
+        assertEquals(checkInTime, attendance.getCheckInTime());
+        assertTrue(activeSessionIndex.find(1L).isEmpty());
+    }
+
+    @Test
+    void testGetAttendanceETag_MovesWithEveryPunch() {
+        LocalDateTime checkInTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusHours(1);
+        activeSessionIndex.recordCheckIn(1L, 10L, checkInTime);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(attendanceRepository.closeSession(eq(10L), eq(1L), eq(checkInTime), any(LocalDateTime.class))).thenReturn(1);
+        when(userRepository.findAttendanceVersion(1L)).thenReturn(Optional.of(7L));
+
+        attendanceService.checkOut(principal);
+
+        verify(userRepository).incrementAttendanceVersions(List.of(1L));
+        assertEquals(Optional.of("\"1-7\""), attendanceService.getAttendanceETag(1L));
+    }
+
+    @Test
+    void testGetWeeklyStats_ReadsRollupOnceReady() {
+        // ISO week 19 of 2024 runs from Monday 6 May to Sunday 12 May.
+        LocalDate monday = LocalDate.of(2024, 5, 6);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(dailyRollupMaintenance.isReady()).thenReturn(true);
+        when(dailyRollupRepository.findByUserIdAndDayBetweenOrderByDay(1L, monday, monday.plusDays(6))).thenReturn(List.of(
+                new DailyAttendanceRollup(1L, monday, 8 * 3600L, 2),
+                new DailyAttendanceRollup(1L, monday.plusDays(2), 1800L, 1)));
+
+        Map<String, Object> stats = attendanceService.getWeeklyStats(1L, 2024, 19);
+
+        assertEquals("8 hours, 30 minutes, 0 seconds", stats.get("totalHoursThisWeek"));
+        assertEquals(2, stats.get("totalWorkingDaysThisWeek"));
+        assertEquals(List.of(Map.of("date", "2024-05-06", "totalHours", "8 hours, 0 minutes, 0 seconds"),
+                Map.of("date", "2024-05-08", "totalHours", "0 hours, 30 minutes, 0 seconds")), stats.get("dailyBreakdown"));
+        verify(attendanceRepository, never()).findByUserAndCheckInTimeBetween(any(), any(), any());
+    }
+
+    @Test
+    void testGetWeeklyStats_AggregatesInDatabaseUntilBackfilled() {
+        LocalDate monday = LocalDate.of(2024, 5, 6);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(attendanceRepository.sumDailyDurationsForUser(1L, monday.atStartOfDay(), monday.plusDays(7).atStartOfDay()))
+                .thenReturn(List.of(dailyTotal(monday, 3600L)));
+
+        Map<String, Object> stats = attendanceService.getWeeklyStats(1L, 2024, 19);
+
+        assertEquals("1 hours, 0 minutes, 0 seconds", stats.get("totalHoursThisWeek"));
+        assertEquals(1, stats.get("totalWorkingDaysThisWeek"));
+        verify(attendanceRepository, never()).findByUserAndCheckInTimeBetween(any(), any(), any());
+        verify(dailyRollupRepository, never()).findByUserIdAndDayBetweenOrderByDay(any(), any(), any());
+    }
+
+    @Test
+    void testGetMonthlyStats_FoldsDaysIntoWeeks() {
+        LocalDate monday = LocalDate.of(2024, 5, 6);
+        WeekFields weekFields = WeekFields.of(Locale.getDefault());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(attendanceRepository.sumDailyDurationsForUser(1L, LocalDate.of(2024, 5, 1).atStartOfDay(),
+                LocalDate.of(2024, 6, 1).atStartOfDay()))
+                .thenReturn(List.of(dailyTotal(monday.plusDays(1), 1800L), dailyTotal(monday.plusDays(2), 1800L),
+                        dailyTotal(monday.plusDays(15), 7200L)));
+
+        Map<String, Object> stats = attendanceService.getMonthlyStats(1L, 2024, 5);
+
+        assertEquals("3 hours, 0 minutes, 0 seconds", stats.get("totalHoursThisMonth"));
+        assertEquals(Map.of(
+                "Week " + monday.plusDays(1).get(weekFields.weekOfWeekBasedYear()), "1 hours, 0 minutes, 0 seconds",
+                "Week " + monday.plusDays(15).get(weekFields.weekOfWeekBasedYear()), "2 hours, 0 minutes, 0 seconds"),
+                stats.get("weeklyBreakdown"));
+    }
+
+    private static DailyTotalView dailyTotal(LocalDate day, Long seconds) {
+        return new DailyTotalView() {
+            @Override
+            public Long getUserId() {
+                return 1L;
+            }
+
+            @Override
+            public LocalDate getWorkDay() {
+                return day;
+            }
+
+            @Override
+            public Long getTotalSeconds() {
+                return seconds;
+            }
+
+            @Override
+            public Long getSessionCount() {
+                return 1L;
+            }
+        };
+    }
+
+    private static OpenSessionView openSession(Long attendanceId, LocalDateTime checkInTime) {
+        return new OpenSessionView() {
+            @Override
+            public Long getUserId() {
+                return 1L;
+            }
+
+            @Override
+            public Long getAttendanceId() {
+                return attendanceId;
+            }
+
+            @Override
+            public LocalDateTime getCheckInTime() {
+                return checkInTime;
+            }
+        };
     }
-} 
\ No newline at end of file
+}
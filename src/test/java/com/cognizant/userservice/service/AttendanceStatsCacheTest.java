@@ -0,0 +1,144 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.model.AttendanceAdjustment;
+import com.cognizant.userservice.repository.AttendanceAdjustmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttendanceStatsCacheTest {
+
+    private static final LocalDate PAST_MONDAY = LocalDate.of(2024, 5, 6);
+
+    @Mock
+    private AttendanceAdjustmentRepository attendanceAdjustmentRepository;
+
+    private AttendanceStatsCache statsCache;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        statsCache = new AttendanceStatsCache(100, Duration.ofMinutes(1), Duration.ofHours(6), Duration.ofDays(2),
+                attendanceAdjustmentRepository, new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void testGet_RepeatServedFromCache() {
+        AttendanceStatsCache.Key key = week(1L, PAST_MONDAY);
+
+        Map<String, Object> first = statsCache.get(key, this::load);
+        Map<String, Object> second = statsCache.get(key, this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertThrows(UnsupportedOperationException.class, () -> first.put("total", 0));
+    }
+
+    @Test
+    void testInvalidate_KeepsUsersOtherPeriods() {
+        AttendanceStatsCache.Key settledWeek = week(1L, PAST_MONDAY);
+        AttendanceStatsCache.Key currentWeek = week(1L, LocalDate.now().with(DayOfWeek.MONDAY));
+        Map<String, Object> settled = statsCache.get(settledWeek, this::load);
+        statsCache.get(currentWeek, this::load);
+
+        // A punch today changes the current week only
+        statsCache.invalidate(1L, LocalDate.now());
+
+        assertSame(settled, statsCache.get(settledWeek, this::load));
+        statsCache.get(currentWeek, this::load);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testInvalidate_DropsWeekAndMonthOfTheDay() {
+        AttendanceStatsCache.Key week = week(1L, PAST_MONDAY);
+        AttendanceStatsCache.Key month = new AttendanceStatsCache.Key(1L, AttendanceStatsCache.Period.MONTH, PAST_MONDAY.withDayOfMonth(1));
+        AttendanceStatsCache.Key otherWeek = week(1L, PAST_MONDAY.plusWeeks(1));
+        AttendanceStatsCache.Key otherUser = week(2L, PAST_MONDAY);
+        statsCache.get(week, this::load);
+        statsCache.get(month, this::load);
+        statsCache.get(otherWeek, this::load);
+        statsCache.get(otherUser, this::load);
+
+        statsCache.invalidate(1L, PAST_MONDAY.plusDays(3));
+
+        statsCache.get(week, this::load);
+        statsCache.get(month, this::load);
+        statsCache.get(otherWeek, this::load);
+        statsCache.get(otherUser, this::load);
+        assertEquals(6, loads.get());
+    }
+
+    @Test
+    void testGet_NotCachedWhenWriteCommitsDuringLoad() {
+        AttendanceStatsCache.Key key = week(1L, PAST_MONDAY);
+
+        statsCache.get(key, () -> {
+            statsCache.invalidate(1L, PAST_MONDAY);
+            return load();
+        });
+        statsCache.get(key, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGet_PendingAdjustmentChecksOnlySettledPeriods() {
+        when(attendanceAdjustmentRepository.existsByUser_IdAndStatusAndRequestedCheckInBetween(eq(1L),
+                eq(AttendanceAdjustment.AdjustmentStatus.PENDING), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(true);
+
+        statsCache.get(week(1L, PAST_MONDAY), this::load);
+        statsCache.get(week(1L, LocalDate.now().with(DayOfWeek.MONDAY)), this::load);
+
+        verify(attendanceAdjustmentRepository, times(1)).existsByUser_IdAndStatusAndRequestedCheckInBetween(eq(1L),
+                eq(AttendanceAdjustment.AdjustmentStatus.PENDING), eq(PAST_MONDAY.atStartOfDay()),
+                eq(PAST_MONDAY.plusWeeks(1).atStartOfDay().minusNanos(1)));
+    }
+
+    @Test
+    void testGet_SettledPeriodExpiresAfterSettledTtl() {
+        AtomicLong nanos = new AtomicLong();
+        statsCache = new AttendanceStatsCache(100, Duration.ofMinutes(1), Duration.ofHours(6), Duration.ofDays(2),
+                attendanceAdjustmentRepository, new SimpleMeterRegistry(), nanos::get);
+        AttendanceStatsCache.Key key = week(1L, PAST_MONDAY);
+
+        statsCache.get(key, this::load);
+        nanos.addAndGet(Duration.ofHours(1).toNanos());
+        statsCache.get(key, this::load);
+        assertEquals(1, loads.get());
+
+        nanos.addAndGet(Duration.ofHours(5).plusMinutes(1).toNanos());
+        statsCache.get(key, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    private static AttendanceStatsCache.Key week(Long userId, LocalDate monday) {
+        return new AttendanceStatsCache.Key(userId, AttendanceStatsCache.Period.WEEK, monday);
+    }
+
+    private Map<String, Object> load() {
+        loads.incrementAndGet();
+        return new LinkedHashMap<>(Map.of("total", 1));
+    }
+}
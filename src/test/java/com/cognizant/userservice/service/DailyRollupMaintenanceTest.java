@@ -0,0 +1,154 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.DailyTotalView;
+import com.cognizant.userservice.model.DailyAttendanceRollup;
+import com.cognizant.userservice.model.MaintenanceTask;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.MaintenanceTaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DailyRollupMaintenanceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 6);
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Mock
+    private MaintenanceTaskRepository maintenanceTaskRepository;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    @Mock
+    private AttendanceStatsCache attendanceStatsCache;
+
+    @InjectMocks
+    private DailyRollupMaintenance dailyRollupMaintenance;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        DailyRollupReconciler reconciler = new DailyRollupReconciler();
+        ReflectionTestUtils.setField(reconciler, "attendanceRepository", attendanceRepository);
+        ReflectionTestUtils.setField(reconciler, "dailyRollupRepository", dailyRollupRepository);
+        ReflectionTestUtils.setField(reconciler, "attendanceStatsCache", attendanceStatsCache);
+        ReflectionTestUtils.setField(dailyRollupMaintenance, "dailyRollupReconciler", reconciler);
+        ReflectionTestUtils.setField(dailyRollupMaintenance, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(dailyRollupMaintenance, "checkWindow", Duration.ofDays(1));
+        ReflectionTestUtils.setField(dailyRollupMaintenance, "checkInterval", Duration.ofHours(1));
+        dailyRollupMaintenance.initMetrics();
+    }
+
+    @Test
+    void testBackfill_WritesRollupAndMarksReady() {
+        when(maintenanceTaskRepository.existsById(DailyRollupMaintenance.BACKFILL_TASK)).thenReturn(false);
+        when(schedulerLockService.tryLock(eq(DailyRollupMaintenance.BACKFILL_LOCK_NAME), any(Duration.class))).thenReturn(true);
+        when(attendanceRepository.findUserIdsWithSessions()).thenReturn(List.of(1L));
+        when(attendanceRepository.sumDailyDurationsForUsers(List.of(1L))).thenReturn(List.of(total(1L, DAY, 3600L, 2L)));
+
+        dailyRollupMaintenance.backfillOnStartup();
+
+        assertTrue(dailyRollupMaintenance.isReady());
+        verify(dailyRollupRepository).save(argThat((DailyAttendanceRollup rollup) ->
+                rollup.getUserId() == 1L && rollup.getDay().equals(DAY) && rollup.getSeconds() == 3600L && rollup.getSessions() == 2));
+        verify(maintenanceTaskRepository).save(argThat((MaintenanceTask task) ->
+                task.getName().equals(DailyRollupMaintenance.BACKFILL_TASK)));
+        verify(schedulerLockService).unlock(DailyRollupMaintenance.BACKFILL_LOCK_NAME);
+    }
+
+    @Test
+    void testBackfill_SkippedOnceCompleted() {
+        when(maintenanceTaskRepository.existsById(DailyRollupMaintenance.BACKFILL_TASK)).thenReturn(true);
+
+        dailyRollupMaintenance.backfillOnStartup();
+
+        assertTrue(dailyRollupMaintenance.isReady());
+        verify(schedulerLockService, never()).tryLock(any(), any());
+        verify(attendanceRepository, never()).findUserIdsWithSessions();
+    }
+
+    @Test
+    void testCheckConsistency_RepairsDrift() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        when(maintenanceTaskRepository.existsById(DailyRollupMaintenance.BACKFILL_TASK)).thenReturn(true);
+        when(schedulerLockService.tryLock(eq(DailyRollupMaintenance.CHECK_LOCK_NAME), any(Duration.class))).thenReturn(true);
+        DailyAttendanceRollup drifted = new DailyAttendanceRollup(1L, yesterday, 100L, 1);
+        DailyAttendanceRollup orphan = new DailyAttendanceRollup(2L, yesterday, 50L, 1);
+        when(attendanceRepository.sumDailyDurations(yesterday.atStartOfDay(), LocalDate.now().atStartOfDay()))
+                .thenReturn(List.of(total(1L, yesterday, 3600L, 1L), total(3L, yesterday, 60L, 1L)));
+        when(dailyRollupRepository.findByDay(yesterday)).thenReturn(List.of(drifted, orphan));
+
+        assertEquals(3, dailyRollupMaintenance.checkConsistency());
+
+        // The rows are locked before the sessions are summed, and the drift is added rather than overwritten
+        InOrder inOrder = inOrder(dailyRollupRepository, attendanceRepository);
+        inOrder.verify(dailyRollupRepository).findByDay(yesterday);
+        inOrder.verify(attendanceRepository).sumDailyDurations(yesterday.atStartOfDay(), LocalDate.now().atStartOfDay());
+        verify(dailyRollupRepository).addToDay(1L, yesterday, 3500L, 0);
+        assertEquals(100L, drifted.getSeconds());
+        verify(dailyRollupRepository).save(argThat((DailyAttendanceRollup rollup) -> rollup.getUserId() == 3L));
+        verify(dailyRollupRepository).deleteAll(argThat((Collection<DailyAttendanceRollup> rows) ->
+                rows.size() == 1 && rows.contains(orphan)));
+        verify(attendanceStatsCache, times(3)).invalidate(any(), eq(yesterday));
+        verify(schedulerLockService).unlock(DailyRollupMaintenance.CHECK_LOCK_NAME);
+        assertEquals(3.0, meterRegistry.get("attendance.rollup.mismatches").counter().count());
+    }
+
+    @Test
+    void testCheckConsistency_SkippedUntilBackfilled() {
+        when(maintenanceTaskRepository.existsById(DailyRollupMaintenance.BACKFILL_TASK)).thenReturn(false);
+
+        assertEquals(0, dailyRollupMaintenance.checkConsistency());
+        verify(schedulerLockService, never()).tryLock(any(), any());
+    }
+
+    private static DailyTotalView total(Long userId, LocalDate day, Long seconds, Long sessions) {
+        return new DailyTotalView() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public LocalDate getWorkDay() {
+                return day;
+            }
+
+            @Override
+            public Long getTotalSeconds() {
+                return seconds;
+            }
+
+            @Override
+            public Long getSessionCount() {
+                return sessions;
+            }
+        };
+    }
+}
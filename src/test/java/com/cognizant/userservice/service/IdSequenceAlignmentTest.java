@@ -0,0 +1,114 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.MaintenanceTask;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdSequenceAlignmentTest {
+
+    private static final String MAX_ID_QUERY = "select max(e.id) from Attendance e";
+
+    private static final String NEXT_VAL_QUERY = "select next_val from attendance_seq";
+
+    private static final String RAISE_UPDATE = "update attendance_seq set next_val = ? where next_val < ?";
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Metamodel metamodel;
+
+    @Mock
+    private EntityType<Attendance> attendanceType;
+
+    @Mock
+    private EntityType<MaintenanceTask> maintenanceTaskType;
+
+    @Mock
+    private TypedQuery<Long> maxIdQuery;
+
+    @InjectMocks
+    private IdSequenceAlignment idSequenceAlignment;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManager.getMetamodel()).thenReturn(metamodel);
+        when(metamodel.getEntities()).thenReturn(Set.of(attendanceType, maintenanceTaskType));
+        when(attendanceType.getJavaType()).thenReturn(Attendance.class);
+        when(attendanceType.getName()).thenReturn("Attendance");
+        when(maintenanceTaskType.getJavaType()).thenReturn(MaintenanceTask.class);
+    }
+
+    @Test
+    void testAlign_RaisesSequenceTableBehindMaxId() {
+        sequenceTable(true);
+        when(entityManager.createQuery(MAX_ID_QUERY, Long.class)).thenReturn(maxIdQuery);
+        when(maxIdQuery.getSingleResult()).thenReturn(1_234L);
+        when(jdbcTemplate.queryForObject(NEXT_VAL_QUERY, Long.class)).thenReturn(1L);
+
+        idSequenceAlignment.afterSingletonsInstantiated();
+
+        // allocationSize is 50, so the next block read at 1284 starts at 1235
+        verify(jdbcTemplate).update(RAISE_UPDATE, 1_284L, 1_284L);
+    }
+
+    @Test
+    void testAlign_SequenceTableAheadUntouched() {
+        sequenceTable(true);
+        when(entityManager.createQuery(MAX_ID_QUERY, Long.class)).thenReturn(maxIdQuery);
+        when(maxIdQuery.getSingleResult()).thenReturn(1_234L);
+        when(jdbcTemplate.queryForObject(NEXT_VAL_QUERY, Long.class)).thenReturn(1_301L);
+
+        idSequenceAlignment.afterSingletonsInstantiated();
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void testAlign_EmptyTableUntouched() {
+        sequenceTable(true);
+        when(entityManager.createQuery(MAX_ID_QUERY, Long.class)).thenReturn(maxIdQuery);
+        when(maxIdQuery.getSingleResult()).thenReturn(null);
+
+        idSequenceAlignment.afterSingletonsInstantiated();
+
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void testAlign_NativeSequenceSkipped() {
+        sequenceTable(false);
+
+        idSequenceAlignment.afterSingletonsInstantiated();
+
+        verify(entityManager, never()).createQuery(anyString(), eq(Long.class));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sequenceTable(boolean exists) {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(exists);
+    }
+}
@@ -0,0 +1,183 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.model.UserPrincipal;
+import com.cognizant.userservice.model.VerifiedToken;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    // RSA key generation is slow, so one ephemeral key set is shared by all tests
+    private static JwtSigningKeys signingKeys;
+
+    private JwtService jwtService;
+
+    private UserDetails userDetails;
+
+    @BeforeAll
+    static void generateKeys() {
+        signingKeys = new JwtSigningKeys("", "", true);
+    }
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET_KEY);
+        ReflectionTestUtils.setField(jwtService, "legacyVerification", true);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedTokenCache", new VerifiedTokenCache(100, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(jwtService, "signingKeys", signingKeys);
+        jwtService.init();
+        userDetails = new User("testuser", "password", new ArrayList<>());
+    }
+
+    @Test
+    void testVerifyToken_Valid() {
+        String token = jwtService.generateToken(userDetails);
+
+        Optional<VerifiedToken> verified = jwtService.verifyToken(token);
+
+        assertTrue(verified.isPresent());
+        assertEquals("testuser", verified.get().getUsername());
+        assertNotNull(verified.get().getExpiresAt());
+        assertTrue(jwtService.isTokenValid(token, userDetails));
+    }
+
+    @Test
+    void testGenerateToken_SignsWithActiveKeyId() {
+        String header = new String(Base64.getUrlDecoder().decode(jwtService.generateToken(userDetails).split("\\.")[0]),
+                StandardCharsets.UTF_8);
+
+        assertTrue(header.contains("\"alg\":\"RS256\""));
+        assertTrue(header.contains("\"kid\":\"" + signingKeys.getActiveKeyId() + "\""));
+    }
+
+    @Test
+    void testGenerateToken_EmbedsIdentityClaims() {
+        com.cognizant.userservice.model.User user = new com.cognizant.userservice.model.User();
+        user.setId(42L);
+        user.setUsername("employee");
+        user.setRole(com.cognizant.userservice.model.User.Role.EMPLOYEE);
+
+        VerifiedToken verified = jwtService.verifyToken(jwtService.generateToken(new UserPrincipal(user))).orElseThrow();
+
+        assertTrue(verified.hasIdentityClaims());
+        assertEquals(42L, verified.getUserId());
+        assertEquals("EMPLOYEE", verified.getRole());
+    }
+
+    @Test
+    void testVerifyToken_RepeatServedFromCache() {
+        String token = jwtService.generateToken(userDetails);
+
+        VerifiedToken first = jwtService.verifyToken(token).orElseThrow();
+        VerifiedToken second = jwtService.verifyToken(token).orElseThrow();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void testVerifyToken_Tampered() {
+        String token = jwtService.generateToken(userDetails);
+        String[] parts = token.split("\\.");
+        String forgedBody = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin\"}".getBytes(StandardCharsets.UTF_8));
+        String tampered = parts[0] + "." + forgedBody + "." + parts[2];
+
+        assertTrue(jwtService.verifyToken(tampered).isEmpty());
+        assertFalse(jwtService.isTokenValid(tampered, userDetails));
+    }
+
+    @Test
+    void testVerifyToken_Expired() {
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", -1_000L);
+        String token = jwtService.generateToken(userDetails);
+
+        assertTrue(jwtService.verifyToken(token).isEmpty());
+    }
+
+    @Test
+    void testVerifyToken_Garbage() {
+        assertTrue(jwtService.verifyToken("not-a-jwt").isEmpty());
+        assertTrue(jwtService.verifyToken("").isEmpty());
+    }
+
+    @Test
+    void testVerifyToken_LegacyHs256() {
+        String legacyToken = legacyToken();
+
+        assertEquals("testuser", jwtService.verifyToken(legacyToken).orElseThrow().getUsername());
+
+        ReflectionTestUtils.setField(jwtService, "legacyVerification", false);
+        jwtService.init();
+        assertTrue(jwtService.verifyToken(legacyToken).isEmpty());
+    }
+
+    @Test
+    void testInit_LegacyVerificationNeedsSecret() {
+        ReflectionTestUtils.setField(jwtService, "secretKey", "");
+
+        assertThrows(IllegalStateException.class, () -> jwtService.init());
+
+        ReflectionTestUtils.setField(jwtService, "legacyVerification", false);
+        jwtService.init();
+        assertTrue(jwtService.verifyToken(legacyToken()).isEmpty());
+    }
+
+    @Test
+    void testSigningKeys_NoDirectoryOutsideDevProfile() {
+        assertThrows(IllegalStateException.class, () -> new JwtSigningKeys("", "", false));
+    }
+
+    @Test
+    void testVerifyToken_UnknownKeyId() {
+        String token = Jwts.builder()
+                .setHeaderParam("kid", "retired-key")
+                .setSubject("testuser")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(new JwtSigningKeys("", "", true).getSigningKey(), SignatureAlgorithm.RS256)
+                .compact();
+
+        assertTrue(jwtService.verifyToken(token).isEmpty());
+    }
+
+    @Test
+    void testVerifyToken_HmacTokenWithRsaKeyIdRejected() {
+        String token = Jwts.builder()
+                .setHeaderParam("kid", signingKeys.getActiveKeyId())
+                .setSubject("admin")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertTrue(jwtService.verifyToken(token).isEmpty());
+    }
+
+    private static String legacyToken() {
+        return Jwts.builder()
+                .setSubject("testuser")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
@@ -0,0 +1,200 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.PunchDirection;
+import com.cognizant.userservice.dto.PunchRequest;
+import com.cognizant.userservice.dto.PunchResult;
+import com.cognizant.userservice.exception.InvalidPunchBatchException;
+import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.PunchEvent;
+import com.cognizant.userservice.model.User;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.MaintenanceTaskRepository;
+import com.cognizant.userservice.repository.PunchEventRepository;
+import com.cognizant.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KioskPunchServiceTest {
+
+    private static final LocalDateTime MORNING = LocalDateTime.of(2024, 5, 6, 9, 0);
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PunchEventRepository punchEventRepository;
+
+    @Mock
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Mock
+    private MaintenanceTaskRepository maintenanceTaskRepository;
+
+    @Mock
+    private AttendanceStatsCache attendanceStatsCache;
+
+    @InjectMocks
+    private KioskPunchService kioskPunchService;
+
+    private ActiveSessionIndex activeSessionIndex;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        activeSessionIndex = new ActiveSessionIndex(attendanceRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(kioskPunchService, "activeSessionIndex", activeSessionIndex);
+        ReflectionTestUtils.setField(kioskPunchService, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(kioskPunchService, "maxClockSkew", Duration.ofMinutes(1));
+
+        AttendanceProjector projector = new AttendanceProjector(punchEventRepository, attendanceRepository, userRepository,
+                dailyRollupRepository, attendanceStatsCache, maintenanceTaskRepository);
+        ReflectionTestUtils.setField(kioskPunchService, "attendanceProjector", projector);
+
+        alice = new User();
+        alice.setId(1L);
+        bob = new User();
+        bob.setId(2L);
+    }
+
+    @Test
+    void testApplyPunches_AppliesInTimestampOrderPerUser() {
+        Attendance bobOpen = new Attendance();
+        bobOpen.setId(20L);
+        bobOpen.setUser(bob);
+        bobOpen.setCheckInTime(MORNING.minusHours(1));
+        when(userRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L, 2L));
+        when(attendanceRepository.findOpenSessionsForUsers(anyCollection())).thenReturn(List.of(bobOpen));
+        when(userRepository.getReferenceById(1L)).thenReturn(alice);
+        List<Attendance> saved = new ArrayList<>();
+        when(attendanceRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Attendance> created = invocation.getArgument(0);
+            created.forEach(attendance -> attendance.setId(30L));
+            saved.addAll(created);
+            return created;
+        });
+
+        List<PunchResult> results = kioskPunchService.applyPunches(List.of(
+                punch(1L, MORNING.plusHours(8), PunchDirection.OUT), // submitted before the check-in it closes
+                punch(1L, MORNING, PunchDirection.IN),
+                punch(2L, MORNING, PunchDirection.IN),
+                punch(2L, MORNING.plusHours(7), PunchDirection.OUT)));
+
+        assertEquals(PunchResult.Status.APPLIED, results.get(0).getStatus());
+        assertEquals(30L, results.get(0).getAttendanceId());
+        assertEquals(PunchResult.Status.APPLIED, results.get(1).getStatus());
+        assertEquals(PunchResult.Status.REJECTED, results.get(2).getStatus());
+        assertEquals(PunchResult.Status.APPLIED, results.get(3).getStatus());
+        assertEquals(20L, results.get(3).getAttendanceId());
+
+        assertEquals(1, saved.size());
+        assertEquals(8 * 3600L, saved.get(0).getTotalDuration());
+        assertEquals(MORNING.plusHours(7), bobOpen.getCheckOutTime());
+        assertEquals(8 * 3600L, bobOpen.getTotalDuration());
+        assertTrue(activeSessionIndex.find(1L).isEmpty());
+        assertTrue(activeSessionIndex.find(2L).isEmpty());
+        verify(userRepository, times(1)).findExistingIds(anyCollection());
+        verify(attendanceRepository, times(1)).findOpenSessionsForUsers(anyCollection());
+        // Only the applied punches are logged, in the order they were applied.
+        verify(punchEventRepository).saveAll(argThat((List<PunchEvent> events) -> events.size() == 3
+                && events.get(0).getType() == PunchEvent.Type.CHECK_IN && events.get(0).getOccurredAt().equals(MORNING)
+                && events.get(2).getType() == PunchEvent.Type.CHECK_OUT && events.get(2).getUserId().equals(1L)
+                && events.stream().allMatch(event -> event.getSource() == PunchEvent.Source.KIOSK)));
+    }
+
+    @Test
+    void testApplyPunches_RejectsInvalidPunches() {
+        when(userRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L));
+        when(attendanceRepository.findOpenSessionsForUsers(anyCollection())).thenReturn(Collections.emptyList());
+        when(userRepository.getReferenceById(1L)).thenReturn(alice);
+        when(attendanceRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Attendance> created = invocation.getArgument(0);
+            created.forEach(attendance -> attendance.setId(40L));
+            return created;
+        });
+
+        List<PunchResult> results = kioskPunchService.applyPunches(List.of(
+                punch(99L, MORNING, PunchDirection.IN),
+                punch(1L, null, PunchDirection.IN),
+                punch(1L, MORNING, PunchDirection.OUT),
+                punch(1L, MORNING.plusMinutes(1), PunchDirection.IN)));
+
+        assertEquals(PunchResult.Status.REJECTED, results.get(0).getStatus());
+        assertEquals("User not found with ID: 99", results.get(0).getMessage());
+        assertEquals(PunchResult.Status.REJECTED, results.get(1).getStatus());
+        assertEquals(PunchResult.Status.REJECTED, results.get(2).getStatus());
+        assertEquals(PunchResult.Status.APPLIED, results.get(3).getStatus());
+        assertEquals(40L, activeSessionIndex.find(1L).orElseThrow().attendanceId());
+    }
+
+    @Test
+    void testApplyPunches_RejectsPunchesOverlappingClosedSessions() {
+        Attendance closed = new Attendance();
+        closed.setId(10L);
+        closed.setUser(alice);
+        closed.setCheckInTime(MORNING.plusHours(2));
+        closed.setCheckOutTime(MORNING.plusHours(3));
+        when(userRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L));
+        when(attendanceRepository.findOpenSessionsForUsers(anyCollection())).thenReturn(Collections.emptyList());
+        when(attendanceRepository.findClosedSessionsOverlapping(anyCollection(), eq(MORNING), eq(MORNING.plusHours(8))))
+                .thenReturn(List.of(closed));
+        when(userRepository.getReferenceById(1L)).thenReturn(alice);
+        when(attendanceRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Attendance> created = invocation.getArgument(0);
+            created.forEach(attendance -> attendance.setId(40L));
+            return created;
+        });
+
+        List<PunchResult> results = kioskPunchService.applyPunches(List.of(
+                punch(1L, MORNING, PunchDirection.IN),
+                punch(1L, MORNING.plusHours(2).plusMinutes(30), PunchDirection.OUT), // inside the closed session
+                punch(1L, MORNING.plusHours(8), PunchDirection.OUT), // would enclose it
+                punch(1L, LocalDateTime.now().plusHours(1), PunchDirection.IN)));
+
+        assertEquals(PunchResult.Status.APPLIED, results.get(0).getStatus());
+        assertEquals("Punch falls inside an existing session.", results.get(1).getMessage());
+        assertEquals("Check-out failed: The session would overlap an existing session.", results.get(2).getMessage());
+        assertEquals("Punch timestamp is in the future.", results.get(3).getMessage());
+        assertEquals(MORNING, activeSessionIndex.find(1L).orElseThrow().checkInTime());
+        verify(punchEventRepository).saveAll(argThat((List<PunchEvent> events) -> events.size() == 1
+                && events.get(0).getType() == PunchEvent.Type.CHECK_IN));
+    }
+
+    @Test
+    void testApplyPunches_BatchTooLarge() {
+        List<PunchRequest> punches = Collections.nCopies(11, punch(1L, MORNING, PunchDirection.IN));
+
+        assertThrows(InvalidPunchBatchException.class, () -> kioskPunchService.applyPunches(punches));
+        verify(attendanceRepository, never()).saveAll(any());
+        verify(punchEventRepository, never()).saveAll(any());
+    }
+
+    private static PunchRequest punch(Long userId, LocalDateTime timestamp, PunchDirection direction) {
+        return new PunchRequest(userId, timestamp, direction);
+    }
+}
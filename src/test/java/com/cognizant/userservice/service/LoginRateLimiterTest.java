@@ -0,0 +1,58 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.exception.LoginThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LoginRateLimiter loginRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loginRateLimiter = new LoginRateLimiter(2, Duration.ofHours(1), 3, Duration.ofHours(1), 1000, meterRegistry);
+    }
+
+    @Test
+    void testCheckAttempt_ThrottlesUsernameAfterCapacity() {
+        loginRateLimiter.checkAttempt("testuser", "10.0.0.1");
+        loginRateLimiter.checkAttempt("TestUser", "10.0.0.2");
+
+        LoginThrottledException ex = assertThrows(LoginThrottledException.class,
+                () -> loginRateLimiter.checkAttempt("testuser", "10.0.0.3"));
+        assertTrue(ex.getRetryAfterSeconds() > 0);
+        assertEquals(1.0, meterRegistry.get("auth.login.throttled").tag("key", "username").counter().count());
+
+        assertDoesNotThrow(() -> loginRateLimiter.checkAttempt("otheruser", "10.0.0.3"));
+    }
+
+    @Test
+    void testCheckAttempt_ThrottlesAddressAcrossUsernames() {
+        loginRateLimiter.checkAttempt("a", "10.0.0.1");
+        loginRateLimiter.checkAttempt("b", "10.0.0.1");
+        loginRateLimiter.checkAttempt("c", "10.0.0.1");
+
+        assertThrows(LoginThrottledException.class, () -> loginRateLimiter.checkAttempt("d", "10.0.0.1"));
+        assertEquals(1.0, meterRegistry.get("auth.login.throttled").tag("key", "ip").counter().count());
+        assertDoesNotThrow(() -> loginRateLimiter.checkAttempt("d", "10.0.0.2"));
+    }
+
+    @Test
+    void testCheckAttempt_RefillsOverTime() throws InterruptedException {
+        LoginRateLimiter fastRefill = new LoginRateLimiter(1, Duration.ofMillis(50), 10, Duration.ofMillis(50), 1000, meterRegistry);
+        fastRefill.checkAttempt("testuser", "10.0.0.1");
+        assertThrows(LoginThrottledException.class, () -> fastRefill.checkAttempt("testuser", "10.0.0.1"));
+
+        Thread.sleep(100);
+
+        assertDoesNotThrow(() -> fastRefill.checkAttempt("testuser", "10.0.0.1"));
+    }
+}
@@ -0,0 +1,193 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.PunchDirection;
+import com.cognizant.userservice.dto.SyncPunch;
+import com.cognizant.userservice.model.Attendance;
+import com.cognizant.userservice.model.PunchEvent;
+import com.cognizant.userservice.model.PunchReceipt;
+import com.cognizant.userservice.model.User;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.MaintenanceTaskRepository;
+import com.cognizant.userservice.repository.PunchEventRepository;
+import com.cognizant.userservice.repository.PunchReceiptRepository;
+import com.cognizant.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OfflinePunchMergerTest {
+
+    private static final LocalDateTime MORNING = LocalDateTime.of(2024, 5, 6, 9, 0);
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PunchReceiptRepository punchReceiptRepository;
+
+    @Mock
+    private PunchEventRepository punchEventRepository;
+
+    @Mock
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Mock
+    private MaintenanceTaskRepository maintenanceTaskRepository;
+
+    @Mock
+    private AttendanceStatsCache attendanceStatsCache;
+
+    @InjectMocks
+    private OfflinePunchMerger offlinePunchMerger;
+
+    private ActiveSessionIndex activeSessionIndex;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        activeSessionIndex = new ActiveSessionIndex(attendanceRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(offlinePunchMerger, "activeSessionIndex", activeSessionIndex);
+        AttendanceProjector projector = new AttendanceProjector(punchEventRepository, attendanceRepository, userRepository,
+                dailyRollupRepository, attendanceStatsCache, maintenanceTaskRepository);
+        ReflectionTestUtils.setField(offlinePunchMerger, "attendanceProjector", projector);
+        user = new User();
+        user.setId(1L);
+        when(userRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L));
+        when(attendanceRepository.findOpenSessionsForUsers(anyCollection())).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    void testMerge_SortsPunchesPerUser() {
+        when(attendanceRepository.findClosedSessionsOverlapping(anyCollection(), any(), any())).thenReturn(Collections.emptyList());
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(attendanceRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Attendance> created = invocation.getArgument(0);
+            created.forEach(attendance -> attendance.setId(50L));
+            return created;
+        });
+
+        OfflinePunchMerger.Outcome outcome = offlinePunchMerger.merge(List.of(
+                punch("out", MORNING.plusHours(8), PunchDirection.OUT),
+                punch("in", MORNING, PunchDirection.IN)), false);
+
+        assertEquals(2, outcome.appliedClientIds().size());
+        assertTrue(outcome.deferred().isEmpty());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PunchReceipt>> receipts = ArgumentCaptor.forClass(List.class);
+        verify(punchReceiptRepository).saveAll(receipts.capture());
+        assertTrue(receipts.getValue().stream().allMatch(receipt -> receipt.getAttendanceId() == 50L));
+        verify(punchEventRepository).saveAll(argThat((List<PunchEvent> events) -> events.size() == 2
+                && events.get(0).getType() == PunchEvent.Type.CHECK_IN
+                && events.get(1).getType() == PunchEvent.Type.CHECK_OUT
+                && events.stream().allMatch(event -> event.getSource() == PunchEvent.Source.OFFLINE_SYNC)));
+        assertTrue(activeSessionIndex.find(1L).isEmpty());
+    }
+
+    @Test
+    void testMerge_UnmatchedOutDeferredThenRejected() {
+        when(attendanceRepository.findClosedSessionsOverlapping(anyCollection(), any(), any())).thenReturn(Collections.emptyList());
+        SyncPunch out = punch("out", MORNING.plusHours(8), PunchDirection.OUT);
+
+        OfflinePunchMerger.Outcome deferred = offlinePunchMerger.merge(List.of(out), false);
+        OfflinePunchMerger.Outcome rejected = offlinePunchMerger.merge(List.of(out), true);
+
+        assertEquals(List.of(out), deferred.deferred());
+        assertEquals(0, deferred.rejected());
+        assertTrue(rejected.deferred().isEmpty());
+        assertEquals(1, rejected.rejected());
+    }
+
+    @Test
+    void testMerge_PunchInsideExistingSessionRejected() {
+        Attendance existing = new Attendance();
+        existing.setId(7L);
+        existing.setUser(user);
+        existing.setCheckInTime(MORNING.minusHours(1));
+        existing.setCheckOutTime(MORNING.plusHours(8));
+        when(attendanceRepository.findClosedSessionsOverlapping(anyCollection(), any(), any())).thenReturn(List.of(existing));
+
+        OfflinePunchMerger.Outcome outcome = offlinePunchMerger.merge(List.of(punch("in", MORNING, PunchDirection.IN)), false);
+
+        assertEquals(1, outcome.rejected());
+        assertTrue(outcome.appliedClientIds().isEmpty());
+        verify(userRepository, never()).getReferenceById(any());
+    }
+
+    @Test
+    void testMerge_PairEnclosingExistingSessionRejectsOut() {
+        when(attendanceRepository.findClosedSessionsOverlapping(anyCollection(), any(), any()))
+                .thenReturn(List.of(closed(7L, MORNING.plusHours(2), MORNING.plusHours(3))));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(attendanceRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Attendance> created = invocation.getArgument(0);
+            created.forEach(attendance -> attendance.setId(50L));
+            return created;
+        });
+
+        OfflinePunchMerger.Outcome outcome = offlinePunchMerger.merge(List.of(
+                punch("in", MORNING, PunchDirection.IN),
+                punch("out", MORNING.plusHours(8), PunchDirection.OUT)), true);
+
+        assertEquals(List.of("in"), outcome.appliedClientIds());
+        assertEquals(1, outcome.rejected());
+        verify(punchEventRepository).saveAll(argThat((List<PunchEvent> events) -> events.size() == 1
+                && events.get(0).getType() == PunchEvent.Type.CHECK_IN));
+        assertEquals(MORNING, activeSessionIndex.find(1L).orElseThrow().checkInTime());
+    }
+
+    @Test
+    void testMerge_OutClosingOpenSessionAroundExistingSessionRejected() {
+        Attendance open = new Attendance();
+        open.setId(5L);
+        open.setUser(user);
+        open.setCheckInTime(MORNING);
+        when(attendanceRepository.findOpenSessionsForUsers(anyCollection())).thenReturn(List.of(open));
+        // The range starts at the open session, not at the chunk's first punch
+        when(attendanceRepository.findClosedSessionsOverlapping(anyCollection(), eq(MORNING), eq(MORNING.plusHours(8))))
+                .thenReturn(List.of(closed(7L, MORNING.plusHours(2), MORNING.plusHours(3))));
+
+        OfflinePunchMerger.Outcome outcome = offlinePunchMerger.merge(List.of(
+                punch("out", MORNING.plusHours(8), PunchDirection.OUT)), false);
+
+        assertEquals(1, outcome.rejected());
+        assertTrue(outcome.appliedClientIds().isEmpty());
+        assertTrue(outcome.deferred().isEmpty());
+        assertNull(open.getCheckOutTime());
+    }
+
+    private Attendance closed(Long id, LocalDateTime checkIn, LocalDateTime checkOut) {
+        Attendance attendance = new Attendance();
+        attendance.setId(id);
+        attendance.setUser(user);
+        attendance.setCheckInTime(checkIn);
+        attendance.setCheckOutTime(checkOut);
+        return attendance;
+    }
+
+    private static SyncPunch punch(String clientId, LocalDateTime timestamp, PunchDirection direction) {
+        return new SyncPunch(clientId, 1L, timestamp, direction);
+    }
+}
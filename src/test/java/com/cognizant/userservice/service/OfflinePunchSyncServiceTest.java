@@ -0,0 +1,134 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.PunchDirection;
+import com.cognizant.userservice.dto.SyncPunch;
+import com.cognizant.userservice.dto.SyncResult;
+import com.cognizant.userservice.exception.InvalidPunchBatchException;
+import com.cognizant.userservice.repository.PunchReceiptRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OfflinePunchSyncServiceTest {
+
+    @Mock
+    private PunchReceiptRepository punchReceiptRepository;
+
+    @Mock
+    private OfflinePunchMerger offlinePunchMerger;
+
+    @InjectMocks
+    private OfflinePunchSyncService syncService;
+
+    // Client IDs with a receipt in the (mocked) database
+    private final Set<String> receipts = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(syncService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(syncService, "chunkSize", 2);
+        ReflectionTestUtils.setField(syncService, "receiptRetention", Duration.ofDays(90));
+        ReflectionTestUtils.setField(syncService, "expectedReceipts", 1000);
+        receipts.add("uploaded-last-week");
+        when(punchReceiptRepository.findClientIdsReceivedSince(any())).thenReturn(List.of("uploaded-last-week"));
+        syncService.init();
+    }
+
+    @Test
+    void testSync_SkipsDuplicatesAcrossChunksAndUploads() throws Exception {
+        lenient().when(punchReceiptRepository.findExistingClientIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> clientIds = invocation.getArgument(0);
+            return clientIds.stream().filter(receipts::contains).toList();
+        });
+        when(offlinePunchMerger.merge(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            List<SyncPunch> punches = invocation.getArgument(0);
+            List<String> applied = punches.stream().map(SyncPunch::getClientId).toList();
+            receipts.addAll(applied);
+            return new OfflinePunchMerger.Outcome(applied, 0, new ArrayList<>());
+        });
+
+        SyncResult result = syncService.sync(upload(
+                punch("a", "2024-05-06T09:00:00", "IN"),
+                punch("b", "2024-05-06T17:00:00", "OUT"),
+                punch("c", "2024-05-07T09:00:00", "IN"),
+                punch("a", "2024-05-06T09:00:00", "IN"),
+                punch("uploaded-last-week", "2024-05-01T09:00:00", "IN")));
+
+        assertEquals(5, result.getReceived());
+        assertEquals(2, result.getDuplicates());
+        assertEquals(3, result.getApplied());
+        assertEquals(0, result.getRejected());
+        verify(offlinePunchMerger, times(2)).merge(anyList(), anyBoolean());
+    }
+
+    @Test
+    void testSync_CarriesDeferredPunchesIntoNextChunk() throws Exception {
+        SyncPunch unmatchedOut = SyncPunch.builder().clientId("out").userId(1L)
+                .timestamp(LocalDateTime.parse("2024-05-06T17:00:00")).direction(PunchDirection.OUT).build();
+        when(offlinePunchMerger.merge(anyList(), eq(false)))
+                .thenReturn(new OfflinePunchMerger.Outcome(List.of("x"), 0, new ArrayList<>(List.of(unmatchedOut))));
+        when(offlinePunchMerger.merge(anyList(), eq(true)))
+                .thenReturn(new OfflinePunchMerger.Outcome(List.of("in", "out"), 0, new ArrayList<>()));
+
+        SyncResult result = syncService.sync(upload(
+                punch("x", "2024-05-05T09:00:00", "IN"),
+                punch("out", "2024-05-06T17:00:00", "OUT"),
+                punch("in", "2024-05-06T09:00:00", "IN")));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SyncPunch>> lastChunk = ArgumentCaptor.forClass(List.class);
+        verify(offlinePunchMerger).merge(lastChunk.capture(), eq(true));
+        assertEquals(List.of("out", "in"), lastChunk.getValue().stream().map(SyncPunch::getClientId).toList());
+        assertEquals(3, result.getApplied());
+    }
+
+    @Test
+    void testSync_InvalidPunchesRejected() throws Exception {
+        SyncResult result = syncService.sync(upload("{\"clientId\":\"a\",\"direction\":\"IN\"}"));
+
+        assertEquals(1, result.getRejected());
+        verify(offlinePunchMerger, never()).merge(anyList(), anyBoolean());
+    }
+
+    @Test
+    void testSync_NotAnArray() {
+        InputStream body = new ByteArrayInputStream("{\"clientId\":\"a\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(InvalidPunchBatchException.class, () -> syncService.sync(body));
+    }
+
+    private static String punch(String clientId, String timestamp, String direction) {
+        return String.format("{\"clientId\":\"%s\",\"userId\":1,\"timestamp\":\"%s\",\"direction\":\"%s\"}",
+                clientId, timestamp, direction);
+    }
+
+    private static InputStream upload(String... punches) {
+        return new ByteArrayInputStream(("[" + String.join(",", punches) + "]").getBytes(StandardCharsets.UTF_8));
+    }
+}
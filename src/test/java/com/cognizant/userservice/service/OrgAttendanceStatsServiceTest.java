@@ -0,0 +1,174 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.DailyTotalView;
+import com.cognizant.userservice.model.DailyAttendanceRollup;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrgAttendanceStatsServiceTest {
+
+    // Monday of ISO week 19 of 2024
+    private static final LocalDate MONDAY = LocalDate.of(2024, 5, 6);
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Mock
+    private DailyRollupMaintenance dailyRollupMaintenance;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private OrgAttendanceStatsService orgAttendanceStatsService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orgAttendanceStatsService, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void testGetWeeklyStats_FromRollupIncludesUsersWithoutTime() {
+        when(dailyRollupMaintenance.isReady()).thenReturn(true);
+        when(userRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+        when(dailyRollupRepository.findByDayBetween(MONDAY, MONDAY.plusDays(6))).thenReturn(List.of(
+                new DailyAttendanceRollup(1L, MONDAY, 3600L, 1),
+                new DailyAttendanceRollup(1L, MONDAY.plusDays(1), 1800L, 1),
+                new DailyAttendanceRollup(2L, MONDAY, 60L, 1),
+                new DailyAttendanceRollup(4L, MONDAY, 7200L, 2)));
+
+        OrgAttendanceStatsService.OrgStats stats = orgAttendanceStatsService.getWeeklyStats(2024, 19, null);
+
+        assertEquals(MONDAY, stats.from());
+        assertEquals(MONDAY.plusDays(6), stats.to());
+        assertEquals(List.of(1L, 2L, 3L), stats.users().stream().map(OrgAttendanceStatsService.UserStats::userId).toList());
+        assertEquals("1 hours, 30 minutes, 0 seconds", stats.users().get(0).stats().get("totalHoursThisWeek"));
+        assertEquals(2, stats.users().get(0).stats().get("totalWorkingDaysThisWeek"));
+        assertEquals(0, stats.users().get(2).stats().get("totalWorkingDaysThisWeek"));
+        assertEquals("1 hours, 31 minutes, 0 seconds", stats.totals().get("totalHoursThisWeek"));
+        assertEquals(3, stats.totals().get("totalUsers"));
+        verifyNoInteractions(attendanceRepository);
+    }
+
+    @Test
+    void testGetMonthlyStats_FromSessionsForSelectedUsers() throws Exception {
+        LocalDate may = LocalDate.of(2024, 5, 1);
+        when(dailyRollupMaintenance.isReady()).thenReturn(false);
+        when(userRepository.findExistingIds(List.of(2L, 1L, 9L))).thenReturn(List.of(2L, 1L));
+        // Only the selected users' sessions are read, in user ID order
+        when(attendanceRepository.sumDailyDurationsForUsers(List.of(1L, 2L), may.atStartOfDay(),
+                may.plusMonths(1).atStartOfDay())).thenReturn(List.of(
+                total(1L, MONDAY, 3600L),
+                total(2L, MONDAY, 7200L)));
+
+        OrgAttendanceStatsService.OrgStats stats = orgAttendanceStatsService.getMonthlyStats(2024, 5, List.of(2L, 1L, 9L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orgAttendanceStatsService.write(stats, out);
+
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+        assertEquals("MONTH", json.get("period").asText());
+        assertEquals("2024-05-31", json.get("to").asText());
+        assertEquals(2, json.get("users").size());
+        assertEquals(1L, json.get("users").get(0).get("userId").asLong());
+        assertEquals("1 hours, 0 minutes, 0 seconds", json.get("users").get(0).get("totalHoursThisMonth").asText());
+        assertEquals(2L, json.get("users").get(1).get("userId").asLong());
+        assertEquals("3 hours, 0 minutes, 0 seconds", json.get("totals").get("totalHoursThisMonth").asText());
+        assertEquals(2, json.get("totals").get("totalUsers").asInt());
+        verify(attendanceRepository, never()).sumDailyDurations(any(), any());
+        verifyNoInteractions(dailyRollupRepository);
+    }
+
+    @Test
+    void testGetWeeklyStats_SelectedUsersReadByIdInChunks() {
+        List<Long> userIds = LongStream.rangeClosed(1, OrgAttendanceStatsService.IDS_PER_QUERY + 1).boxed().toList();
+        when(dailyRollupMaintenance.isReady()).thenReturn(true);
+        when(userRepository.findExistingIds(userIds)).thenReturn(userIds);
+        when(dailyRollupRepository.findByUserIdInAndDayBetween(anyCollection(), eq(MONDAY), eq(MONDAY.plusDays(6))))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                        .map(userId -> new DailyAttendanceRollup(userId, MONDAY, 60L, 1))
+                        .toList());
+
+        OrgAttendanceStatsService.OrgStats stats = orgAttendanceStatsService.getWeeklyStats(2024, 19, userIds);
+
+        assertEquals(userIds, stats.users().stream().map(OrgAttendanceStatsService.UserStats::userId).toList());
+        assertEquals("16 hours, 41 minutes, 0 seconds", stats.totals().get("totalHoursThisWeek"));
+        verify(dailyRollupRepository).findByUserIdInAndDayBetween(
+                userIds.subList(0, OrgAttendanceStatsService.IDS_PER_QUERY), MONDAY, MONDAY.plusDays(6));
+        verify(dailyRollupRepository).findByUserIdInAndDayBetween(
+                List.of((long) OrgAttendanceStatsService.IDS_PER_QUERY + 1), MONDAY, MONDAY.plusDays(6));
+        verify(dailyRollupRepository, never()).findByDayBetween(any(), any());
+        verifyNoInteractions(attendanceRepository);
+    }
+
+    @Test
+    void testGetWeeklyStats_ManyUsersSplitAcrossTasks() {
+        int userCount = OrgAttendanceStatsService.USERS_PER_TASK * 4 + 1;
+        List<Long> userIds = LongStream.rangeClosed(1, userCount).boxed().toList();
+        List<DailyAttendanceRollup> rows = new ArrayList<>();
+        userIds.forEach(userId -> rows.add(new DailyAttendanceRollup(userId, MONDAY, 60L, 1)));
+        when(dailyRollupMaintenance.isReady()).thenReturn(true);
+        when(userRepository.findAllIds()).thenReturn(userIds);
+        when(dailyRollupRepository.findByDayBetween(MONDAY, MONDAY.plusDays(6))).thenReturn(rows);
+
+        OrgAttendanceStatsService.OrgStats stats = orgAttendanceStatsService.getWeeklyStats(2024, 19, List.of());
+
+        assertEquals(userIds, stats.users().stream().map(OrgAttendanceStatsService.UserStats::userId).toList());
+        assertTrue(stats.users().stream().allMatch(user ->
+                "0 hours, 1 minutes, 0 seconds".equals(user.stats().get("totalHoursThisWeek"))));
+        assertEquals("17 hours, 5 minutes, 0 seconds", stats.totals().get("totalHoursThisWeek"));
+        assertEquals(1, stats.totals().get("totalWorkingDaysThisWeek"));
+    }
+
+    private static DailyTotalView total(Long userId, LocalDate day, Long seconds) {
+        return new DailyTotalView() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public LocalDate getWorkDay() {
+                return day;
+            }
+
+            @Override
+            public Long getTotalSeconds() {
+                return seconds;
+            }
+
+            @Override
+            public Long getSessionCount() {
+                return 1L;
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.model.MaintenanceTask;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.MaintenanceTaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PunchEventBackfillTest {
+
+    @Mock
+    private AttendanceProjector attendanceProjector;
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private MaintenanceTaskRepository maintenanceTaskRepository;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    @InjectMocks
+    private PunchEventBackfill punchEventBackfill;
+
+    @Test
+    void testBackfill_BoundedByIdCapturedBeforeTrafficAndMarksDone() {
+        when(maintenanceTaskRepository.existsById(PunchEventBackfill.BACKFILL_TASK)).thenReturn(false);
+        when(attendanceRepository.findMaxId()).thenReturn(42L);
+        when(schedulerLockService.tryLock(eq(PunchEventBackfill.LOCK_NAME), any(Duration.class))).thenReturn(true);
+
+        punchEventBackfill.afterSingletonsInstantiated();
+        punchEventBackfill.backfillOnStartup();
+
+        verify(attendanceProjector).backfillFromAttendance(42L);
+        verify(maintenanceTaskRepository).save(argThat((MaintenanceTask task) ->
+                task.getName().equals(PunchEventBackfill.BACKFILL_TASK)));
+        verify(schedulerLockService).unlock(PunchEventBackfill.LOCK_NAME);
+    }
+
+    @Test
+    void testBackfill_SkippedOnceCompleted() {
+        when(maintenanceTaskRepository.existsById(PunchEventBackfill.BACKFILL_TASK)).thenReturn(true);
+
+        punchEventBackfill.afterSingletonsInstantiated();
+        punchEventBackfill.backfillOnStartup();
+
+        verify(attendanceRepository, never()).findMaxId();
+        verify(schedulerLockService, never()).tryLock(any(), any());
+        verify(attendanceProjector, never()).backfillFromAttendance(anyLong());
+    }
+
+    @Test
+    void testBackfill_SkippedWhenAnotherInstanceFinishedFirst() {
+        when(maintenanceTaskRepository.existsById(PunchEventBackfill.BACKFILL_TASK)).thenReturn(false, true);
+        when(attendanceRepository.findMaxId()).thenReturn(42L);
+        when(schedulerLockService.tryLock(eq(PunchEventBackfill.LOCK_NAME), any(Duration.class))).thenReturn(true);
+
+        punchEventBackfill.afterSingletonsInstantiated();
+        punchEventBackfill.backfillOnStartup();
+
+        verify(attendanceProjector, never()).backfillFromAttendance(anyLong());
+        verify(maintenanceTaskRepository, never()).save(any());
+        verify(schedulerLockService).unlock(PunchEventBackfill.LOCK_NAME);
+    }
+}
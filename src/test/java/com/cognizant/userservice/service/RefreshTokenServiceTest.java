@@ -0,0 +1,155 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.exception.InvalidRefreshTokenException;
+import com.cognizant.userservice.model.RefreshToken;
+import com.cognizant.userservice.model.User;
+import com.cognizant.userservice.repository.RefreshTokenRepository;
+import com.cognizant.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(refreshTokenService, "refreshExpiration", Duration.ofDays(30));
+        ReflectionTestUtils.setField(refreshTokenService, "purgeInterval", Duration.ofHours(1));
+        user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+    }
+
+    @Test
+    void testIssue_StoresDigestOnly() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        String rawToken = refreshTokenService.issue("testuser");
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertNotEquals(rawToken, saved.getValue().getTokenHash());
+        assertEquals(RefreshTokenService.digest(rawToken), saved.getValue().getTokenHash());
+        assertNotNull(saved.getValue().getFamilyId());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(LocalDateTime.now().plusDays(29)));
+    }
+
+    @Test
+    void testRotate_IssuesSuccessorInSameFamily() {
+        RefreshToken stored = storedToken("raw", LocalDateTime.now().plusDays(1));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.digest("raw"))).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.consume(eq(10L), any(LocalDateTime.class))).thenReturn(1);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("raw");
+
+        assertSame(user, rotation.user());
+        assertNotEquals("raw", rotation.refreshToken());
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertEquals("family", saved.getValue().getFamilyId());
+        verify(refreshTokenRepository, never()).revokeFamily(any(), any());
+    }
+
+    @Test
+    void testRotate_ReuseRevokesFamily() {
+        RefreshToken stored = storedToken("raw", LocalDateTime.now().plusDays(1));
+        stored.setRevokedAt(LocalDateTime.now().minusMinutes(1));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.digest("raw"))).thenReturn(Optional.of(stored));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("raw"));
+
+        verify(refreshTokenRepository).revokeFamily(eq("family"), any(LocalDateTime.class));
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void testRotate_ConcurrentUseLosesRace() {
+        RefreshToken stored = storedToken("raw", LocalDateTime.now().plusDays(1));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.digest("raw"))).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.consume(eq(10L), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("raw"));
+
+        verify(refreshTokenRepository).revokeFamily(eq("family"), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testRotate_Expired() {
+        RefreshToken stored = storedToken("raw", LocalDateTime.now().minusSeconds(1));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.digest("raw"))).thenReturn(Optional.of(stored));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("raw"));
+
+        verify(refreshTokenRepository, never()).consume(any(), any());
+    }
+
+    @Test
+    void testRotate_Unknown() {
+        when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.empty());
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("unknown"));
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(""));
+    }
+
+    @Test
+    void testPurgeExpired_DeletesUnderLock() {
+        when(schedulerLockService.tryLock(RefreshTokenService.PURGE_LOCK_NAME, Duration.ofHours(1))).thenReturn(true);
+        when(refreshTokenRepository.deleteExpiredBefore(any(LocalDateTime.class))).thenReturn(3);
+
+        assertEquals(3, refreshTokenService.purgeExpired());
+
+        verify(refreshTokenRepository).deleteExpiredBefore(argThat(cutoff ->
+                !cutoff.isAfter(LocalDateTime.now()) && cutoff.isAfter(LocalDateTime.now().minusMinutes(1))));
+        verify(schedulerLockService).unlock(RefreshTokenService.PURGE_LOCK_NAME);
+    }
+
+    @Test
+    void testPurgeExpired_SkippedWhileAnotherInstanceHoldsLock() {
+        when(schedulerLockService.tryLock(RefreshTokenService.PURGE_LOCK_NAME, Duration.ofHours(1))).thenReturn(false);
+
+        assertEquals(0, refreshTokenService.purgeExpired());
+
+        verify(refreshTokenRepository, never()).deleteExpiredBefore(any());
+        verify(schedulerLockService, never()).unlock(any());
+    }
+
+    private RefreshToken storedToken(String rawToken, LocalDateTime expiresAt) {
+        RefreshToken token = new RefreshToken();
+        token.setId(10L);
+        token.setUser(user);
+        token.setTokenHash(RefreshTokenService.digest(rawToken));
+        token.setFamilyId("family");
+        token.setCreatedAt(LocalDateTime.now().minusDays(1));
+        token.setExpiresAt(expiresAt);
+        return token;
+    }
+}
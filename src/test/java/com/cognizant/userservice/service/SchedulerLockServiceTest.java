@@ -0,0 +1,72 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.repository.SchedulerLockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs lock instances against the embedded database, each repository call in its own transaction as in production.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SchedulerLockServiceTest {
+
+    private static final String LOCK_NAME = "test-job";
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @AfterEach
+    void tearDown() {
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    void testTryLock_OnlyOneInstanceCreatesTheLock() {
+        SchedulerLockService first = instance(schedulerLockRepository);
+        // The second instance checked for the row before the first one inserted it
+        SchedulerLockRepository racing = mock(SchedulerLockRepository.class, delegatesTo(schedulerLockRepository));
+        doReturn(false).when(racing).existsById(LOCK_NAME);
+        SchedulerLockService second = instance(racing);
+
+        assertTrue(first.tryLock(LOCK_NAME, LEASE));
+        assertFalse(second.tryLock(LOCK_NAME, LEASE));
+
+        assertEquals(ReflectionTestUtils.getField(first, "owner"),
+                schedulerLockRepository.findById(LOCK_NAME).orElseThrow().getLockedBy());
+    }
+
+    @Test
+    void testTryLock_HeldUntilReleased() {
+        SchedulerLockService first = instance(schedulerLockRepository);
+        SchedulerLockService second = instance(schedulerLockRepository);
+
+        assertTrue(first.tryLock(LOCK_NAME, LEASE));
+        assertFalse(second.tryLock(LOCK_NAME, LEASE));
+        first.unlock(LOCK_NAME);
+
+        assertTrue(second.tryLock(LOCK_NAME, LEASE));
+        assertEquals(ReflectionTestUtils.getField(second, "owner"),
+                schedulerLockRepository.findById(LOCK_NAME).orElseThrow().getLockedBy());
+    }
+
+    private static SchedulerLockService instance(SchedulerLockRepository repository) {
+        SchedulerLockService service = new SchedulerLockService();
+        ReflectionTestUtils.setField(service, "schedulerLockRepository", repository);
+        return service;
+    }
+}
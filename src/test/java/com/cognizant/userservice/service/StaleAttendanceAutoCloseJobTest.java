@@ -0,0 +1,153 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.dto.OpenSessionView;
+import com.cognizant.userservice.model.PunchEvent;
+import com.cognizant.userservice.repository.AttendanceRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.MaintenanceTaskRepository;
+import com.cognizant.userservice.repository.PunchEventRepository;
+import com.cognizant.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StaleAttendanceAutoCloseJobTest {
+
+    private static final LocalDateTime CHECKED_IN = LocalDateTime.of(2024, 5, 6, 9, 0);
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private PunchEventRepository punchEventRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Mock
+    private MaintenanceTaskRepository maintenanceTaskRepository;
+
+    @Mock
+    private AttendanceStatsCache attendanceStatsCache;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    @InjectMocks
+    private StaleAttendanceAutoCloseJob autoCloseJob;
+
+    private ActiveSessionIndex activeSessionIndex;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        activeSessionIndex = new ActiveSessionIndex(attendanceRepository, meterRegistry);
+        ReflectionTestUtils.setField(autoCloseJob, "activeSessionIndex", activeSessionIndex);
+        ReflectionTestUtils.setField(autoCloseJob, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(autoCloseJob, "maxSession", Duration.ofHours(16));
+        ReflectionTestUtils.setField(autoCloseJob, "chunkSize", 2);
+        ReflectionTestUtils.setField(autoCloseJob, "lockAtMostFor", Duration.ofMinutes(10));
+        AttendanceProjector projector = new AttendanceProjector(punchEventRepository, attendanceRepository, userRepository,
+                dailyRollupRepository, attendanceStatsCache, maintenanceTaskRepository);
+        ReflectionTestUtils.setField(autoCloseJob, "attendanceProjector", projector);
+        autoCloseJob.initMetrics();
+    }
+
+    @Test
+    void testCloseStaleSessions_ClosesInChunks() {
+        when(schedulerLockService.tryLock(eq(StaleAttendanceAutoCloseJob.LOCK_NAME), any(Duration.class))).thenReturn(true);
+        when(attendanceRepository.findStaleOpenSessions(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(staleSession(1L), staleSession(2L)), List.of(staleSession(3L)));
+        when(attendanceRepository.lockOpenSessionIds(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(attendanceRepository.closeSessionsAtCap(anyList(), eq(Duration.ofHours(16).toSeconds())))
+                .thenReturn(2, 1);
+
+        StaleAttendanceAutoCloseJob.Result result = autoCloseJob.closeStaleSessions();
+
+        assertEquals(3, result.closed());
+        assertNotNull(result.elapsed());
+        verify(attendanceRepository).closeSessionsAtCap(eq(List.of(1L, 2L)), anyLong());
+        verify(attendanceRepository).closeSessionsAtCap(eq(List.of(3L)), anyLong());
+        verify(punchEventRepository, times(2)).saveAll(argThat((List<PunchEvent> events) -> events.stream().allMatch(event ->
+                event.getType() == PunchEvent.Type.CHECK_OUT && event.getSource() == PunchEvent.Source.AUTO_CLOSE
+                        && event.getOccurredAt().equals(CHECKED_IN.plusHours(16)))));
+        verify(schedulerLockService).unlock(StaleAttendanceAutoCloseJob.LOCK_NAME);
+        assertEquals(3.0, meterRegistry.get("attendance.auto-close.closed").counter().count());
+    }
+
+    @Test
+    void testCloseStaleSessions_FullChunkFollowedByEmptyChunk() {
+        when(schedulerLockService.tryLock(eq(StaleAttendanceAutoCloseJob.LOCK_NAME), any(Duration.class))).thenReturn(true);
+        when(attendanceRepository.findStaleOpenSessions(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(staleSession(1L), staleSession(2L)), Collections.emptyList());
+        when(attendanceRepository.lockOpenSessionIds(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(attendanceRepository.closeSessionsAtCap(anyList(), anyLong())).thenReturn(2);
+
+        assertEquals(2, autoCloseJob.closeStaleSessions().closed());
+        verify(attendanceRepository, times(1)).closeSessionsAtCap(anyList(), anyLong());
+    }
+
+    @Test
+    void testCloseStaleSessions_LockHeldElsewhere() {
+        when(schedulerLockService.tryLock(eq(StaleAttendanceAutoCloseJob.LOCK_NAME), any(Duration.class))).thenReturn(false);
+
+        assertEquals(0, autoCloseJob.closeStaleSessions().closed());
+        verify(attendanceRepository, never()).findStaleOpenSessions(any(), any());
+        verify(attendanceRepository, never()).closeSessionsAtCap(anyList(), anyLong());
+        verify(schedulerLockService, never()).unlock(any());
+    }
+
+    @Test
+    void testCloseStaleSessions_DropsStaleSessionsFromIndex() {
+        when(schedulerLockService.tryLock(eq(StaleAttendanceAutoCloseJob.LOCK_NAME), any(Duration.class))).thenReturn(false);
+        activeSessionIndex.recordCheckIn(1L, 10L, LocalDateTime.now().minusHours(20));
+        activeSessionIndex.recordCheckIn(2L, 11L, LocalDateTime.now().minusHours(1));
+
+        autoCloseJob.closeStaleSessions();
+
+        assertTrue(activeSessionIndex.find(1L).isEmpty());
+        assertEquals(11L, activeSessionIndex.find(2L).orElseThrow().attendanceId());
+    }
+
+    private static OpenSessionView staleSession(Long id) {
+        return new OpenSessionView() {
+            @Override
+            public Long getUserId() {
+                return id;
+            }
+
+            @Override
+            public Long getAttendanceId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getCheckInTime() {
+                return CHECKED_IN;
+            }
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package com.cognizant.userservice.service;
+
+import com.cognizant.userservice.model.RevokedToken;
+import com.cognizant.userservice.model.VerifiedToken;
+import com.cognizant.userservice.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @InjectMocks
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tokenRevocationService, "jwtExpiration", 900_000L);
+        ReflectionTestUtils.setField(tokenRevocationService, "expectedEntries", 100);
+    }
+
+    @Test
+    void testIsRevoked_NoRevocations() {
+        when(revokedTokenRepository.findByExpiresAtAfter(any(LocalDateTime.class))).thenReturn(Collections.emptyList());
+        tokenRevocationService.init();
+
+        assertFalse(tokenRevocationService.isRevoked(token("testuser", Instant.now())));
+    }
+
+    @Test
+    void testRevokeSubject_RejectsEarlierTokensOnly() {
+        when(revokedTokenRepository.findByExpiresAtAfter(any(LocalDateTime.class))).thenReturn(Collections.emptyList());
+        tokenRevocationService.init();
+        VerifiedToken issuedBefore = token("testuser", Instant.now().minusSeconds(60));
+
+        tokenRevocationService.revokeSubject("testuser");
+
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(saved.capture());
+        assertEquals("testuser", saved.getValue().getSubject());
+        assertEquals(saved.getValue().getRevokedAt().plusMinutes(15), saved.getValue().getExpiresAt());
+
+        assertTrue(tokenRevocationService.isRevoked(issuedBefore));
+        assertFalse(tokenRevocationService.isRevoked(token("testuser", Instant.now().plusSeconds(60))));
+        assertFalse(tokenRevocationService.isRevoked(token("otheruser", Instant.now().minusSeconds(60))));
+    }
+
+    @Test
+    void testInit_LoadsStoredRevocations() {
+        LocalDateTime revokedAt = LocalDateTime.now().minusMinutes(1);
+        RevokedToken stored = new RevokedToken(1L, "testuser", revokedAt, revokedAt.plusMinutes(15));
+        when(revokedTokenRepository.findByExpiresAtAfter(any(LocalDateTime.class))).thenReturn(List.of(stored));
+
+        tokenRevocationService.init();
+
+        Instant issuedAt = revokedAt.minusMinutes(5).atZone(ZoneId.systemDefault()).toInstant();
+        assertTrue(tokenRevocationService.isRevoked(token("testuser", issuedAt)));
+    }
+
+    @Test
+    void testRefresh_DropsPurgedRevocations() {
+        LocalDateTime revokedAt = LocalDateTime.now().minusMinutes(1);
+        RevokedToken stored = new RevokedToken(1L, "testuser", revokedAt, revokedAt.plusMinutes(15));
+        when(revokedTokenRepository.findByExpiresAtAfter(any(LocalDateTime.class)))
+                .thenReturn(List.of(stored))
+                .thenReturn(Collections.emptyList());
+        when(revokedTokenRepository.deleteExpired(any(LocalDateTime.class))).thenReturn(1);
+        tokenRevocationService.init();
+
+        tokenRevocationService.refresh();
+
+        Instant issuedAt = revokedAt.minusMinutes(5).atZone(ZoneId.systemDefault()).toInstant();
+        assertFalse(tokenRevocationService.isRevoked(token("testuser", issuedAt)));
+    }
+
+    private static VerifiedToken token(String username, Instant issuedAt) {
+        return new VerifiedToken(username, issuedAt, issuedAt.plusSeconds(900), Map.of());
+    }
+}
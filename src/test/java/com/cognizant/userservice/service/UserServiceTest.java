@@ -1,10 +1,14 @@
 package com.cognizant.userservice.service;
 
+import com.cognizant.userservice.dto.UserProfileUpdateDTO;
 import com.cognizant.userservice.exception.UserNotFoundException;
 import com.cognizant.userservice.model.User;
 import com.cognizant.userservice.repository.AttendanceAdjustmentRepository;
 import com.cognizant.userservice.repository.AttendanceRepository;
 import com.cognizant.userservice.repository.LeaveRepository;
+import com.cognizant.userservice.repository.DailyAttendanceRollupRepository;
+import com.cognizant.userservice.repository.PunchEventRepository;
+import com.cognizant.userservice.repository.RefreshTokenRepository;
 import com.cognizant.userservice.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +16,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Collections;
 import java.util.List;
@@ -35,6 +40,27 @@ class UserServiceTest {
     @Mock
     private AttendanceAdjustmentRepository attendanceAdjustmentRepository;
 
+    @Mock
+    private PunchEventRepository punchEventRepository;
+
+    @Mock
+    private DailyAttendanceRollupRepository dailyRollupRepository;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private MyUserDetailsService userDetailsService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private ActiveSessionIndex activeSessionIndex;
+
     @InjectMocks
     private UserService userService;
 
@@ -97,9 +123,11 @@ class UserServiceTest {
         User newUser = new User();
         newUser.setUsername("testuser");
         newUser.setPassword("password");
+        when(passwordEncoder.encode("password")).thenReturn("encoded");
         User savedUser = userService.save(newUser);
 
         assertNotNull(savedUser);
+        assertEquals("encoded", newUser.getPassword());
         assertEquals(user.getUsername(), savedUser.getUsername());
         verify(userRepository, times(1)).save(any(User.class));
     }
@@ -113,7 +141,7 @@ class UserServiceTest {
 
     @Test
     void testDeleteById_Success() {
-        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         doNothing().when(userRepository).deleteById(1L);
         doNothing().when(leaveRepository).deleteByUserId(1L);
         doNothing().when(attendanceRepository).deleteByUserId(1L);
@@ -121,18 +149,35 @@ class UserServiceTest {
 
         userService.deleteById(1L);
 
-        verify(userRepository, times(1)).existsById(1L);
+        verify(userRepository, times(1)).findById(1L);
         verify(userRepository, times(1)).deleteById(1L);
         verify(leaveRepository, times(1)).deleteByUserId(1L);
         verify(attendanceRepository, times(1)).deleteByUserId(1L);
         verify(attendanceAdjustmentRepository, times(1)).deleteByUserId(1L);
+        verify(punchEventRepository, times(1)).deleteByUserId(1L);
+        verify(dailyRollupRepository, times(1)).deleteByUserId(1L);
+        verify(refreshTokenRepository, times(1)).deleteByUserId(1L);
+        verify(activeSessionIndex, times(1)).recordCheckOut(1L);
+        verify(userDetailsService, times(1)).evict("testuser");
+        verify(tokenRevocationService, times(1)).revokeSubject("testuser");
     }
 
     @Test
     void testDeleteById_NotFound() {
-        when(userRepository.existsById(1L)).thenReturn(false);
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
         assertThrows(UserNotFoundException.class, () -> userService.deleteById(1L));
-        verify(userRepository, times(1)).existsById(1L);
+        verify(userRepository, times(1)).findById(1L);
         verify(userRepository, never()).deleteById(1L);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testUpdateUserProfile_EvictsCachedPrincipal() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        UserProfileUpdateDTO updateDTO = new UserProfileUpdateDTO("New", null, null, null);
+        userService.updateUserProfile("testuser", updateDTO);
+
+        verify(userDetailsService, times(1)).evict("testuser");
+    }
+}